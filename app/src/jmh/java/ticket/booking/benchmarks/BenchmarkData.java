@@ -0,0 +1,43 @@
+package ticket.booking.benchmarks;
+
+import ticket.booking.localDb.DataDirectory;
+import ticket.booking.utils.DatasetGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Generates a seeded dataset into a fresh temporary directory and points booking.data.dir
+ * at it. Must run before any store class is loaded, which holds inside a forked benchmark
+ * JVM as long as it is the first thing @Setup does.
+ */
+final class BenchmarkData {
+    static final String PASSWORD = DatasetGenerator.DEFAULT_PASSWORD;
+    static final LocalDate FIRST_DATE = DatasetGenerator.DEFAULT_START_DATE;
+    static final int DAYS = DatasetGenerator.DEFAULT_DAYS;
+
+    private BenchmarkData() {
+    }
+
+    static String email(int index) {
+        return DatasetGenerator.email(index);
+    }
+
+    static String userId(int index) {
+        return DatasetGenerator.userId(index);
+    }
+
+    static String trainId(int index) {
+        return DatasetGenerator.trainId(index);
+    }
+
+    static Path create(int trainCount, int userCount, int ticketCount) throws IOException {
+        Path dir = Files.createTempDirectory("booking-bench");
+        dir.toFile().deleteOnExit();
+        new DatasetGenerator(DatasetGenerator.DEFAULT_SEED, trainCount, userCount, ticketCount).generate(dir);
+        System.setProperty(DataDirectory.PROPERTY, dir.toString());
+        return dir;
+    }
+}
@@ -0,0 +1,70 @@
+package ticket.booking.benchmarks;
+
+import ticket.booking.utils.PasswordHasher;
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password checks per second at each bcrypt cost.
+ * verifyOneCore runs bcrypt on a single benchmark thread, so its score is logins/sec per core.
+ * loginStorm has 32 threads log in at once through a PasswordHasher with a 2-thread pool and a
+ * short queue; the "accepted" and "rejected" counters show the pool holding its throughput while
+ * the excess is turned away quickly, rather than every thread competing for every core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+    private static final String PASSWORD = BenchmarkData.PASSWORD;
+    private static final int POOL_THREADS = 2;
+
+    @Param({"8", "10", "12"})
+    public int cost;
+
+    private String hashedPassword;
+    private PasswordHasher hasher;
+
+    /**
+     * Per-thread outcome counts for loginStorm, reported per second next to its score
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long accepted;
+        public long rejected;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hashedPassword = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(cost));
+        hasher = new PasswordHasher(cost, POOL_THREADS, POOL_THREADS * 4, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Benchmark
+    public boolean verifyOneCore() {
+        return BCrypt.checkpw(PASSWORD, hashedPassword);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean loginStorm(Outcomes outcomes) {
+        try {
+            boolean valid = hasher.verify(PASSWORD, hashedPassword);
+            outcomes.accepted++;
+            return valid;
+        } catch (PasswordHasher.OverloadedException e) {
+            outcomes.rejected++;
+            return false;
+        }
+    }
+}
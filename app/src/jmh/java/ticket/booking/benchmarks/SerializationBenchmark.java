@@ -0,0 +1,108 @@
+package ticket.booking.benchmarks;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.localDb.Journal;
+import ticket.booking.localDb.JsonCodecs;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading a tickets.json snapshot through the shared JsonCodecs writers and readers,
+ * against the way the stores used to do it: a plain ObjectMapper, a pretty printer built per
+ * save and an anonymous TypeReference per load. Saves go to a null stream so only
+ * serialization is measured. The journal pair replays up to 10k PUT records, streamed
+ * straight into tickets against the old parse into a JsonNode tree and bind from it.
+ * Run with -PjmhProfilers=gc and compare gc.alloc.rate.norm, the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    private static final ObjectMapper plainMapper = new ObjectMapper();
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private byte[] snapshot;
+    private List<Ticket> tickets;
+    private Journal<Ticket> journal;
+    private List<String> journalLines;
+    private final OutputStream sink = new DiscardingOutputStream();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path dir = BenchmarkData.create(100, Math.max(100, size / 10), size);
+        snapshot = Files.readAllBytes(dir.resolve("tickets.json"));
+        tickets = JsonCodecs.TICKET_LIST_READER.readValue(snapshot);
+        Path journalFile = dir.resolve("bench.journal");
+        journal = new Journal<>(journalFile.toString(), Ticket.class);
+        for (Ticket ticket : tickets.subList(0, Math.min(size, 10_000))) {
+            journal.appendPut(ticket.getTicketId(), ticket);
+        }
+        journal.sync();
+        journalLines = Files.readAllLines(journalFile);
+    }
+
+    @Benchmark
+    public void saveShared() throws IOException {
+        JsonCodecs.TICKET_LIST_WRITER.writeValue(sink, tickets);
+    }
+
+    @Benchmark
+    public void savePerCall() throws IOException {
+        plainMapper.writerWithDefaultPrettyPrinter().writeValue(sink, tickets);
+    }
+
+    @Benchmark
+    public List<Ticket> loadShared() throws IOException {
+        return JsonCodecs.TICKET_LIST_READER.readValue(snapshot);
+    }
+
+    @Benchmark
+    public List<Ticket> loadPerCall() throws IOException {
+        return plainMapper.readValue(snapshot, new TypeReference<List<Ticket>>() {});
+    }
+
+    @Benchmark
+    public int replayJournal() {
+        int[] count = new int[1];
+        journal.replay((op, id, value) -> count[0]++);
+        return count[0];
+    }
+
+    @Benchmark
+    public int replayJournalAsTrees() throws IOException {
+        int count = 0;
+        for (String line : journalLines) {
+            JsonNode record = plainMapper.readTree(line);
+            plainMapper.treeToValue(record.get("value"), Ticket.class);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Throws the bytes away and survives the close() that writeValue ends with
+     */
+    private static final class DiscardingOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+        }
+    }
+}
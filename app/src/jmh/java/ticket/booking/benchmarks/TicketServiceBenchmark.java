@@ -0,0 +1,65 @@
+package ticket.booking.benchmarks;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.interfaces.SeatInventory;
+import ticket.booking.localDb.DataDirectory;
+import ticket.booking.localDb.InMemorySeatInventory;
+import ticket.booking.localDb.TicketRepository;
+import ticket.booking.localDb.TrainCatalog;
+import ticket.booking.localDb.UserRepository;
+import ticket.booking.services.TicketServiceImpl;
+import ticket.booking.services.TrainServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date-range queries and booking statistics over 1k to 1M tickets spread across a year.
+ * A one-week range returns about 2% of all tickets, so the result size grows with the dataset.
+ * The statistics are answered from per-day totals, so their cost should stay flat as it grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketServiceBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private TicketServiceImpl ticketService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.create(1000, Math.max(1000, size / 10), size);
+        // Wired like App: the train service fills the inventory the ticket service releases seats in
+        SeatInventory seatInventory = new InMemorySeatInventory();
+        TrainCatalog trainCatalog = new TrainCatalog(DataDirectory.file("trains.json"));
+        TicketRepository tickets = TicketRepository.shared();
+        new TrainServiceImpl(seatInventory, trainCatalog, tickets);
+        ticketService = new TicketServiceImpl(seatInventory, trainCatalog, UserRepository.shared(), tickets);
+    }
+
+    private LocalDate nextStart() {
+        next = (next + 1) % (BenchmarkData.DAYS - 30);
+        return BenchmarkData.FIRST_DATE.plusDays(next);
+    }
+
+    @Benchmark
+    public List<Ticket> getTicketsByDateRange() {
+        LocalDate start = nextStart();
+        return ticketService.getTicketsByDateRange(start, start.plusDays(6));
+    }
+
+    @Benchmark
+    public Map<String, Object> getBookingStatistics() {
+        LocalDate start = nextStart();
+        return ticketService.getBookingStatistics(start, start.plusDays(29));
+    }
+}
@@ -0,0 +1,80 @@
+package ticket.booking.benchmarks;
+
+import ticket.booking.entities.Train;
+import ticket.booking.localDb.DataDirectory;
+import ticket.booking.localDb.TrainCatalog;
+import ticket.booking.services.TrainServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Train lookups and route searches over catalogs of 100 to 10k trains.
+ * reloadCatalog measures a full re-parse of trains.json, the cost paid whenever the file changes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainServiceBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private TrainServiceImpl trainService;
+    private final String[] trainIds = new String[QUERIES];
+    private final String[] sources = new String[QUERIES];
+    private final String[] destinations = new String[QUERIES];
+    private final LocalDate[] dates = new LocalDate[QUERIES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.create(size, 1000, 1000);
+        trainService = new TrainServiceImpl();
+        List<Train> trains = trainService.getAllTrains();
+        Random random = new Random(7);
+        for (int i = 0; i < QUERIES; i++) {
+            Train train = trains.get(random.nextInt(trains.size()));
+            trainIds[i] = train.getTrainId();
+            sources[i] = train.getStations().get(0);
+            destinations[i] = train.getStations().get(train.getStations().size() - 1);
+            dates[i] = BenchmarkData.FIRST_DATE.plusDays(random.nextInt(BenchmarkData.DAYS));
+        }
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (QUERIES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Train getTrainById() {
+        return trainService.getTrainById(trainIds[nextQuery()]);
+    }
+
+    @Benchmark
+    public List<Train> searchTrains() {
+        int query = nextQuery();
+        return trainService.searchTrains(sources[query], destinations[query], dates[query]);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> searchConnections() {
+        int query = nextQuery();
+        return trainService.searchConnections(sources[query], destinations[query], dates[query]);
+    }
+
+    @Benchmark
+    public int reloadCatalog() {
+        return new TrainCatalog(DataDirectory.file("trains.json")).getTrains().size();
+    }
+}
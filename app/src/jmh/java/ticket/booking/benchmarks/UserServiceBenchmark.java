@@ -0,0 +1,75 @@
+package ticket.booking.benchmarks;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.User;
+import ticket.booking.interfaces.SeatInventory;
+import ticket.booking.localDb.InMemorySeatInventory;
+import ticket.booking.localDb.UserRepository;
+import ticket.booking.services.TrainServiceImpl;
+import ticket.booking.services.UserServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login and booking against 1k to 1M users, with as many tickets as users.
+ * bookTicket includes the journal append and, every thousand writes, the compaction that
+ * rewrites the whole users.json; loadUsers is the full startup read of users and tickets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+    private static final int TRAINS = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private UserServiceImpl userService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.create(TRAINS, size, size);
+        SeatInventory seatInventory = new InMemorySeatInventory();
+        TrainServiceImpl trainService = new TrainServiceImpl(seatInventory);
+        userService = new UserServiceImpl(trainService, seatInventory);
+    }
+
+    @Benchmark
+    public User loginUser() {
+        next++;
+        return userService.loginUser(BenchmarkData.email(next % size), BenchmarkData.PASSWORD);
+    }
+
+    @Benchmark
+    public User getUserByEmail() {
+        next++;
+        return userService.getUserByEmail(BenchmarkData.email(next % size));
+    }
+
+    @Benchmark
+    public Ticket bookTicket() {
+        // Spread bookings over trains and dates so departures do not sell out
+        next++;
+        String userId = BenchmarkData.userId(next % size);
+        String trainId = BenchmarkData.trainId(next % TRAINS);
+        LocalDate date = BenchmarkData.FIRST_DATE.plusDays((next / TRAINS) % BenchmarkData.DAYS);
+        return userService.bookTicket(userId, trainId, date, "WINDOW", null);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public List<User> loadUsers() {
+        return UserRepository.shared().loadUsersFromFile();
+    }
+}
@@ -9,9 +9,16 @@ import ticket.booking.entities.Train;
 import ticket.booking.services.TrainServiceImpl;
 import ticket.booking.services.UserServiceImpl;
 import ticket.booking.services.TicketServiceImpl;
+import ticket.booking.interfaces.SeatInventory;
 import ticket.booking.interfaces.TrainService;
 import ticket.booking.interfaces.UserService;
 import ticket.booking.interfaces.TicketService;
+import ticket.booking.localDb.DataDirectory;
+import ticket.booking.localDb.InMemorySeatInventory;
+import ticket.booking.localDb.MappedSeatInventory;
+import ticket.booking.localDb.TicketRepository;
+import ticket.booking.localDb.TrainCatalog;
+import ticket.booking.localDb.UserRepository;
 import ticket.booking.utils.UserServiceUtil;
 
 import java.time.LocalDate;
@@ -32,6 +39,10 @@ public class App {
     
     public static void main(String[] args) {
         initializeServices();
+        if (Arrays.asList(args).contains("--serve")) {
+            serve();
+            return;
+        }
         scanner = new Scanner(System.in);
         
         System.out.println("🚆 Welcome to the Train Ticket Booking System! 🚆");
@@ -48,15 +59,41 @@ public class App {
     
     private static void initializeServices() {
         try {
-            userService = new UserServiceImpl();
-            trainService = new TrainServiceImpl();
-            ticketService = new TicketServiceImpl();
+            // One seat inventory shared by every service that books, queries or releases seats.
+            // -Dbooking.seats=mapped keeps it in a mapped file that survives restarts. The stores
+            // below lock the data directory, so only one App may run against it at a time.
+            SeatInventory seatInventory = "mapped".equalsIgnoreCase(System.getProperty("booking.seats"))
+                ? new MappedSeatInventory(DataDirectory.file("seats.map"))
+                : new InMemorySeatInventory();
+            // One catalog and one user and ticket store, loaded once and shared by every service
+            TrainCatalog trainCatalog = new TrainCatalog(DataDirectory.file("trains.json"));
+            TicketRepository tickets = TicketRepository.shared();
+            UserRepository users = UserRepository.shared();
+            trainService = new TrainServiceImpl(seatInventory, trainCatalog, tickets);
+            userService = new UserServiceImpl(trainService, seatInventory, users, tickets);
+            ticketService = new TicketServiceImpl(seatInventory, trainCatalog, users, tickets);
         } catch (Exception e) {
             System.err.println("Error initializing services: " + e.getMessage());
             System.exit(1);
         }
     }
     
+    /**
+     * Serve the HTTP API instead of the interactive menu, see BookingServer
+     */
+    private static void serve() {
+        int port = Integer.getInteger("booking.http.port", BookingServer.DEFAULT_PORT);
+        try {
+            BookingServer server = new BookingServer(userService, trainService, ticketService, port);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+            System.out.println("🚆 Serving the booking API on port " + server.getPort());
+        } catch (Exception e) {
+            System.err.println("Error starting server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
     private static void showMainMenu() {
         System.out.println("\n📋 Main Menu:");
         System.out.println("1. 🔐 Login");
@@ -231,6 +268,7 @@ public class App {
             
             if (trains.isEmpty()) {
                 System.out.println("❌ No trains found for the specified route and date.");
+                showConnections(source, destination, date);
             } else {
                 System.out.println("\n🚆 Available Trains:");
                 System.out.println("====================");
@@ -249,7 +287,7 @@ public class App {
                     System.out.print("Enter train number to book (or 0 to go back): ");
                     int trainChoice = getIntInput();
                     if (trainChoice > 0 && trainChoice <= trains.size()) {
-                        bookSpecificTrain(trains.get(trainChoice - 1));
+                        bookSpecificTrain(trains.get(trainChoice - 1), source, destination);
                     }
                 }
             }
@@ -258,6 +296,27 @@ public class App {
         }
     }
     
+    private static void showConnections(String source, String destination, LocalDate date) {
+        List<Map<String, Object>> journeys = trainService.searchConnections(source, destination, date);
+        if (journeys.isEmpty()) {
+            return;
+        }
+        System.out.println("\n🔁 Journeys with one change:");
+        System.out.println("============================");
+        for (int i = 0; i < journeys.size(); i++) {
+            Map<String, Object> journey = journeys.get(i);
+            Train first = (Train) journey.get("firstTrain");
+            Train second = (Train) journey.get("secondTrain");
+            System.out.printf("%d. %s (%s), change at %s, then %s (%s)\n",
+                i + 1, first.getTrainName(), first.getTrainNumber(), journey.get("transferStation"),
+                second.getTrainName(), second.getTrainNumber());
+            System.out.printf("   Arrive %s, depart %s (%d min), reach %s at %s\n",
+                journey.get("arrivalAtTransfer"), journey.get("departureFromTransfer"),
+                journey.get("connectionMinutes"), destination, journey.get("arrivalTime"));
+            System.out.println();
+        }
+    }
+    
     private static void viewAllTrains() {
         System.out.println("\n📊 All Available Trains");
         System.out.println("=======================");
@@ -308,6 +367,10 @@ public class App {
     }
     
     private static void bookSpecificTrain(Train train) {
+        bookSpecificTrain(train, null, null);
+    }
+    
+    private static void bookSpecificTrain(Train train, String source, String destination) {
         System.out.println("\n🎫 Booking Ticket for " + train.getTrainName());
         
         System.out.print("Enter date of travel (YYYY-MM-DD): ");
@@ -327,6 +390,11 @@ public class App {
             passengerDetails.put("name", currentUser.getName());
             passengerDetails.put("email", currentUser.getEmail());
             passengerDetails.put("phone", currentUser.getPhoneNumber());
+            if (source != null && destination != null) {
+                // Only hold the seat between the searched stations
+                passengerDetails.put("source", source);
+                passengerDetails.put("destination", destination);
+            }
             
             // Book the ticket
             Ticket ticket = userService.bookTicket(currentUser.getUserId(), train.getTrainId(), 
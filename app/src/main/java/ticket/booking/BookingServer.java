@@ -0,0 +1,336 @@
+package ticket.booking;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.interfaces.TicketService;
+import ticket.booking.interfaces.TrainService;
+import ticket.booking.interfaces.UserService;
+import ticket.booking.localDb.JsonCodecs;
+import ticket.booking.utils.PasswordHasher;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP/JSON front end over the same service instances as the interactive App, started with
+ * App --serve. Runs on the JDK HttpServer with one virtual thread per request, so thousands of
+ * concurrent clients can be driven against the one in-memory store.
+ * Listens on -Dbooking.http.port (default 8080). Endpoints:
+ * <pre>
+ * POST /login              {"email", "password"}                      -> {"userId", "token"}, 503 if overloaded
+ * GET  /trains/search?source=..&amp;destination=..&amp;date=yyyy-MM-dd  -> [train, ...]
+ * POST /tickets            {"trainId", "date", "source"?, "destination"?} -> ticket
+ *                          ... plus "passengers": [{...}, ...] to book a group -> [ticket, ...]
+ * GET  /tickets/{id}                                                  -> ticket
+ * POST /tickets/{id}/cancel                                           -> ticket
+ * </pre>
+ * The /tickets endpoints need "Authorization: Bearer {token}" and only see the caller's own
+ * tickets. Errors are returned as {"error": message} with a matching status code.
+ */
+public class BookingServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 1024;
+
+    private final UserService userService;
+    private final TrainService trainService;
+    private final TicketService ticketService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Fails the request with the given status; anything else thrown by a handler is a 500
+     */
+    private static class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * @param port Port to listen on; 0 picks a free one, see getPort()
+     */
+    public BookingServer(UserService userService, TrainService trainService, TicketService ticketService,
+                         int port) throws IOException {
+        this.userService = userService;
+        this.trainService = trainService;
+        this.ticketService = ticketService;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/login", exchange -> handle(exchange, this::login));
+        server.createContext("/trains/search", exchange -> handle(exchange, this::searchTrains));
+        server.createContext("/tickets", exchange -> handle(exchange, this::tickets));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop accepting requests and wait up to delaySeconds for the ones in flight
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // ==================== ENDPOINTS ====================
+
+    private Object login(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "POST");
+        JsonNode body = readBody(exchange);
+        Map<String, Object> session;
+        try {
+            session = userService.startSession(text(body, "email", true), text(body, "password", true));
+        } catch (PasswordHasher.OverloadedException e) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            throw new HttpError(503, "Too many logins in progress; try again shortly");
+        }
+        if (session == null) {
+            throw new HttpError(401, "Invalid email or password");
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("userId", session.get("userId"));
+        result.put("token", session.get("token"));
+        return result;
+    }
+
+    private Object searchTrains(HttpExchange exchange) {
+        requireMethod(exchange, "GET");
+        Map<String, String> query = query(exchange);
+        String source = required(query.get("source"), "source");
+        String destination = required(query.get("destination"), "destination");
+        LocalDate date = date(required(query.get("date"), "date"));
+        return trainService.searchTrains(source, destination, date);
+    }
+
+    /**
+     * POST /tickets, GET /tickets/{id} and POST /tickets/{id}/cancel
+     */
+    private Object tickets(HttpExchange exchange) throws IOException {
+        String userId = authenticate(exchange);
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        // path[0] is empty, path[1] is "tickets"
+        if (path.length < 2 || !"tickets".equals(path[1])) {
+            throw new HttpError(404, "No such resource");
+        }
+        if (path.length == 2) {
+            requireMethod(exchange, "POST");
+            return book(exchange, userId);
+        }
+        Ticket ticket = ownTicket(path[2], userId);
+        if (path.length == 3) {
+            requireMethod(exchange, "GET");
+            return ticket;
+        }
+        if (path.length == 4 && "cancel".equals(path[3])) {
+            requireMethod(exchange, "POST");
+            if (!ticketService.cancelTicket(ticket.getTicketId())) {
+                throw new HttpError(409, "Ticket " + ticket.getTicketId() + " cannot be cancelled");
+            }
+            return ticketService.getTicketById(ticket.getTicketId());
+        }
+        throw new HttpError(404, "No such resource");
+    }
+
+    private Object book(HttpExchange exchange, String userId) throws IOException {
+        JsonNode body = readBody(exchange);
+        String trainId = text(body, "trainId", true);
+        LocalDate date = date(text(body, "date", true));
+        Map<String, Object> passengerDetails = new HashMap<>();
+        String source = text(body, "source", false);
+        String destination = text(body, "destination", false);
+        if (source != null) {
+            passengerDetails.put("source", source);
+        }
+        if (destination != null) {
+            passengerDetails.put("destination", destination);
+        }
+        if (trainService.getTrainById(trainId) == null) {
+            throw new HttpError(404, "Unknown train " + trainId);
+        }
+        JsonNode passengers = body.get("passengers");
+        if (passengers != null) {
+            return bookGroup(userId, trainId, date, passengerDetails, passengers);
+        }
+        Ticket ticket = userService.bookTicket(userId, trainId, date, null, passengerDetails);
+        if (ticket == null) {
+            throw new HttpError(409, "No seat available on " + trainId + " for that journey");
+        }
+        return new Created(ticket);
+    }
+
+    /**
+     * Book every passenger in the array together; the request's source and destination
+     * apply to all of them
+     */
+    private Object bookGroup(String userId, String trainId, LocalDate date, Map<String, Object> journey,
+                             JsonNode passengers) {
+        if (!passengers.isArray() || passengers.isEmpty()) {
+            throw new HttpError(400, "passengers must be a non-empty array");
+        }
+        List<Map<String, Object>> group = new ArrayList<>(passengers.size());
+        for (JsonNode passenger : passengers) {
+            if (!passenger.isObject()) {
+                throw new HttpError(400, "Each passenger must be a JSON object");
+            }
+            Map<String, Object> details = new HashMap<>();
+            passenger.fields().forEachRemaining(field -> details.put(field.getKey(), field.getValue().asText()));
+            details.putAll(journey);
+            group.add(details);
+        }
+        List<Ticket> tickets = userService.bookTickets(userId, trainId, date, group);
+        if (tickets.isEmpty()) {
+            throw new HttpError(409, "Not enough seats on " + trainId + " for " + group.size()
+                + " passengers on that journey");
+        }
+        return new Created(tickets);
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    /**
+     * Endpoint result that is answered with 201 Created
+     */
+    private static final class Created {
+        private final Object body;
+
+        Created(Object body) {
+            this.body = body;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        Object serve(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Run an endpoint and write its result, or the error it raised, as JSON
+     */
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        int status;
+        Object result;
+        try {
+            result = endpoint.serve(exchange);
+            status = 200;
+            if (result instanceof Created) {
+                status = 201;
+                result = ((Created) result).body;
+            }
+        } catch (HttpError e) {
+            status = e.status;
+            result = Map.of("error", e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 500;
+            result = Map.of("error", "Internal error");
+        }
+        byte[] bytes = JsonCodecs.MAPPER.writeValueAsBytes(result);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String authenticate(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        String userId = header != null && header.startsWith("Bearer ")
+            ? userService.getUserIdForToken(header.substring("Bearer ".length()).trim())
+            : null;
+        if (userId == null) {
+            throw new HttpError(401, "Missing, unknown or expired session token");
+        }
+        return userId;
+    }
+
+    /**
+     * The ticket, if it belongs to the user; other users' tickets are reported as missing
+     */
+    private Ticket ownTicket(String ticketId, String userId) {
+        Ticket ticket = ticketService.getTicketById(ticketId);
+        if (ticket == null || !userId.equals(ticket.getUserId())) {
+            throw new HttpError(404, "Unknown ticket " + ticketId);
+        }
+        return ticket;
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!method.equals(exchange.getRequestMethod())) {
+            throw new HttpError(405, "Use " + method);
+        }
+    }
+
+    private static JsonNode readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            JsonNode body = JsonCodecs.MAPPER.readTree(in);
+            if (body == null || !body.isObject()) {
+                throw new HttpError(400, "Expected a JSON object");
+            }
+            return body;
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            throw new HttpError(400, "Malformed JSON");
+        }
+    }
+
+    private static String text(JsonNode body, String field, boolean required) {
+        JsonNode value = body.get(field);
+        String text = value != null && value.isValueNode() && !value.isNull() ? value.asText() : null;
+        return required ? required(text, field) : text;
+    }
+
+    private static String required(String value, String name) {
+        if (value == null || value.isEmpty()) {
+            throw new HttpError(400, "Missing " + name);
+        }
+        return value;
+    }
+
+    private static LocalDate date(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new HttpError(400, "Dates are yyyy-MM-dd: " + value);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+            }
+        }
+        return params;
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}
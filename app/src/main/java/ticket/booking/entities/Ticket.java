@@ -1,18 +1,55 @@
 package ticket.booking.entities;
 
-import java.time.LocalDateTime;
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonSetter;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * A booked journey. On the wire it keeps its JSON shape (String dates and status, a decimal
+ * price), but in memory the travel date is an epoch day, the booking time an epoch second
+ * (local time, no zone), the price a count of minor units (cents) and the status an enum
+ * ordinal, so a ticket carries no per-instance date, Double or status objects.
+ * Prices are held to the cent. A date, booking time, status or price that does not fit the
+ * compact form (unparsable or non-canonical text, an unknown status, a non-numeric price) is
+ * kept verbatim instead.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonPropertyOrder({"ticketId", "userId", "source", "destination", "dateOfTravel", "seatNumber",
+    "ticketStatus", "price", "paymentMethod", "bookingDate", "trainId", "passengerName"})
 public class Ticket {
+    public static final int NO_DATE = Integer.MIN_VALUE;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final byte NO_STATUS = -1;
+    private static final int RAW_DATE = 0;
+    private static final int RAW_BOOKING_DATE = 1;
+    private static final int RAW_STATUS = 2;
+    private static final int RAW_PRICE = 3;
+    private static final int SECONDS_PER_DAY = 86_400;
+
     private String ticketId;
     private String userId;
     private String source;
     private String destination;
-    private String dateOfTravel;
+    private int travelDay = NO_DATE;
     private String seatNumber;
-    private String ticketStatus;
-    private Double price;
+    private byte status = NO_STATUS;
+    private long priceMinor = NO_PRICE;
     private String paymentMethod;
-    private String bookingDate;
+    private long bookedAt = NO_TIME;
+    private String trainId;
+    private String passengerName;
+    // Verbatim values that did not fit the compact fields, indexed by RAW_*; usually null
+    private String[] unparsed;
+    // Resolved from trainId on read; only trainId is persisted
     private Train train;
 
     //constructor
@@ -21,8 +58,8 @@ public class Ticket {
         this.userId = userId;
         this.source = source;
         this.destination = destination;
-        this.dateOfTravel = dateOfTravel;
-        this.train = train;
+        setDateOfTravel(dateOfTravel);
+        setTrain(train);
     }
     
     //constructor with all fields
@@ -32,13 +69,13 @@ public class Ticket {
         this.userId = userId;
         this.source = source;
         this.destination = destination;
-        this.dateOfTravel = dateOfTravel;
+        setDateOfTravel(dateOfTravel);
         this.seatNumber = seatNumber;
-        this.ticketStatus = ticketStatus;
-        this.price = price;
+        setTicketStatus(ticketStatus);
+        setPrice(price);
         this.paymentMethod = paymentMethod;
-        this.bookingDate = bookingDate;
-        this.train = train;
+        setBookingDate(bookingDate);
+        setTrain(train);
     }
     
     //default constructor
@@ -71,10 +108,35 @@ public class Ticket {
         this.destination = destination;
     }
     public String getDateOfTravel() {
-        return dateOfTravel;
+        return travelDay != NO_DATE ? LocalDate.ofEpochDay(travelDay).toString() : raw(RAW_DATE);
     }
     public void setDateOfTravel(String dateOfTravel) {
-        this.dateOfTravel = dateOfTravel;
+        this.travelDay = parseEpochDay(dateOfTravel);
+        keepRaw(RAW_DATE, travelDay == NO_DATE ? dateOfTravel : null);
+    }
+    /**
+     * Travel date as an epoch day, or NO_DATE if it is missing or unparsable
+     */
+    @JsonIgnore
+    public int getTravelDay() {
+        return travelDay;
+    }
+    public void setTravelDay(int travelDay) {
+        this.travelDay = travelDay;
+        keepRaw(RAW_DATE, null);
+    }
+    /**
+     * Travel date, or null if it is missing or unparsable
+     */
+    @JsonIgnore
+    public LocalDate getTravelDate() {
+        return travelDay != NO_DATE ? LocalDate.ofEpochDay(travelDay) : null;
+    }
+    public void setTravelDate(LocalDate travelDate) {
+        setTravelDay(travelDate != null ? (int) travelDate.toEpochDay() : NO_DATE);
+    }
+    public boolean hasTravelDate() {
+        return travelDay != NO_DATE;
     }
     public String getSeatNumber() {
         return seatNumber;
@@ -83,16 +145,69 @@ public class Ticket {
         this.seatNumber = seatNumber;
     }
     public String getTicketStatus() {
-        return ticketStatus;
+        return status != NO_STATUS ? TicketStatus.fromOrdinal(status).name() : raw(RAW_STATUS);
     }
     public void setTicketStatus(String ticketStatus) {
-        this.ticketStatus = ticketStatus;
+        TicketStatus known = TicketStatus.fromName(ticketStatus);
+        this.status = known != null ? (byte) known.ordinal() : NO_STATUS;
+        keepRaw(RAW_STATUS, known == null ? ticketStatus : null);
+    }
+    /**
+     * Status, or null if it is missing or not a known TicketStatus
+     */
+    @JsonIgnore
+    public TicketStatus getStatus() {
+        return status != NO_STATUS ? TicketStatus.fromOrdinal(status) : null;
     }
+    public void setStatus(TicketStatus status) {
+        this.status = status != null ? (byte) status.ordinal() : NO_STATUS;
+        keepRaw(RAW_STATUS, null);
+    }
+    @JsonIgnore
     public Double getPrice() {
-        return price;
+        return priceMinor != NO_PRICE ? priceMinor / 100.0 : null;
     }
+    @JsonIgnore
     public void setPrice(Double price) {
-        this.price = price;
+        this.priceMinor = price != null ? Math.round(price * 100) : NO_PRICE;
+        keepRaw(RAW_PRICE, null);
+    }
+    /**
+     * Verbatim price of a ticket loaded with one that is not a number; null otherwise
+     */
+    @JsonIgnore
+    public String getPriceText() {
+        return raw(RAW_PRICE);
+    }
+    /**
+     * Set the price from text, keeping it verbatim if it is not a number
+     */
+    public void setPriceText(String price) {
+        Double value = null;
+        if (price != null && !price.isBlank()) {
+            try {
+                value = Double.valueOf(price.trim());
+            } catch (NumberFormatException e) {
+                setPrice(null);
+                keepRaw(RAW_PRICE, price);
+                return;
+            }
+        }
+        setPrice(value);
+    }
+    /**
+     * Price in minor units (cents); 0 if the ticket has no price, so sums never need a null check
+     */
+    @JsonIgnore
+    public long getPriceInMinorUnits() {
+        return priceMinor != NO_PRICE ? priceMinor : 0;
+    }
+    public void setPriceInMinorUnits(long priceMinor) {
+        this.priceMinor = priceMinor;
+        keepRaw(RAW_PRICE, null);
+    }
+    public boolean hasPrice() {
+        return priceMinor != NO_PRICE;
     }
     public String getPaymentMethod() {
         return paymentMethod;
@@ -101,16 +216,36 @@ public class Ticket {
         this.paymentMethod = paymentMethod;
     }
     public String getBookingDate() {
-        return bookingDate;
+        return bookedAt != NO_TIME ? formatDateTime(bookedAt) : raw(RAW_BOOKING_DATE);
     }
     public void setBookingDate(String bookingDate) {
-        this.bookingDate = bookingDate;
+        this.bookedAt = parseEpochSecond(bookingDate);
+        keepRaw(RAW_BOOKING_DATE, bookedAt == NO_TIME ? bookingDate : null);
+    }
+    public String getTrainId() {
+        return trainId;
+    }
+    public void setTrainId(String trainId) {
+        this.trainId = trainId;
+    }
+    // Written only when known, so tickets booked without one keep their old shape
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getPassengerName() {
+        return passengerName;
+    }
+    public void setPassengerName(String passengerName) {
+        this.passengerName = passengerName;
     }
+    // Still accepted on input so files with embedded train copies keep loading
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     public Train getTrain() {
         return train;
     }
     public void setTrain(Train train) {
         this.train = train;
+        if (train != null) {
+            this.trainId = train.getTrainId();
+        }
     }
     @Override
     public String toString() {
@@ -119,13 +254,14 @@ public class Ticket {
                 ", userId='" + userId + '\'' +
                 ", source='" + source + '\'' +
                 ", destination='" + destination + '\'' +
-                ", dateOfTravel='" + dateOfTravel + '\'' +
+                ", dateOfTravel='" + getDateOfTravel() + '\'' +
                 ", seatNumber='" + seatNumber + '\'' +
-                ", ticketStatus='" + ticketStatus + '\'' +
-                ", price=" + price +
+                ", ticketStatus='" + getTicketStatus() + '\'' +
+                ", price=" + getPrice() +
                 ", paymentMethod='" + paymentMethod + '\'' +
-                ", bookingDate='" + bookingDate + '\'' +
-                ", train=" + train +
+                ", bookingDate='" + getBookingDate() + '\'' +
+                ", trainId='" + trainId + '\'' +
+                ", passengerName='" + passengerName + '\'' +
                 '}';
     }
     @Override
@@ -139,8 +275,9 @@ public class Ticket {
         if (!userId.equals(ticket.userId)) return false;
         if (!source.equals(ticket.source)) return false;
         if (!destination.equals(ticket.destination)) return false;
-        if (!dateOfTravel.equals(ticket.dateOfTravel)) return false;
-        return train.equals(ticket.train);
+        if (travelDay != ticket.travelDay) return false;
+        if (!Objects.equals(raw(RAW_DATE), ticket.raw(RAW_DATE))) return false;
+        return Objects.equals(trainId, ticket.trainId);
     }
     @Override
     public int hashCode() {
@@ -148,19 +285,118 @@ public class Ticket {
         result = 31 * result + userId.hashCode();
         result = 31 * result + source.hashCode();
         result = 31 * result + destination.hashCode();
-        result = 31 * result + dateOfTravel.hashCode();
-        result = 31 * result + train.hashCode();
+        result = 31 * result + (travelDay != NO_DATE ? travelDay : Objects.hashCode(raw(RAW_DATE)));
+        result = 31 * result + Objects.hashCode(trainId);
         return result;
     }
     // Additional methods can be added as needed
+    @JsonIgnore
     public String getTicketDetails() {
         return "Ticket ID: " + ticketId + ", User ID: " + userId + ", Source: " + source +
-               ", Destination: " + destination + ", Date of Travel: " + dateOfTravel +
-               ", Train: " + (train != null ? train.getTrainNumber() : "N/A");
+               ", Destination: " + destination + ", Date of Travel: " + getDateOfTravel() +
+               ", Train: " + (train != null ? train.getTrainNumber() : trainId != null ? trainId : "N/A");
     }
 
+    @JsonIgnore
     public String getTicketSummary() {
-        return "Ticket Summary: " + source + " to " + destination + " on " + dateOfTravel +
-               " with Train No: " + (train != null ? train.getTrainNumber() : "N/A");
+        return "Ticket Summary: " + source + " to " + destination + " on " + getDateOfTravel() +
+               " with Train No: " + (train != null ? train.getTrainNumber() : trainId != null ? trainId : "N/A");
+    }
+
+    // ==================== COMPACT FIELD HELPERS ====================
+
+    // JSON "price": a number, or the verbatim text kept for a price that is not one
+    @JsonGetter("price")
+    private Object priceForJson() {
+        return priceMinor != NO_PRICE ? getPrice() : raw(RAW_PRICE);
+    }
+
+    @JsonSetter("price")
+    private void priceFromJson(Object price) {
+        if (price instanceof Number) {
+            setPrice(((Number) price).doubleValue());
+        } else {
+            setPriceText(price != null ? price.toString() : null);
+        }
+    }
+
+    private String raw(int index) {
+        return unparsed != null ? unparsed[index] : null;
+    }
+
+    private void keepRaw(int index, String value) {
+        if (value == null && unparsed == null) {
+            return;
+        }
+        if (unparsed == null) {
+            unparsed = new String[4];
+        }
+        unparsed[index] = value;
+    }
+
+    /**
+     * Epoch day of a yyyy-MM-dd date, without going through a DateTimeFormatter
+     */
+    private static int parseEpochDay(String text) {
+        if (text == null || text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return NO_DATE;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return NO_DATE;
+        }
+        try {
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return NO_DATE;
+        }
+    }
+
+    /**
+     * Epoch second of a yyyy-MM-dd'T'HH:mm:ss local date-time, read as if it were UTC
+     */
+    private static long parseEpochSecond(String text) {
+        if (text == null || text.length() != 19 || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return NO_TIME;
+        }
+        int day = parseEpochDay(text.substring(0, 10));
+        int hour = digits(text, 11, 13);
+        int minute = digits(text, 14, 16);
+        int second = digits(text, 17, 19);
+        if (day == NO_DATE || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return NO_TIME;
+        }
+        return (long) day * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+    }
+
+    private static String formatDateTime(long epochSecond) {
+        int secondOfDay = (int) Math.floorMod(epochSecond, (long) SECONDS_PER_DAY);
+        StringBuilder text = new StringBuilder(19);
+        text.append(LocalDate.ofEpochDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY))).append('T');
+        appendTwoDigits(text, secondOfDay / 3600).append(':');
+        appendTwoDigits(text, secondOfDay / 60 % 60).append(':');
+        return appendTwoDigits(text, secondOfDay % 60).toString();
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder text, int value) {
+        return text.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Value of text[from, to) if it is all ASCII digits, otherwise -1
+     */
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
     }
 }
@@ -0,0 +1,93 @@
+package ticket.booking.entities;
+
+/**
+ * Lifecycle states a ticket can be in; stored as the constant's name in tickets.json.
+ * A booking starts CONFIRMED and may then be paid, cancelled or completed. Only money taken
+ * can be refunded, so REFUNDED is reached from PAID, or from CANCELLED for a ticket that was
+ * paid before it was cancelled (TicketServiceImpl checks the payment); an unpaid CONFIRMED
+ * ticket is cancelled instead.
+ * A cancelled ticket can be re-confirmed (if its seat is still free) or refunded.
+ * REFUNDED and COMPLETED are final.
+ */
+public enum TicketStatus {
+    CONFIRMED,
+    PAID,
+    CANCELLED,
+    REFUNDED,
+    COMPLETED;
+
+    private static final TicketStatus[] VALUES = values();
+
+    /**
+     * Look up a status by its stored name
+     * @param name e.g. "CONFIRMED"
+     * @return The status, or null if the name is null or not a known status
+     */
+    public static TicketStatus fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (TicketStatus status : VALUES) {
+            if (status.name().equals(name)) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Status for an ordinal previously taken from ordinal()
+     */
+    static TicketStatus fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Number of statuses, for arrays indexed by ordinal()
+     */
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * Whether a ticket in this status keeps its seat; cancelled and refunded tickets give it back
+     */
+    public boolean holdsSeat() {
+        return this != CANCELLED && this != REFUNDED;
+    }
+
+    /**
+     * Whether a ticket may move from this status to the next; staying put is always allowed
+     * @param next The requested status
+     * @return true if the transition is valid
+     */
+    public boolean canTransitionTo(TicketStatus next) {
+        if (next == null) {
+            return false;
+        }
+        if (next == this) {
+            return true;
+        }
+        switch (this) {
+            case CONFIRMED:
+                return next != REFUNDED;
+            case PAID:
+                return next == CANCELLED || next == REFUNDED || next == COMPLETED;
+            case CANCELLED:
+                return next == CONFIRMED || next == REFUNDED;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Transition check that also covers tickets loaded with a missing or unknown status,
+     * which may move to any status
+     * @param from The current status, or null if it is not a known one
+     * @param to The requested status
+     * @return true if the transition is valid
+     */
+    public static boolean isValidTransition(TicketStatus from, TicketStatus to) {
+        return from == null ? to != null : from.canTransitionTo(to);
+    }
+}
@@ -1,8 +1,12 @@
 package ticket.booking.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 import java.util.List;
 import java.util.Map;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class Train {
     private String trainId;
     private String trainNumber;
@@ -18,6 +22,7 @@ public class Train {
     private int totalSeats;
     private int availableSeats;
     private double basePrice;
+    private List<String> operatingDays;
 
     // Constructor
     public Train(String trainId, String trainNumber, String trainName, String source, String destination,
@@ -130,6 +135,12 @@ public class Train {
     public void setBasePrice(double basePrice) {
         this.basePrice = basePrice;
     }
+    public List<String> getOperatingDays() {
+        return operatingDays;
+    }
+    public void setOperatingDays(List<String> operatingDays) {
+        this.operatingDays = operatingDays;
+    }
     
     @Override
     public String toString() {
@@ -148,6 +159,7 @@ public class Train {
                 ", totalSeats=" + totalSeats +
                 ", availableSeats=" + availableSeats +
                 ", basePrice=" + basePrice +
+                ", operatingDays=" + operatingDays +
                 '}';
     }
     @Override
@@ -190,6 +202,7 @@ public class Train {
         result = 31 * result + Double.hashCode(basePrice);
         return result;
     }
+    @JsonIgnore
     public String getTrainInfo(){
         return "Train ID: " + trainId + ", Train Number: " + trainNumber + ", Train Name: " + trainName +
                ", Source: " + source + ", Destination: " + destination +
@@ -1,8 +1,12 @@
 package ticket.booking.entities;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
 import java.util.List;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class User {
     private String userId;
     private String name;
@@ -11,6 +15,8 @@ public class User {
     private String hashedPassword;
     private String phoneNumber;
     private String registrationDate;
+    // Persisted as ticket IDs; the Ticket objects are resolved from the ticket store on load
+    private List<String> bookedTicketIds = new ArrayList<>();
     private List<Ticket> bookedTickets;
 
     //constructor
@@ -74,6 +80,21 @@ public class User {
     public void setRegistrationDate(String registrationDate) {
         this.registrationDate = registrationDate;
     }
+    public List<String> getBookedTicketIds() {
+        if (bookedTickets == null) {
+            return bookedTicketIds;
+        }
+        List<String> ids = new ArrayList<>(bookedTickets.size());
+        for (Ticket ticket : bookedTickets) {
+            ids.add(ticket.getTicketId());
+        }
+        return ids;
+    }
+    public void setBookedTicketIds(List<String> bookedTicketIds) {
+        this.bookedTicketIds = bookedTicketIds != null ? bookedTicketIds : new ArrayList<>();
+    }
+    // Still accepted on input so files with embedded ticket copies keep loading
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     public List<Ticket> getBookedTickets() {
         return bookedTickets;
     }
@@ -90,7 +111,7 @@ public class User {
                 ", hashedPassword='" + hashedPassword + '\'' +
                 ", phoneNumber='" + phoneNumber + '\'' +
                 ", registrationDate='" + registrationDate + '\'' +
-                ", bookedTickets=" + bookedTickets +
+                ", bookedTicketIds=" + getBookedTicketIds() +
                 '}';
     }
     @Override
@@ -107,7 +128,7 @@ public class User {
         if (!hashedPassword.equals(user.hashedPassword)) return false;
         if (!phoneNumber.equals(user.phoneNumber)) return false;
         if (!registrationDate.equals(user.registrationDate)) return false;
-        return bookedTickets.equals(user.bookedTickets);
+        return getBookedTicketIds().equals(user.getBookedTicketIds());
     }
     @Override
     public int hashCode() {
@@ -118,12 +139,12 @@ public class User {
         result = 31 * result + hashedPassword.hashCode();
         result = 31 * result + phoneNumber.hashCode();
         result = 31 * result + registrationDate.hashCode();
-        result = 31 * result + bookedTickets.hashCode();
+        result = 31 * result + getBookedTicketIds().hashCode();
         return result;
     }
 
     public void printTickets() {
-        if (bookedTickets.isEmpty()) {
+        if (bookedTickets == null || bookedTickets.isEmpty()) {
             System.out.println("No tickets booked.");
         } else {
             for (Ticket ticket : bookedTickets) {
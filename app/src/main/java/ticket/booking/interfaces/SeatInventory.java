@@ -0,0 +1,293 @@
+package ticket.booking.interfaces;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Per-departure seat inventory keyed by (trainId, journeyDate, coach).
+ * Each row of Train.seats is treated as one coach; a 1 in the row marks a sellable seat
+ * and a 0 a seat that is never sold. Seats are addressed by zero-based coach and seat indexes
+ * and shown to users as labels such as "S1-14" (coach 1, seat 14).
+ * Occupancy is tracked per segment between consecutive entries of Train.stations, so a range
+ * [fromStop, toStop) covers the segments from the boarding stop up to the alighting stop.
+ */
+public interface SeatInventory {
+
+    /**
+     * Find the lowest-numbered seat in a coach that is free over a stop range
+     * @param train The train
+     * @param date The date of journey
+     * @param coach The coach index
+     * @param fromStop Index of the boarding station in Train.stations
+     * @param toStop Index of the alighting station in Train.stations
+     * @return The seat index, or -1 if no seat is free over the whole range
+     */
+    int findFreeSeat(Train train, LocalDate date, int coach, int fromStop, int toStop);
+
+    /**
+     * Atomically find and reserve the first seat, coach by coach, that is free over a stop range.
+     * Concurrent callers for the same departure never get the same seat.
+     * @param train The train
+     * @param date The date of journey
+     * @param fromStop Index of the boarding station
+     * @param toStop Index of the alighting station
+     * @return {coach, seat} of the reserved seat, or null if the train is full over the range
+     */
+    int[] allocateSeat(Train train, LocalDate date, int fromStop, int toStop);
+
+    /**
+     * Atomically reserve seats for a group travelling together over a stop range: all of them
+     * or none. Adjacent seats in one coach are preferred, then any seats in one coach, then
+     * seats spread over several coaches.
+     * @param train The train
+     * @param date The date of journey
+     * @param fromStop Index of the boarding station
+     * @param toStop Index of the alighting station
+     * @param count Number of seats, at least 1
+     * @return {coach, seat} of each reserved seat, or null if fewer than count seats are free over the range
+     */
+    int[][] allocateSeats(Train train, LocalDate date, int fromStop, int toStop, int count);
+
+    /**
+     * Count seats in a coach that are free over a stop range
+     * @param train The train
+     * @param date The date of journey
+     * @param coach The coach index
+     * @param fromStop Index of the boarding station
+     * @param toStop Index of the alighting station
+     * @return Number of free seats
+     */
+    int countFreeSeats(Train train, LocalDate date, int coach, int fromStop, int toStop);
+
+    /**
+     * Count seats across the whole train that are free over a stop range
+     * @param train The train
+     * @param date The date of journey
+     * @param fromStop Index of the boarding station
+     * @param toStop Index of the alighting station
+     * @return Number of free seats
+     */
+    int countFreeSeats(Train train, LocalDate date, int fromStop, int toStop);
+
+    /**
+     * Check whether a single seat is free over a stop range
+     * @param train The train
+     * @param date The date of journey
+     * @param coach The coach index
+     * @param seat The seat index
+     * @param fromStop Index of the boarding station
+     * @param toStop Index of the alighting station
+     * @return true if the seat is sellable and not booked on any segment of the range
+     */
+    boolean isSeatFree(Train train, LocalDate date, int coach, int seat, int fromStop, int toStop);
+
+    /**
+     * Reserve a seat over a stop range
+     * @param train The train
+     * @param date The date of journey
+     * @param coach The coach index
+     * @param seat The seat index
+     * @param fromStop Index of the boarding station
+     * @param toStop Index of the alighting station
+     * @return true if the seat was free over the range and is now reserved, false otherwise
+     */
+    boolean reserveSeat(Train train, LocalDate date, int coach, int seat, int fromStop, int toStop);
+
+    /**
+     * Release a seat previously reserved over a stop range
+     * @param train The train
+     * @param date The date of journey
+     * @param coach The coach index
+     * @param seat The seat index
+     * @param fromStop Index of the boarding station
+     * @param toStop Index of the alighting station
+     * @return true if the seat was reserved over the range and is now free, false otherwise
+     */
+    boolean releaseSeat(Train train, LocalDate date, int coach, int seat, int fromStop, int toStop);
+
+    /**
+     * Get the seat map for a stop range of a departure
+     * @param train The train
+     * @param date The date of journey
+     * @param fromStop Index of the boarding station
+     * @param toStop Index of the alighting station
+     * @return One row per coach (1=available over the range, 0=booked or not sellable)
+     */
+    List<List<Integer>> getSeatMap(Train train, LocalDate date, int fromStop, int toStop);
+
+    // ==================== WHOLE-RUN CONVENIENCE METHODS ====================
+
+    default int findFreeSeat(Train train, LocalDate date, int coach) {
+        return findFreeSeat(train, date, coach, 0, segmentCount(train));
+    }
+
+    default int[] allocateSeat(Train train, LocalDate date) {
+        return allocateSeat(train, date, 0, segmentCount(train));
+    }
+
+    default int[][] allocateSeats(Train train, LocalDate date, int count) {
+        return allocateSeats(train, date, 0, segmentCount(train), count);
+    }
+
+    default int countFreeSeats(Train train, LocalDate date, int coach) {
+        return countFreeSeats(train, date, coach, 0, segmentCount(train));
+    }
+
+    default int countFreeSeats(Train train, LocalDate date) {
+        return countFreeSeats(train, date, 0, segmentCount(train));
+    }
+
+    default boolean isSeatFree(Train train, LocalDate date, int coach, int seat) {
+        return isSeatFree(train, date, coach, seat, 0, segmentCount(train));
+    }
+
+    default boolean reserveSeat(Train train, LocalDate date, int coach, int seat) {
+        return reserveSeat(train, date, coach, seat, 0, segmentCount(train));
+    }
+
+    default boolean releaseSeat(Train train, LocalDate date, int coach, int seat) {
+        return releaseSeat(train, date, coach, seat, 0, segmentCount(train));
+    }
+
+    default List<List<Integer>> getSeatMap(Train train, LocalDate date) {
+        return getSeatMap(train, date, 0, segmentCount(train));
+    }
+
+    /**
+     * Rebuild the sellable-seat layout after Train.seats changed
+     * @param train The train with its updated seat template
+     */
+    void refreshLayout(Train train);
+
+    // ==================== TICKET HELPERS ====================
+
+    /**
+     * Reserve the seat a stored ticket already holds, e.g. when rebuilding the inventory at startup
+     * @param train The ticket's train
+     * @param ticket The ticket, with a seat label and travel date
+     * @return true if the seat was free and is now reserved
+     */
+    default boolean reserveSeat(Train train, Ticket ticket) {
+        int[] position = parseSeatLabel(ticket.getSeatNumber());
+        LocalDate date = ticket.getTravelDate();
+        if (position == null || date == null) {
+            return false;
+        }
+        int[] range = ticketRange(train, ticket);
+        return reserveSeat(train, date, position[0], position[1], range[0], range[1]);
+    }
+
+    /**
+     * Give back the seat held by a ticket that is being cancelled, refunded, moved or deleted
+     * @param train The ticket's train
+     * @param ticket The ticket, with a seat label and travel date
+     * @return true if the seat was held and is now free
+     */
+    default boolean releaseSeat(Train train, Ticket ticket) {
+        int[] position = parseSeatLabel(ticket.getSeatNumber());
+        LocalDate date = ticket.getTravelDate();
+        if (position == null || date == null) {
+            return false;
+        }
+        int[] range = ticketRange(train, ticket);
+        return releaseSeat(train, date, position[0], position[1], range[0], range[1]);
+    }
+
+    /**
+     * Resolve a journey to [fromStop, toStop) on a train
+     * @param train The train
+     * @param source The boarding station
+     * @param destination The alighting station
+     * @return {fromStop, toStop}, or null if the train does not call at both stations in that order
+     */
+    static int[] stopRange(Train train, String source, String destination) {
+        int fromStop = stopIndex(train, source);
+        int toStop = stopIndex(train, destination);
+        if (fromStop < 0 || toStop <= fromStop) {
+            return null;
+        }
+        return new int[] {fromStop, toStop};
+    }
+
+    /**
+     * Stop range held by a ticket; tickets without a known boarding and alighting stop
+     * hold their seat for the whole run
+     * @param train The ticket's train
+     * @param ticket The ticket
+     * @return {fromStop, toStop}
+     */
+    static int[] ticketRange(Train train, Ticket ticket) {
+        int[] range = stopRange(train, ticket.getSource(), ticket.getDestination());
+        return range != null ? range : new int[] {0, segmentCount(train)};
+    }
+
+    /**
+     * Number of segments between consecutive stops; a train without a station list has one
+     * @param train The train
+     * @return Segment count, at least 1
+     */
+    static int segmentCount(Train train) {
+        List<String> stations = train.getStations();
+        return stations != null && stations.size() > 1 ? stations.size() - 1 : 1;
+    }
+
+    /**
+     * Find a station's position in a train's stop list, ignoring case.
+     * A train without a station list only knows its source (0) and destination (1).
+     * @param train The train
+     * @param station The station name
+     * @return The stop index, or -1 if the train does not call there
+     */
+    static int stopIndex(Train train, String station) {
+        if (station == null) {
+            return -1;
+        }
+        List<String> stations = train.getStations();
+        if (stations == null || stations.size() < 2) {
+            if (station.equalsIgnoreCase(train.getSource())) {
+                return 0;
+            }
+            return station.equalsIgnoreCase(train.getDestination()) ? 1 : -1;
+        }
+        for (int i = 0; i < stations.size(); i++) {
+            if (station.equalsIgnoreCase(stations.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Format a seat as a user-facing label
+     * @param coach The coach index
+     * @param seat The seat index
+     * @return Label such as "S1-14"
+     */
+    static String seatLabel(int coach, int seat) {
+        return "S" + (coach + 1) + "-" + (seat + 1);
+    }
+
+    /**
+     * Parse a label produced by seatLabel
+     * @param label The seat label
+     * @return {coach, seat}, or null if the label is not in that format
+     */
+    static int[] parseSeatLabel(String label) {
+        if (label == null || !label.startsWith("S")) {
+            return null;
+        }
+        int dash = label.indexOf('-');
+        if (dash < 2) {
+            return null;
+        }
+        try {
+            int coach = Integer.parseInt(label.substring(1, dash)) - 1;
+            int seat = Integer.parseInt(label.substring(dash + 1)) - 1;
+            return coach >= 0 && seat >= 0 ? new int[] {coach, seat} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import ticket.booking.entities.Ticket;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service interface for managing ticket operations including CRUD operations,
@@ -75,8 +76,8 @@ public interface TicketService {
     /**
      * Update ticket status
      * @param ticketId The ID of the ticket
-     * @param status The new status (CONFIRMED, CANCELLED, PENDING, etc.)
-     * @return true if successful, false otherwise
+     * @param status The new status, a TicketStatus name (CONFIRMED, PAID, CANCELLED, REFUNDED, COMPLETED)
+     * @return true if successful, false if the ticket is missing or the transition is not allowed
      */
     boolean updateTicketStatus(String ticketId, String status);
     
@@ -282,4 +283,11 @@ public interface TicketService {
      * @return List of ticket comments
      */
     List<String> getTicketComments(String ticketId);
+
+    /**
+     * Changes are applied in memory and written to disk in the background; this completes
+     * once every change made so far has been synced
+     * @return Future completing when all earlier writes are durable
+     */
+    CompletableFuture<Void> whenDurable();
 } 
\ No newline at end of file
@@ -59,6 +59,17 @@ public interface TrainService {
      */
     List<Train> searchTrains(String source, String destination, LocalDate date);
     
+    /**
+     * Search for journeys with one change of train, for when no train runs directly
+     * @param source The departure station
+     * @param destination The arrival station
+     * @param date The date of travel
+     * @return One map per journey with firstTrain, secondTrain, transferStation, firstLegDate,
+     *         secondLegDate, arrivalAtTransfer, departureFromTransfer, connectionMinutes and
+     *         arrivalTime, ordered by arrival at the destination
+     */
+    List<Map<String, Object>> searchConnections(String source, String destination, LocalDate date);
+    
     /**
      * Get the schedule for a specific train
      * @param trainId The ID of the train
@@ -75,6 +86,16 @@ public interface TrainService {
      */
     int getAvailableSeats(String trainId, LocalDate date, String classType);
     
+    /**
+     * Get the number of seats free over part of a train's run
+     * @param trainId The ID of the train
+     * @param date The date of travel
+     * @param source The boarding station
+     * @param destination The alighting station
+     * @return Number of seats free on every segment between the two stations
+     */
+    int getAvailableSeats(String trainId, LocalDate date, String source, String destination);
+    
     /**
      * Get booked seats for a train on a specific date
      * @param trainId The ID of the train
@@ -116,6 +137,16 @@ public interface TrainService {
      */
     List<List<Integer>> getSeatMap(String trainId, LocalDate journeyDate);
     
+    /**
+     * Get the seat map for part of a train's run
+     * @param trainId The ID of the train
+     * @param journeyDate The date of journey
+     * @param source The boarding station
+     * @param destination The alighting station
+     * @return 2D array representing seat map (1=available between the two stations, 0=booked)
+     */
+    List<List<Integer>> getSeatMap(String trainId, LocalDate journeyDate, String source, String destination);
+    
     // ==================== ADDITIONAL UTILITY METHODS ====================
     
     /**
@@ -5,6 +5,7 @@ import ticket.booking.entities.Ticket;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service interface for managing user operations including authentication,
@@ -29,6 +30,19 @@ public interface UserService {
      */
     User loginUser(String username, String password);
     
+    /**
+     * Authenticate a user and start a session, for callers that hand the session token out.
+     * Unlike loginUser, an overloaded password check is reported rather than treated as a
+     * failed login.
+     * @param username The username or email
+     * @param password The password
+     * @return The new session's details as in getUserSession, including its "token",
+     *         or null if authentication fails
+     * @throws ticket.booking.utils.PasswordHasher.OverloadedException If the password could
+     *         not be checked because the hashing pool is overloaded
+     */
+    Map<String, Object> startSession(String username, String password);
+    
     /**
      * Logout a user from the system
      * @param userId The ID of the user to logout
@@ -57,6 +71,21 @@ public interface UserService {
     Ticket bookTicket(String userId, String trainId, LocalDate journeyDate, 
                      String seatType, Map<String, Object> passengerDetails);
     
+    /**
+     * Book seats for a group travelling together, all or nothing. Adjacent seats in one
+     * coach are preferred. The group's tickets are stored with one write and then added to
+     * the user with a second.
+     * @param userId The ID of the user making the booking
+     * @param trainId The ID of the train
+     * @param journeyDate The date of journey
+     * @param passengers One map of passenger details per seat; every passenger rides the
+     *                   same source and destination, defaulting to the whole run, and a
+     *                   "name" is stored on that passenger's ticket
+     * @return One ticket per passenger in the same order, or an empty list if booking fails
+     */
+    List<Ticket> bookTickets(String userId, String trainId, LocalDate journeyDate,
+                             List<Map<String, Object>> passengers);
+    
     /**
      * Cancel a ticket
      * @param ticketId The ID of the ticket to cancel
@@ -201,9 +230,10 @@ public interface UserService {
     boolean changePassword(String userId, String oldPassword, String newPassword);
     
     /**
-     * Get user session information
+     * Get user session information, including the session token, from the in-memory
+     * session store
      * @param userId The ID of the user
-     * @return Map containing session information
+     * @return Map containing session information, empty if the user has no live session
      */
     Map<String, Object> getUserSession(String userId);
     
@@ -213,6 +243,14 @@ public interface UserService {
      * @return true if successful, false otherwise
      */
     boolean invalidateUserSession(String userId);
+    
+    /**
+     * Resolve a session token, as returned under "token" by getUserSession, to its user.
+     * Counts as use of the session, so its idle timeout starts again.
+     * @param token The session token
+     * @return The user's ID, or null if the token is unknown or the session has expired
+     */
+    String getUserIdForToken(String token);
 
     /**
      * Update user information
@@ -221,4 +259,11 @@ public interface UserService {
      * @return true if successful, false otherwise
      */
     boolean updateUser(String userId, User updatedUser);
+
+    /**
+     * Changes are applied in memory and written to disk in the background; this completes
+     * once every change made so far has been synced
+     * @return Future completing when all earlier writes are durable
+     */
+    CompletableFuture<Void> whenDurable();
 } 
\ No newline at end of file
@@ -0,0 +1,227 @@
+package ticket.booking.localDb;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Crash-safe replacement of the store's snapshot files.
+ * A new version is written to name.tmp and fsynced, the current file is renamed to name.bak,
+ * and the temp file is renamed into place with an atomic move, then the directory is synced.
+ * Each file gets a name.crc sidecar holding its CRC32C and length, moved along with it.
+ * A crash at any point leaves either the new file or the previous one (as .bak) intact.
+ * On load a file whose checksum does not match is passed over for its backup, and one
+ * that fails to parse falls back the same way, so the store restarts from the last good
+ * snapshot instead of coming up empty.
+ */
+public final class AtomicFiles {
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String BACKUP_SUFFIX = ".bak";
+    private static final String CHECKSUM_SUFFIX = ".crc";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Writes a file's content to the given stream; the stream must not be closed by the writer,
+     * though closing it is harmless
+     */
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Parses one candidate file
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load(File file) throws IOException;
+    }
+
+    /**
+     * Atomically replace the file at path with new content, keeping the previous version as a backup
+     * @param path File to replace, e.g. users.json
+     * @param content Writes the new content
+     */
+    public static void write(String path, Content content) throws IOException {
+        Path target = Paths.get(path);
+        Path temp = sibling(target, TEMP_SUFFIX);
+        CRC32C crc = new CRC32C();
+        long length;
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CheckedOutputStream out = new CheckedOutputStream(new BufferedOutputStream(file, BUFFER_SIZE), crc);
+            content.writeTo(new UnclosableOutputStream(out));
+            out.flush();
+            file.getChannel().force(true);
+            length = file.getChannel().size();
+        }
+        Path tempChecksum = sibling(target, TEMP_SUFFIX + CHECKSUM_SUFFIX);
+        writeSynced(tempChecksum, Long.toHexString(crc.getValue()) + " " + length + "\n");
+
+        Path backup = sibling(target, BACKUP_SUFFIX);
+        if (Files.exists(target)) {
+            move(target, backup);
+            Path checksum = sibling(target, CHECKSUM_SUFFIX);
+            if (Files.exists(checksum)) {
+                move(checksum, sibling(backup, CHECKSUM_SUFFIX));
+            } else {
+                Files.deleteIfExists(sibling(backup, CHECKSUM_SUFFIX));
+            }
+        }
+        move(temp, target);
+        move(tempChecksum, sibling(target, CHECKSUM_SUFFIX));
+        syncDirectory(target);
+    }
+
+    /**
+     * Load a file written by write(), falling back to its backup if the file is missing,
+     * fails its checksum or fails to parse. A file with no checksum sidecar (for example one
+     * edited by hand) is loaded as is, and one that fails its checksum is still tried when
+     * no backup could be loaded.
+     * @param fallbacks Told why each copy passed over was skipped, once another copy has loaded
+     * @return The loaded value, or null if neither the file nor a backup exists
+     * @throws IOException If copies exist but none of them could be loaded; why each one
+     *                     failed is attached as a suppressed exception
+     */
+    public static <T> T read(String path, Loader<T> loader, Consumer<IOException> fallbacks) throws IOException {
+        Path target = Paths.get(path);
+        Path backup = sibling(target, BACKUP_SUFFIX);
+        List<IOException> skipped = new ArrayList<>();
+        boolean found = false;
+        Path unverified = null;
+        for (Path candidate : new Path[] {target, backup}) {
+            if (!Files.exists(candidate)) {
+                continue;
+            }
+            found = true;
+            if (!verify(candidate)) {
+                skipped.add(new IOException("Checksum mismatch in " + candidate));
+                if (unverified == null) {
+                    unverified = candidate;
+                }
+                continue;
+            }
+            try {
+                return loaded(loader.load(candidate.toFile()), skipped, fallbacks);
+            } catch (IOException | RuntimeException e) {
+                skipped.add(new IOException("Could not load " + candidate, e));
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        if (unverified != null) {
+            try {
+                return loaded(loader.load(unverified.toFile()), skipped, fallbacks);
+            } catch (IOException | RuntimeException e) {
+                skipped.add(new IOException("Could not load " + unverified, e));
+            }
+        }
+        IOException failure = new IOException("Neither " + target + " nor its backup could be loaded");
+        skipped.forEach(failure::addSuppressed);
+        throw failure;
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static <T> T loaded(T value, List<IOException> skipped, Consumer<IOException> fallbacks) {
+        skipped.forEach(fallbacks);
+        return value;
+    }
+
+    private static Path sibling(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    /**
+     * Whether the file matches its checksum sidecar; true if it has none
+     */
+    private static boolean verify(Path file) throws IOException {
+        Path checksum = sibling(file, CHECKSUM_SUFFIX);
+        if (!Files.exists(checksum)) {
+            return true;
+        }
+        String[] parts = new String(Files.readAllBytes(checksum), StandardCharsets.UTF_8).trim().split(" ");
+        if (parts.length != 2) {
+            return false;
+        }
+        try {
+            long expectedCrc = Long.parseLong(parts[0], 16);
+            long expectedLength = Long.parseLong(parts[1]);
+            if (Files.size(file) != expectedLength) {
+                return false;
+            }
+            CRC32C crc = new CRC32C();
+            try (InputStream in = new CheckedInputStream(Files.newInputStream(file), crc)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                while (in.read(buffer) >= 0) {
+                    // Reading updates the checksum
+                }
+            }
+            return crc.getValue() == expectedCrc;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static void writeSynced(Path file, String text) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Make the renames themselves durable; not every platform can open a directory, which is
+     * then left to the file system
+     */
+    private static void syncDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported here
+        }
+    }
+
+    /**
+     * Keeps Jackson's writeValue from closing the file before it has been synced
+     */
+    private static final class UnclosableOutputStream extends FilterOutputStream {
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
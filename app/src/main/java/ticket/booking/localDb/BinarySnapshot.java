@@ -0,0 +1,469 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Binary alternative to the trains.json, users.json and tickets.json snapshots.
+ * A snapshot file (trains.bin, users.bin, tickets.bin next to the JSON file) is laid out as:
+ * <pre>
+ *   int magic, int format version, int record kind
+ *   int string count, then per string: int byte length, UTF-8 bytes
+ *   int record count, then per record: int byte length, record body
+ * </pre>
+ * Every string in a record is an int index into the string table (-1 for null), so a station
+ * or status repeated across a million records is stored and loaded once. Travel dates are
+ * epoch-day ints, ticket prices long counts of minor units and each coach's seat row is a bitset of sellable seats. Readers skip to the
+ * end of each record by its length, so later versions can append fields without breaking
+ * older files. Files are read through a read-only memory-mapped FileChannel.
+ * The store loads whichever of the JSON and binary snapshots is newer; run with
+ * -Dbooking.snapshot=binary to have compaction write the binary one.
+ */
+public final class BinarySnapshot {
+    public static final int FORMAT_VERSION = 3;
+    // Version 1 stored ticket prices as a double count of major units
+    private static final int DOUBLE_PRICE_VERSION = 1;
+    // Versions before 3 end a ticket at its price text, without a passenger name
+    private static final int NO_PASSENGER_VERSION = 2;
+    private static final int MAGIC = 0x5442534E; // "TBSN"
+    private static final int KIND_TRAINS = 1;
+    private static final int KIND_USERS = 2;
+    private static final int KIND_TICKETS = 3;
+    private static final int NULL = -1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final boolean ENABLED = "binary".equalsIgnoreCase(System.getProperty("booking.snapshot"));
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Whether snapshots should be written in the binary format
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @param jsonPath Path of a JSON snapshot such as users.json
+     * @return The path of its binary counterpart, e.g. users.bin
+     */
+    public static String binaryPath(String jsonPath) {
+        return jsonPath.endsWith(".json") ? jsonPath.substring(0, jsonPath.length() - 5) + ".bin" : jsonPath + ".bin";
+    }
+
+    /**
+     * Whether the binary counterpart of a JSON snapshot exists and is at least as new,
+     * meaning it should be loaded in preference to the JSON file
+     */
+    public static boolean isPreferred(String jsonPath) {
+        File binary = new File(binaryPath(jsonPath));
+        if (!binary.isFile() || binary.length() == 0) {
+            return false;
+        }
+        File json = new File(jsonPath);
+        return !json.exists() || binary.lastModified() >= json.lastModified();
+    }
+
+    // ==================== TRAINS ====================
+
+    public static void writeTrains(String path, Collection<Train> trains) throws IOException {
+        Encoder encoder = new Encoder();
+        for (Train train : trains) {
+            DataOutputStream out = encoder.beginRecord();
+            encoder.string(train.getTrainId());
+            encoder.string(train.getTrainNumber());
+            encoder.string(train.getTrainName());
+            encoder.string(train.getSource());
+            encoder.string(train.getDestination());
+            encoder.string(train.getDepartureTime());
+            encoder.string(train.getArrivalTime());
+            writeSeats(out, train.getSeats());
+            encoder.strings(train.getStations());
+            Map<String, String> times = train.getStationArrivalTimes();
+            out.writeInt(times != null ? times.size() : NULL);
+            if (times != null) {
+                for (Map.Entry<String, String> entry : times.entrySet()) {
+                    encoder.string(entry.getKey());
+                    encoder.string(entry.getValue());
+                }
+            }
+            encoder.string(train.getTrainType());
+            out.writeInt(train.getTotalSeats());
+            out.writeInt(train.getAvailableSeats());
+            out.writeDouble(train.getBasePrice());
+            encoder.strings(train.getOperatingDays());
+            encoder.endRecord();
+        }
+        encoder.writeTo(path, KIND_TRAINS);
+    }
+
+    public static List<Train> readTrains(String path) throws IOException {
+        Decoder decoder = Decoder.open(path, KIND_TRAINS);
+        List<Train> trains = new ArrayList<>(decoder.records);
+        while (decoder.nextRecord()) {
+            ByteBuffer in = decoder.buffer;
+            Train train = new Train();
+            train.setTrainId(decoder.string());
+            train.setTrainNumber(decoder.string());
+            train.setTrainName(decoder.string());
+            train.setSource(decoder.string());
+            train.setDestination(decoder.string());
+            train.setDepartureTime(decoder.string());
+            train.setArrivalTime(decoder.string());
+            train.setSeats(readSeats(in));
+            train.setStations(decoder.strings());
+            int times = in.getInt();
+            if (times != NULL) {
+                Map<String, String> arrivalTimes = new LinkedHashMap<>();
+                for (int i = 0; i < times; i++) {
+                    arrivalTimes.put(decoder.string(), decoder.string());
+                }
+                train.setStationArrivalTimes(arrivalTimes);
+            }
+            train.setTrainType(decoder.string());
+            train.setTotalSeats(in.getInt());
+            train.setAvailableSeats(in.getInt());
+            train.setBasePrice(in.getDouble());
+            train.setOperatingDays(decoder.strings());
+            trains.add(train);
+            decoder.endRecord();
+        }
+        return trains;
+    }
+
+    // ==================== USERS ====================
+
+    public static void writeUsers(String path, Collection<User> users) throws IOException {
+        Encoder encoder = new Encoder();
+        for (User user : users) {
+            encoder.beginRecord();
+            encoder.string(user.getUserId());
+            encoder.string(user.getName());
+            encoder.string(user.getEmail());
+            encoder.string(user.getPassword());
+            encoder.string(user.getHashedPassword());
+            encoder.string(user.getPhoneNumber());
+            encoder.string(user.getRegistrationDate());
+            encoder.strings(user.getBookedTicketIds());
+            encoder.endRecord();
+        }
+        encoder.writeTo(path, KIND_USERS);
+    }
+
+    public static List<User> readUsers(String path) throws IOException {
+        Decoder decoder = Decoder.open(path, KIND_USERS);
+        List<User> users = new ArrayList<>(decoder.records);
+        while (decoder.nextRecord()) {
+            User user = new User();
+            user.setUserId(decoder.string());
+            user.setName(decoder.string());
+            user.setEmail(decoder.string());
+            user.setPassword(decoder.string());
+            user.setHashedPassword(decoder.string());
+            user.setPhoneNumber(decoder.string());
+            user.setRegistrationDate(decoder.string());
+            user.setBookedTicketIds(decoder.strings());
+            users.add(user);
+            decoder.endRecord();
+        }
+        return users;
+    }
+
+    // ==================== TICKETS ====================
+
+    public static void writeTickets(String path, Collection<Ticket> tickets) throws IOException {
+        Encoder encoder = new Encoder();
+        for (Ticket ticket : tickets) {
+            DataOutputStream out = encoder.beginRecord();
+            encoder.string(ticket.getTicketId());
+            encoder.string(ticket.getUserId());
+            encoder.string(ticket.getSource());
+            encoder.string(ticket.getDestination());
+            if (ticket.hasTravelDate()) {
+                out.writeInt(ticket.getTravelDay());
+            } else {
+                encoder.date(ticket.getDateOfTravel());
+            }
+            encoder.string(ticket.getSeatNumber());
+            encoder.string(ticket.getTicketStatus());
+            out.writeBoolean(ticket.hasPrice());
+            out.writeLong(ticket.getPriceInMinorUnits());
+            encoder.string(ticket.getPaymentMethod());
+            encoder.string(ticket.getBookingDate());
+            encoder.string(ticket.getTrainId());
+            encoder.string(ticket.getPriceText());
+            encoder.string(ticket.getPassengerName());
+            encoder.endRecord();
+        }
+        encoder.writeTo(path, KIND_TICKETS);
+    }
+
+    public static List<Ticket> readTickets(String path) throws IOException {
+        Decoder decoder = Decoder.open(path, KIND_TICKETS);
+        List<Ticket> tickets = new ArrayList<>(decoder.records);
+        while (decoder.nextRecord()) {
+            ByteBuffer in = decoder.buffer;
+            Ticket ticket = new Ticket();
+            ticket.setTicketId(decoder.string());
+            ticket.setUserId(decoder.string());
+            ticket.setSource(decoder.string());
+            ticket.setDestination(decoder.string());
+            int travelDay = in.getInt();
+            if (travelDay != NO_DATE) {
+                ticket.setTravelDay(travelDay);
+            } else {
+                ticket.setDateOfTravel(decoder.string());
+            }
+            ticket.setSeatNumber(decoder.string());
+            ticket.setTicketStatus(decoder.string());
+            boolean hasPrice = in.get() != 0;
+            long priceMinor = decoder.version == DOUBLE_PRICE_VERSION ? Math.round(in.getDouble() * 100) : in.getLong();
+            if (hasPrice) {
+                ticket.setPriceInMinorUnits(priceMinor);
+            }
+            ticket.setPaymentMethod(decoder.string());
+            ticket.setBookingDate(decoder.string());
+            ticket.setTrainId(decoder.string());
+            if (decoder.version > DOUBLE_PRICE_VERSION) {
+                String priceText = decoder.string();
+                if (!hasPrice) {
+                    ticket.setPriceText(priceText);
+                }
+            }
+            if (decoder.version > NO_PASSENGER_VERSION) {
+                ticket.setPassengerName(decoder.string());
+            }
+            tickets.add(ticket);
+            decoder.endRecord();
+        }
+        return tickets;
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    /**
+     * Coach count (-1 for null), then per coach its width and a bitset of the seats set to 1
+     */
+    private static void writeSeats(DataOutputStream out, List<List<Integer>> seats) throws IOException {
+        out.writeInt(seats != null ? seats.size() : NULL);
+        if (seats == null) {
+            return;
+        }
+        for (List<Integer> row : seats) {
+            int width = row != null ? row.size() : NULL;
+            out.writeInt(width);
+            for (int word = 0; word < (width + 63) >>> 6; word++) {
+                long bits = 0;
+                for (int bit = 0; bit < 64 && (word << 6) + bit < width; bit++) {
+                    Integer value = row.get((word << 6) + bit);
+                    if (value != null && value == 1) {
+                        bits |= 1L << bit;
+                    }
+                }
+                out.writeLong(bits);
+            }
+        }
+    }
+
+    private static List<List<Integer>> readSeats(ByteBuffer in) {
+        int coaches = in.getInt();
+        if (coaches == NULL) {
+            return null;
+        }
+        List<List<Integer>> seats = new ArrayList<>(coaches);
+        for (int coach = 0; coach < coaches; coach++) {
+            int width = in.getInt();
+            if (width == NULL) {
+                seats.add(null);
+                continue;
+            }
+            List<Integer> row = new ArrayList<>(width);
+            long bits = 0;
+            for (int seat = 0; seat < width; seat++) {
+                if ((seat & 63) == 0) {
+                    bits = in.getLong();
+                }
+                row.add((int) (bits >>> (seat & 63)) & 1);
+            }
+            seats.add(row);
+        }
+        return seats;
+    }
+
+    /**
+     * Collects records into memory while building the string table, since the table
+     * has to precede the records that refer to it
+     */
+    private static final class Encoder {
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final DataOutputStream bodyOut = new DataOutputStream(body);
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        private final DataOutputStream recordOut = new DataOutputStream(record);
+        private int records;
+
+        DataOutputStream beginRecord() {
+            record.reset();
+            return recordOut;
+        }
+
+        void endRecord() throws IOException {
+            bodyOut.writeInt(record.size());
+            record.writeTo(bodyOut);
+            records++;
+        }
+
+        void string(String value) throws IOException {
+            if (value == null) {
+                recordOut.writeInt(NULL);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.put(value, index);
+            }
+            recordOut.writeInt(index);
+        }
+
+        void strings(List<String> values) throws IOException {
+            recordOut.writeInt(values != null ? values.size() : NULL);
+            if (values != null) {
+                for (String value : values) {
+                    string(value);
+                }
+            }
+        }
+
+        /**
+         * Epoch day, or NO_DATE followed by the raw string when it is not an ISO date
+         */
+        void date(String value) throws IOException {
+            if (value != null) {
+                try {
+                    recordOut.writeInt((int) LocalDate.parse(value).toEpochDay());
+                    return;
+                } catch (DateTimeParseException e) {
+                    // Kept verbatim below
+                }
+            }
+            recordOut.writeInt(NO_DATE);
+            string(value);
+        }
+
+        /**
+         * Replace the file through AtomicFiles, so a crash mid-write leaves the previous snapshot
+         */
+        void writeTo(String path, int kind) throws IOException {
+            AtomicFiles.write(path, stream -> {
+                DataOutputStream out = new DataOutputStream(stream);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(kind);
+                out.writeInt(strings.size());
+                for (String value : strings.keySet()) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                out.writeInt(records);
+                body.writeTo(out);
+                out.flush();
+            });
+        }
+    }
+
+    private static final class Decoder {
+        final MappedByteBuffer buffer;
+        final int version;
+        final String[] strings;
+        final int records;
+        private int remaining;
+        private int recordEnd;
+
+        private Decoder(MappedByteBuffer buffer, String path, int kind) throws IOException {
+            this.buffer = buffer;
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a booking snapshot: " + path);
+            }
+            this.version = buffer.getInt();
+            if (version > FORMAT_VERSION) {
+                throw new IOException("Snapshot format version " + version + " is newer than supported "
+                    + FORMAT_VERSION + ": " + path);
+            }
+            int actualKind = buffer.getInt();
+            if (actualKind != kind) {
+                throw new IOException("Snapshot " + path + " holds record kind " + actualKind + ", expected " + kind);
+            }
+            this.strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            this.records = buffer.getInt();
+            this.remaining = records;
+        }
+
+        static Decoder open(String path, int kind) throws IOException {
+            Path file = Paths.get(path);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot too large to map: " + path);
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return new Decoder(buffer, path, kind);
+            } catch (NoSuchFileException e) {
+                throw new FileNotFoundException(path);
+            }
+        }
+
+        boolean nextRecord() {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            int length = buffer.getInt();
+            recordEnd = buffer.position() + length;
+            return true;
+        }
+
+        /**
+         * Skip any fields appended by a later format version
+         */
+        void endRecord() {
+            buffer.position(recordEnd);
+        }
+
+        String string() {
+            int index = buffer.getInt();
+            return index == NULL ? null : strings[index];
+        }
+
+        List<String> strings() {
+            int count = buffer.getInt();
+            if (count == NULL) {
+                return null;
+            }
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(string());
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ticket.booking.localDb;
+
+import java.io.File;
+
+/**
+ * Location of the JSON data files. Defaults to app/src/main/resources relative to the
+ * working directory; run with -Dbooking.data.dir=/some/dir to point the application (or a
+ * benchmark) at another dataset. The property is read once, when the first store is opened.
+ */
+public final class DataDirectory {
+    public static final String PROPERTY = "booking.data.dir";
+    private static final String DEFAULT_PATH = "app/src/main/resources";
+    private static final String PATH = System.getProperty(PROPERTY, DEFAULT_PATH);
+
+    private DataDirectory() {
+    }
+
+    /**
+     * @param fileName A file name such as "users.json"
+     * @return The path of that file inside the data directory
+     */
+    public static String file(String fileName) {
+        return PATH + File.separator + fileName;
+    }
+}
@@ -0,0 +1,332 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Train;
+import ticket.booking.interfaces.SeatInventory;
+
+import com.google.common.util.concurrent.Striped;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * SeatInventory holding every coach as a long[] bitset, one bit per seat.
+ * A train's sellable seats are derived once from its Train.seats template. Each departure
+ * (trainId, date) gets booked bitsets per segment between consecutive stops, created on first
+ * touch, so a seat sold New York→New Haven stays free for New Haven→Boston.
+ * A seat is free over a stop range when its bit is clear in every segment of the range:
+ * free = sellable & ~(booked[from] | ... | booked[to - 1]), computed a word at a time, so a
+ * 64-seat coach is one numberOfTrailingZeros or bitCount per segment.
+ * Departure state is guarded by lock striping on the (trainId, date) key, so bookings for
+ * different departures run in parallel while find-and-reserve on one departure is atomic.
+ */
+public class InMemorySeatInventory implements SeatInventory {
+    private static final int LOCK_STRIPES = 64;
+
+    private final Map<String, SeatLayout> layouts = new ConcurrentHashMap<>();
+    private final Map<String, long[][][]> departures = new ConcurrentHashMap<>();
+    private final Striped<Lock> departureLocks = Striped.lock(LOCK_STRIPES);
+
+    @Override
+    public int findFreeSeat(Train train, LocalDate date, int coach, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (coach < 0 || coach >= layout.widths.length || !layout.containsRange(fromStop, toStop)) {
+            return -1;
+        }
+        String key = departureKey(train, date);
+        Lock lock = departureLocks.get(key);
+        lock.lock();
+        try {
+            long[][][] booked = departure(layout, key);
+            long[] sellable = layout.sellable[coach];
+            for (int word = 0; word < sellable.length; word++) {
+                long free = sellable[word] & ~occupied(booked, coach, word, fromStop, toStop);
+                if (free != 0) {
+                    return (word << 6) + Long.numberOfTrailingZeros(free);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return -1;
+    }
+
+    @Override
+    public int[] allocateSeat(Train train, LocalDate date, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (!layout.containsRange(fromStop, toStop)) {
+            return null;
+        }
+        String key = departureKey(train, date);
+        Lock lock = departureLocks.get(key);
+        lock.lock();
+        try {
+            long[][][] booked = departure(layout, key);
+            for (int coach = 0; coach < layout.widths.length; coach++) {
+                long[] sellable = layout.sellable[coach];
+                for (int word = 0; word < sellable.length; word++) {
+                    long free = sellable[word] & ~occupied(booked, coach, word, fromStop, toStop);
+                    if (free != 0) {
+                        long mask = Long.lowestOneBit(free);
+                        for (int segment = fromStop; segment < toStop; segment++) {
+                            booked[segment][coach][word] |= mask;
+                        }
+                        return new int[] {coach, (word << 6) + Long.numberOfTrailingZeros(mask)};
+                    }
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int[][] allocateSeats(Train train, LocalDate date, int fromStop, int toStop, int count) {
+        SeatLayout layout = layout(train);
+        if (count < 1 || !layout.containsRange(fromStop, toStop)) {
+            return null;
+        }
+        String key = departureKey(train, date);
+        Lock lock = departureLocks.get(key);
+        lock.lock();
+        try {
+            long[][][] booked = departure(layout, key);
+            long[][] free = new long[layout.widths.length][layout.words];
+            for (int coach = 0; coach < free.length; coach++) {
+                for (int word = 0; word < layout.words; word++) {
+                    free[coach][word] = layout.sellable[coach][word] & ~occupied(booked, coach, word, fromStop, toStop);
+                }
+            }
+            int[][] group = layout.chooseGroup(free, count);
+            if (group == null) {
+                return null;
+            }
+            for (int[] seat : group) {
+                for (int segment = fromStop; segment < toStop; segment++) {
+                    booked[segment][seat[0]][seat[1] >>> 6] |= 1L << seat[1];
+                }
+            }
+            return group;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int countFreeSeats(Train train, LocalDate date, int coach, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (coach < 0 || coach >= layout.widths.length || !layout.containsRange(fromStop, toStop)) {
+            return 0;
+        }
+        String key = departureKey(train, date);
+        Lock lock = departureLocks.get(key);
+        lock.lock();
+        try {
+            long[][][] booked = departure(layout, key);
+            return countFree(layout.sellable[coach], booked, coach, fromStop, toStop);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int countFreeSeats(Train train, LocalDate date, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (!layout.containsRange(fromStop, toStop)) {
+            return 0;
+        }
+        String key = departureKey(train, date);
+        Lock lock = departureLocks.get(key);
+        int count = 0;
+        lock.lock();
+        try {
+            long[][][] booked = departure(layout, key);
+            for (int coach = 0; coach < layout.widths.length; coach++) {
+                count += countFree(layout.sellable[coach], booked, coach, fromStop, toStop);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isSeatFree(Train train, LocalDate date, int coach, int seat, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (!layout.contains(coach, seat) || !layout.containsRange(fromStop, toStop)) {
+            return false;
+        }
+        String key = departureKey(train, date);
+        Lock lock = departureLocks.get(key);
+        lock.lock();
+        try {
+            long[][][] booked = departure(layout, key);
+            return isFree(layout, booked, coach, seat, fromStop, toStop);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean reserveSeat(Train train, LocalDate date, int coach, int seat, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (!layout.contains(coach, seat) || !layout.containsRange(fromStop, toStop)) {
+            return false;
+        }
+        String key = departureKey(train, date);
+        Lock lock = departureLocks.get(key);
+        long mask = 1L << seat;
+        lock.lock();
+        try {
+            long[][][] booked = departure(layout, key);
+            if (!isFree(layout, booked, coach, seat, fromStop, toStop)) {
+                return false;
+            }
+            for (int segment = fromStop; segment < toStop; segment++) {
+                booked[segment][coach][seat >>> 6] |= mask;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean releaseSeat(Train train, LocalDate date, int coach, int seat, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (!layout.contains(coach, seat) || !layout.containsRange(fromStop, toStop)) {
+            return false;
+        }
+        String key = departureKey(train, date);
+        Lock lock = departureLocks.get(key);
+        long mask = 1L << seat;
+        lock.lock();
+        try {
+            long[][][] booked = departure(layout, key);
+            for (int segment = fromStop; segment < toStop; segment++) {
+                if ((booked[segment][coach][seat >>> 6] & mask) == 0) {
+                    return false; // Not held over the whole range
+                }
+            }
+            for (int segment = fromStop; segment < toStop; segment++) {
+                booked[segment][coach][seat >>> 6] &= ~mask;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<List<Integer>> getSeatMap(Train train, LocalDate date, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        List<List<Integer>> seatMap = new ArrayList<>(layout.widths.length);
+        if (!layout.containsRange(fromStop, toStop)) {
+            return seatMap;
+        }
+        String key = departureKey(train, date);
+        Lock lock = departureLocks.get(key);
+        lock.lock();
+        try {
+            long[][][] booked = departure(layout, key);
+            for (int coach = 0; coach < layout.widths.length; coach++) {
+                long[] sellable = layout.sellable[coach];
+                List<Integer> row = new ArrayList<>(layout.widths[coach]);
+                for (int word = 0; word < sellable.length; word++) {
+                    long free = sellable[word] & ~occupied(booked, coach, word, fromStop, toStop);
+                    int end = Math.min(64, layout.widths[coach] - (word << 6));
+                    for (int bit = 0; bit < end; bit++) {
+                        row.add((free & (1L << bit)) != 0 ? 1 : 0);
+                    }
+                }
+                seatMap.add(row);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return seatMap;
+    }
+
+    @Override
+    public void refreshLayout(Train train) {
+        layouts.put(train.getTrainId(), new SeatLayout(train));
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    /**
+     * Sellable-seat masks for a train, rebuilt whenever the train's seat template or station
+     * list is a different list from the one the cached layout was built from (e.g. after a catalog reload)
+     */
+    private SeatLayout layout(Train train) {
+        SeatLayout layout = layouts.get(train.getTrainId());
+        if (layout == null || !layout.isCurrentFor(train)) {
+            layout = new SeatLayout(train);
+            layouts.put(train.getTrainId(), layout);
+        }
+        return layout;
+    }
+
+    private static String departureKey(Train train, LocalDate date) {
+        return train.getTrainId() + '@' + date.toEpochDay();
+    }
+
+    /**
+     * Booked bitsets for one departure, indexed [segment][coach][word]; the caller holds the
+     * departure's lock. If the layout grew since the departure was created, existing bookings
+     * are copied into larger arrays.
+     */
+    private long[][][] departure(SeatLayout layout, String key) {
+        long[][][] booked = departures.get(key);
+        if (booked == null) {
+            booked = newBookedRows(layout);
+            departures.put(key, booked);
+        } else if (!fits(layout, booked)) {
+            long[][][] grown = newBookedRows(layout);
+            for (int segment = 0; segment < Math.min(booked.length, grown.length); segment++) {
+                for (int coach = 0; coach < Math.min(booked[segment].length, grown[segment].length); coach++) {
+                    long[] row = booked[segment][coach];
+                    System.arraycopy(row, 0, grown[segment][coach], 0, Math.min(row.length, layout.words));
+                }
+            }
+            booked = grown;
+            departures.put(key, booked);
+        }
+        return booked;
+    }
+
+    private static boolean fits(SeatLayout layout, long[][][] booked) {
+        if (booked.length < layout.segments || booked[0].length < layout.widths.length) {
+            return false;
+        }
+        return layout.widths.length == 0 || booked[0][0].length >= layout.words;
+    }
+
+    private static long[][][] newBookedRows(SeatLayout layout) {
+        return new long[layout.segments][layout.widths.length][layout.words];
+    }
+
+    private static long occupied(long[][][] booked, int coach, int word, int fromStop, int toStop) {
+        long occupied = 0;
+        for (int segment = fromStop; segment < toStop; segment++) {
+            occupied |= booked[segment][coach][word];
+        }
+        return occupied;
+    }
+
+    private static boolean isFree(SeatLayout layout, long[][][] booked, int coach, int seat, int fromStop, int toStop) {
+        int word = seat >>> 6;
+        long free = layout.sellable[coach][word] & ~occupied(booked, coach, word, fromStop, toStop);
+        return (free & (1L << seat)) != 0;
+    }
+
+    private static int countFree(long[] sellable, long[][][] booked, int coach, int fromStop, int toStop) {
+        int count = 0;
+        for (int word = 0; word < sellable.length; word++) {
+            count += Long.bitCount(sellable[word] & ~occupied(booked, coach, word, fromStop, toStop));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,514 @@
+package ticket.booking.localDb;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only write-ahead log sitting next to a JSON snapshot file.
+ * Each mutation is written as one compact JSON line ({"op":"PUT","id":...,"value":{...}}
+ * or {"op":"DEL","id":...}), so the cost of a write no longer depends on the size of the store.
+ * Appends are write-behind: the record is serialized on the caller's thread and queued, and a
+ * background writer flushes everything queued with one write and one fsync (group commit).
+ * The writer waits at most MAX_DELAY_NANOS after the oldest queued record, configurable with
+ * -Dbooking.journal.maxDelayMs, so a burst of bookings shares a single fsync. Each append
+ * returns a future that completes once its record is on disk, for callers that need durability.
+ * A write that fails is cut back off the file and its records go back to the head of the
+ * queue, and the writer retries with a growing delay, so a transient I/O error delays
+ * records the stores have already applied in memory instead of losing them.
+ * Records are encoded straight from the entity into a reused buffer and replayed by streaming
+ * each line into the entity, with no JsonNode tree in between.
+ * A journal holds an exclusive lock on a sidecar .lock file while it is open. The owning store
+ * compacts from its own in-memory view and then truncates the log, which would wipe records
+ * appended by anyone else, so a second journal on the same file, in this or another process,
+ * is refused.
+ * @param <T> The entity type stored in the value field
+ */
+public class Journal<T> {
+    public static final String PUT = "PUT";
+    public static final String DELETE = "DEL";
+
+    private static final long MAX_DELAY_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(Long.getLong("booking.journal.maxDelayMs", 10));
+    private static final int MAX_BATCH_RECORDS = 1024;
+    private static final long MIN_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long MAX_RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+    // Journals open in this JVM. Checked before locking, because closing any channel on a
+    // locked file releases this JVM's lock on it.
+    private static final Set<Path> OPEN = ConcurrentHashMap.newKeySet();
+
+    private final Path path;
+    private final ObjectReader valueReader;
+    private final ObjectWriter valueWriter;
+    // Guards the file; held by whoever is writing, syncing or truncating it
+    private final Object io = new Object();
+    private FileChannel channel;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    // Flushes what is still queued if the JVM exits without close(); removed by close()
+    private final Thread shutdownHook = new Thread(this::sync);
+    // Guarded by this
+    private final List<PendingRecord> pending = new ArrayList<>();
+    private CompletableFuture<Void> lastAppend = CompletableFuture.completedFuture(null);
+    private long oldestPendingAt;
+    private int recordCount;
+    private Thread writer;
+    private boolean closed;
+    // Guarded by this; 0 unless the last write failed
+    private long retryDelayNanos;
+    // Guarded by io; file length to cut back to before the next write, or -1
+    private long retryFrom = -1;
+    // Guarded by this; reset for every record
+    private final ByteArrayBuilder scratch = new ByteArrayBuilder();
+
+    /**
+     * Feeds replayed records to a loader
+     */
+    @FunctionalInterface
+    public interface RecordHandler<T> {
+        /**
+         * @param op PUT or DEL
+         * @param id ID of the entity the record is about
+         * @param value The entity's new state, or null for a DEL
+         */
+        void accept(String op, String id, T value);
+    }
+
+    /**
+     * Open the journal, taking its lock before touching the log
+     * @throws IllegalStateException If the journal is already open, here or in another process
+     */
+    public Journal(String filePath, Class<T> type) {
+        this.path = Paths.get(filePath);
+        this.valueReader = JsonCodecs.MAPPER.readerFor(type);
+        this.valueWriter = JsonCodecs.MAPPER.writerFor(type);
+        if (!OPEN.add(path.toAbsolutePath().normalize())) {
+            throw new IllegalStateException(path + " is already open in this process");
+        }
+        Path lockPath = Paths.get(filePath + ".lock");
+        FileLock acquired;
+        try {
+            this.lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            acquired = lockChannel.tryLock();
+        } catch (IOException | RuntimeException e) {
+            OPEN.remove(path.toAbsolutePath().normalize());
+            throw new IllegalStateException("Cannot lock " + lockPath, e);
+        }
+        if (acquired == null) {
+            closeQuietly(lockChannel);
+            OPEN.remove(path.toAbsolutePath().normalize());
+            throw new IllegalStateException(path + " is open in another process; "
+                + "only one process may use a data directory at a time");
+        }
+        this.lock = acquired;
+        trimTornTail();
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Queue a PUT record carrying the full new state of one entity
+     * @return Completes once the record has been written and synced
+     */
+    public CompletableFuture<Void> appendPut(String id, T value) throws IOException {
+        return append(PUT, id, value);
+    }
+
+    /**
+     * Queue PUT records for several entities at once. They join the queue together, so the
+     * writer flushes all of them in the same write and fsync.
+     * @param values Entities by ID, in the order their records should be written
+     * @return Completes once every record has been written and synced
+     */
+    public synchronized CompletableFuture<Void> appendPuts(Map<String, T> values) throws IOException {
+        // Encode everything first, so a value that fails to serialize queues nothing
+        List<byte[]> lines = new ArrayList<>(values.size());
+        for (Map.Entry<String, T> entry : values.entrySet()) {
+            lines.add(encode(PUT, entry.getKey(), entry.getValue()));
+        }
+        CompletableFuture<Void> durable = lastAppend;
+        for (byte[] line : lines) {
+            durable = enqueue(line);
+        }
+        return durable;
+    }
+
+    /**
+     * Queue a DEL record for one entity
+     * @return Completes once the record has been written and synced
+     */
+    public CompletableFuture<Void> appendDelete(String id) throws IOException {
+        return append(DELETE, id, null);
+    }
+
+    /**
+     * Feed every complete record to the handler in append order, after flushing any still queued.
+     * A torn trailing line left by a crash mid-append was already cut off when the journal was
+     * opened, so every line left is a complete record.
+     * @throws IllegalStateException If a record is malformed or does not bind to the entity
+     *         type; the records after it are not skipped silently
+     * @throws UncheckedIOException If the log cannot be read, rather than loading part of it
+     */
+    public void replay(RecordHandler<T> handler) {
+        synchronized (io) {
+            flushPending();
+            int count = 0;
+            if (Files.exists(path)) {
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    String line;
+                    int lineNumber = 0;
+                    while ((line = reader.readLine()) != null) {
+                        lineNumber++;
+                        if (line.isEmpty()) {
+                            continue;
+                        }
+                        try {
+                            readRecord(line, handler);
+                        } catch (StreamReadException e) {
+                            throw new IllegalStateException("Corrupt journal record in " + path
+                                + " at line " + lineNumber, e);
+                        }
+                        count++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot replay " + path, e);
+                }
+            }
+            synchronized (this) {
+                recordCount = count + pending.size();
+            }
+        }
+    }
+
+    /**
+     * Number of records in the log since the last compaction, as seen by the last replay plus appends
+     */
+    public synchronized int size() {
+        return recordCount;
+    }
+
+    /**
+     * Future that completes once every record appended so far is on disk
+     */
+    public synchronized CompletableFuture<Void> whenDurable() {
+        return lastAppend;
+    }
+
+    /**
+     * Drop all records once they have been folded into a fresh snapshot. Records still
+     * queued are covered by that snapshot, so they are discarded and count as durable.
+     */
+    public void truncate() throws IOException {
+        synchronized (io) {
+            List<PendingRecord> superseded;
+            synchronized (this) {
+                superseded = takePending();
+                recordCount = 0;
+            }
+            openChannel().truncate(0);
+            channel.force(true);
+            retryFrom = -1;
+            for (PendingRecord record : superseded) {
+                record.durable.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Write and force every queued record now instead of waiting for the writer
+     */
+    public void sync() {
+        synchronized (io) {
+            flushPending();
+        }
+    }
+
+    /**
+     * Flush anything still queued and release the lock, so the journal can be opened again.
+     * If that last flush fails there is no writer left to retry it, so the futures of the
+     * records it held fail with the error.
+     */
+    public void close() {
+        synchronized (io) {
+            synchronized (this) {
+                closed = true;
+                if (writer != null) {
+                    writer.interrupt();
+                }
+            }
+            IOException failure = flushPending();
+            if (failure != null) {
+                List<PendingRecord> lost;
+                synchronized (this) {
+                    lost = takePending();
+                }
+                for (PendingRecord record : lost) {
+                    record.durable.completeExceptionally(failure);
+                }
+            }
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // Already shutting down, and the hook's sync found nothing left to flush
+            }
+            try {
+                if (channel != null) {
+                    channel.close();
+                    channel = null;
+                }
+                lock.release();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            closeQuietly(lockChannel);
+            OPEN.remove(path.toAbsolutePath().normalize());
+        }
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static void closeQuietly(FileChannel file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private synchronized CompletableFuture<Void> append(String op, String id, T value) throws IOException {
+        return enqueue(encode(op, id, value));
+    }
+
+    /**
+     * Queue one serialized record and wake the writer; the caller holds this
+     */
+    private CompletableFuture<Void> enqueue(byte[] line) {
+        if (closed) {
+            throw new IllegalStateException(path + " is closed");
+        }
+        PendingRecord queued = new PendingRecord(line);
+        if (pending.isEmpty()) {
+            oldestPendingAt = System.nanoTime();
+        }
+        pending.add(queued);
+        recordCount++;
+        lastAppend = queued.durable;
+        if (writer == null) {
+            writer = new Thread(this::runWriter, "journal-writer-" + path.getFileName());
+            writer.setDaemon(true);
+            writer.start();
+        }
+        notifyAll();
+        return queued.durable;
+    }
+
+    /**
+     * Serialize one record as a newline-terminated line; the caller holds this
+     */
+    private byte[] encode(String op, String id, T value) throws IOException {
+        scratch.reset();
+        try (JsonGenerator generator = JsonCodecs.MAPPER.getFactory().createGenerator(scratch)) {
+            generator.writeStartObject();
+            generator.writeStringField("op", op);
+            generator.writeStringField("id", id);
+            if (value != null) {
+                generator.writeFieldName("value");
+                valueWriter.writeValue(generator, value);
+            }
+            generator.writeEndObject();
+        }
+        scratch.write('\n');
+        return scratch.toByteArray();
+    }
+
+    private void readRecord(String line, RecordHandler<T> handler) throws IOException {
+        String op = null;
+        String id = null;
+        T value = null;
+        try (JsonParser parser = valueReader.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Journal record is not an object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "op" -> op = parser.getText();
+                    case "id" -> id = parser.getText();
+                    case "value" -> value = valueReader.readValue(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (StreamReadException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt journal record in " + path, e);
+        }
+        handler.accept(op, id, value);
+    }
+
+    /**
+     * Background loop: once a record is queued, let more gather until the batch is full or
+     * the oldest one has waited the maximum delay, then flush them together
+     */
+    private void runWriter() {
+        while (true) {
+            try {
+                synchronized (this) {
+                    while (pending.isEmpty()) {
+                        wait();
+                    }
+                    long remaining;
+                    while (pending.size() < MAX_BATCH_RECORDS
+                            && (remaining = oldestPendingAt + MAX_DELAY_NANOS - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                        if (pending.isEmpty()) {
+                            break; // Flushed by sync() or dropped by truncate() meanwhile
+                        }
+                    }
+                }
+                sync();
+                synchronized (this) {
+                    if (retryDelayNanos > 0 && !pending.isEmpty()) {
+                        TimeUnit.NANOSECONDS.timedWait(this, retryDelayNanos); // Back off before retrying
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write all queued records with one write and one force; the caller holds io.
+     * If that fails, the records go back to the head of the queue for the writer to retry.
+     * @return The error if the write failed, otherwise null
+     */
+    private IOException flushPending() {
+        List<PendingRecord> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        if (batch.isEmpty()) {
+            return null;
+        }
+        try {
+            int length = 0;
+            for (PendingRecord record : batch) {
+                length += record.line.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            for (PendingRecord record : batch) {
+                buffer.put(record.line);
+            }
+            buffer.flip();
+            FileChannel out = openChannel();
+            if (retryFrom >= 0) {
+                out.truncate(retryFrom); // Drop whatever part of the failed write reached the file
+            }
+            retryFrom = out.size();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+            retryFrom = -1;
+            synchronized (this) {
+                retryDelayNanos = 0;
+            }
+            for (PendingRecord record : batch) {
+                record.durable.complete(null);
+            }
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (channel != null) {
+                closeQuietly(channel); // Reopened by the retry
+                channel = null;
+            }
+            synchronized (this) {
+                pending.addAll(0, batch);
+                oldestPendingAt = System.nanoTime();
+                retryDelayNanos = retryDelayNanos == 0
+                    ? MIN_RETRY_NANOS : Math.min(MAX_RETRY_NANOS, retryDelayNanos * 2);
+            }
+            return e;
+        }
+    }
+
+    private List<PendingRecord> takePending() {
+        List<PendingRecord> batch = new ArrayList<>(pending);
+        pending.clear();
+        return batch;
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    /**
+     * Cut back to the last complete line so new appends never get glued onto a torn record
+     */
+    private void trimTornTail() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = file.size();
+            ByteBuffer single = ByteBuffer.allocate(1);
+            while (end > 0) {
+                single.clear();
+                file.read(single, end - 1);
+                if (single.get(0) == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < file.size()) {
+                file.truncate(end);
+                file.force(true);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * One serialized record waiting for the writer
+     */
+    private static final class PendingRecord {
+        final byte[] line;
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        PendingRecord(byte[] line) {
+            this.line = line;
+        }
+    }
+}
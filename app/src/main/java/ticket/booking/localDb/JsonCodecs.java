@@ -0,0 +1,48 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The one ObjectMapper behind every store, and the readers and writers built from it.
+ * ObjectReader and ObjectWriter are immutable and thread-safe, so each is built once here,
+ * with its (de)serializers resolved, instead of per load or save. Sharing one mapper also
+ * lets every store reuse Jackson's recycled per-thread buffers.
+ * Jackson modules found on the classpath are registered, which puts Blackbird's generated
+ * property accessors in place of reflection. Snapshot output is compact; run with
+ * -Dbooking.json.pretty=true to get indented files for reading by hand.
+ */
+public final class JsonCodecs {
+    private static final boolean PRETTY = Boolean.getBoolean("booking.json.pretty");
+
+    public static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    public static final ObjectReader TRAINS_DOCUMENT_READER =
+        MAPPER.readerFor(new TypeReference<Map<String, List<Train>>>() {});
+    public static final ObjectReader USERS_DOCUMENT_READER =
+        MAPPER.readerFor(new TypeReference<Map<String, List<User>>>() {});
+    public static final ObjectReader TICKET_LIST_READER = MAPPER.readerFor(new TypeReference<List<Ticket>>() {});
+
+    public static final ObjectWriter TRAINS_DOCUMENT_WRITER =
+        snapshotWriter(new TypeReference<Map<String, List<Train>>>() {});
+    public static final ObjectWriter USERS_DOCUMENT_WRITER =
+        snapshotWriter(new TypeReference<Map<String, Collection<User>>>() {});
+    public static final ObjectWriter TICKET_LIST_WRITER = snapshotWriter(new TypeReference<Collection<Ticket>>() {});
+
+    private JsonCodecs() {
+    }
+
+    private static ObjectWriter snapshotWriter(TypeReference<?> type) {
+        ObjectWriter writer = MAPPER.writerFor(type);
+        return PRETTY ? writer.withDefaultPrettyPrinter() : writer;
+    }
+}
@@ -0,0 +1,634 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Train;
+import ticket.booking.interfaces.SeatInventory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SeatInventory kept in a memory-mapped file, so seat state survives a restart without being
+ * rebuilt from the stored tickets. It is a single-process inventory, like the user and ticket
+ * stores: the process holds a lock on a sidecar .lock file while any inventory on the file is
+ * open, and a second process is refused. Inventories opened on the same file within one JVM
+ * share the mapping's pages and may be used together.
+ * The file has a fixed layout, in the platform's native byte order:
+ * <pre>
+ *   header, 4096 bytes: long magic, int version, int slot count, long next free data offset, long data end
+ *   slot table: one 128-byte slot per departure, found by open addressing on (trainId, date):
+ *     long state (EMPTY, CLAIMED or READY), long data offset, int epoch day,
+ *     int segments, int coaches, int words, int trainId length, trainId UTF-8 bytes
+ *   data: per departure, booked bitsets of longs indexed [segment][coach][word]
+ * </pre>
+ * Every shared update is a compare-and-set through a VarHandle on the mapped buffer: claiming
+ * a slot, bumping the data offset and setting seat bits. A reservation sets the seat's bit in
+ * each segment of its range and backs out the bits it set if another booking got one first,
+ * so a seat is never sold twice by concurrent threads.
+ * Sellable seats still come from each process's own Train.seats template. A departure's data
+ * region is sized to the train's layout when first touched; coaches or stops added to the
+ * template later are only bookable on departures created after the change.
+ * A slot left CLAIMED by a crash while it was being filled in is cleared when the file is next
+ * opened; the data region it had reserved stays unused.
+ * The file outlives the process. Deleting it while nothing is running rebuilds it from the
+ * stored tickets on the next start.
+ */
+public class MappedSeatInventory implements SeatInventory, Closeable {
+    public static final int DEFAULT_SLOTS = 1 << 16;
+    public static final long DEFAULT_DATA_BYTES = 1L << 30;
+    private static final long MAGIC = 0x5442534541545331L; // "TBSEATS1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4096;
+    private static final int SLOT_BYTES = 128;
+    private static final int VERSION_OFFSET = 8;
+    private static final int SLOT_COUNT_OFFSET = 12;
+    private static final int NEXT_FREE_OFFSET = 16;
+    private static final int DATA_END_OFFSET = 24;
+    private static final int TRAIN_ID_OFFSET = 36;
+    private static final int MAX_TRAIN_ID_BYTES = SLOT_BYTES - TRAIN_ID_OFFSET;
+    private static final long EMPTY = 0;
+    private static final long CLAIMED = 1;
+    private static final long READY = 2;
+    private static final long CLAIM_TIMEOUT_NANOS = 5_000_000_000L;
+    private static final VarHandle LONGS =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    // Guarded by itself; the process lock of every inventory file open in this JVM
+    private static final Map<Path, ProcessLock> OPEN = new HashMap<>();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final Map<String, SeatLayout> layouts = new ConcurrentHashMap<>();
+    private final Map<String, Departure> departures = new ConcurrentHashMap<>();
+
+    public MappedSeatInventory(String filePath) throws IOException {
+        this(filePath, DEFAULT_SLOTS, DEFAULT_DATA_BYTES);
+    }
+
+    /**
+     * Open the inventory file, creating it if it does not exist yet. The sizes only apply
+     * when the file is created; an existing file keeps the sizes it was created with.
+     * @param filePath Inventory file, e.g. seats.map in the data directory
+     * @param slots Number of departures the file can hold
+     * @param dataBytes Space for booked bitsets; the file is sparse, so unused space costs no disk
+     * @throws IllegalStateException If another process has the file open
+     */
+    public MappedSeatInventory(String filePath, int slots, long dataBytes) throws IOException {
+        this.path = Paths.get(filePath).toAbsolutePath().normalize();
+        synchronized (OPEN) {
+            boolean first = !OPEN.containsKey(path);
+            ProcessLock lock = first ? ProcessLock.acquire(path) : OPEN.get(path);
+            try {
+                this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException | RuntimeException e) {
+                if (first) {
+                    lock.release();
+                }
+                throw e;
+            }
+            try {
+                this.buffer = map(channel, slots, dataBytes);
+                this.slots = buffer.getInt(SLOT_COUNT_OFFSET);
+                if (first) {
+                    clearUnfinishedClaims();
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                if (first) {
+                    lock.release();
+                }
+                throw e;
+            }
+            lock.users++;
+            OPEN.put(path, lock);
+        }
+    }
+
+    @Override
+    public int findFreeSeat(Train train, LocalDate date, int coach, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (coach < 0 || coach >= layout.widths.length || !layout.containsRange(fromStop, toStop)) {
+            return -1;
+        }
+        Departure departure = departure(train, date, layout);
+        if (!departure.covers(coach, toStop)) {
+            return -1;
+        }
+        for (int word = 0; word < departure.words(layout); word++) {
+            long free = layout.sellable[coach][word] & ~occupied(departure, coach, word, fromStop, toStop);
+            if (free != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(free);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int[] allocateSeat(Train train, LocalDate date, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (!layout.containsRange(fromStop, toStop)) {
+            return null;
+        }
+        Departure departure = departure(train, date, layout);
+        for (int coach = 0; coach < layout.widths.length; coach++) {
+            if (!departure.covers(coach, toStop)) {
+                continue;
+            }
+            for (int word = 0; word < departure.words(layout); word++) {
+                long free;
+                // Retry the word until a reservation sticks or it has nothing left
+                while ((free = layout.sellable[coach][word] & ~occupied(departure, coach, word, fromStop, toStop)) != 0) {
+                    long mask = Long.lowestOneBit(free);
+                    if (reserve(departure, coach, word, mask, fromStop, toStop)) {
+                        return new int[] {coach, (word << 6) + Long.numberOfTrailingZeros(mask)};
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reserves the chosen seats one by one; if another booking takes one of them first, the
+     * seats already taken are given back and the group is chosen again from a fresh view
+     */
+    @Override
+    public int[][] allocateSeats(Train train, LocalDate date, int fromStop, int toStop, int count) {
+        SeatLayout layout = layout(train);
+        if (count < 1 || !layout.containsRange(fromStop, toStop)) {
+            return null;
+        }
+        Departure departure = departure(train, date, layout);
+        while (true) {
+            long[][] free = new long[layout.widths.length][layout.words];
+            for (int coach = 0; coach < free.length; coach++) {
+                if (!departure.covers(coach, toStop)) {
+                    continue;
+                }
+                for (int word = 0; word < departure.words(layout); word++) {
+                    free[coach][word] = layout.sellable[coach][word] & ~occupied(departure, coach, word, fromStop, toStop);
+                }
+            }
+            int[][] group = layout.chooseGroup(free, count);
+            if (group == null) {
+                return null;
+            }
+            int reserved = 0;
+            while (reserved < group.length && reserve(departure, group[reserved][0], group[reserved][1] >>> 6,
+                    1L << group[reserved][1], fromStop, toStop)) {
+                reserved++;
+            }
+            if (reserved == group.length) {
+                return group;
+            }
+            for (int i = 0; i < reserved; i++) {
+                for (int segment = fromStop; segment < toStop; segment++) {
+                    clearBit(departure.address(segment, group[i][0], group[i][1] >>> 6), 1L << group[i][1]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int countFreeSeats(Train train, LocalDate date, int coach, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (coach < 0 || coach >= layout.widths.length || !layout.containsRange(fromStop, toStop)) {
+            return 0;
+        }
+        return countFree(layout, departure(train, date, layout), coach, fromStop, toStop);
+    }
+
+    @Override
+    public int countFreeSeats(Train train, LocalDate date, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (!layout.containsRange(fromStop, toStop)) {
+            return 0;
+        }
+        Departure departure = departure(train, date, layout);
+        int count = 0;
+        for (int coach = 0; coach < layout.widths.length; coach++) {
+            count += countFree(layout, departure, coach, fromStop, toStop);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isSeatFree(Train train, LocalDate date, int coach, int seat, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (!layout.contains(coach, seat) || !layout.containsRange(fromStop, toStop)) {
+            return false;
+        }
+        Departure departure = departure(train, date, layout);
+        int word = seat >>> 6;
+        if (!departure.covers(coach, toStop) || word >= departure.words) {
+            return false;
+        }
+        long free = layout.sellable[coach][word] & ~occupied(departure, coach, word, fromStop, toStop);
+        return (free & (1L << seat)) != 0;
+    }
+
+    @Override
+    public boolean reserveSeat(Train train, LocalDate date, int coach, int seat, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (!layout.contains(coach, seat) || !layout.containsRange(fromStop, toStop)) {
+            return false;
+        }
+        Departure departure = departure(train, date, layout);
+        int word = seat >>> 6;
+        long mask = 1L << seat;
+        if (!departure.covers(coach, toStop) || word >= departure.words || (layout.sellable[coach][word] & mask) == 0) {
+            return false;
+        }
+        return reserve(departure, coach, word, mask, fromStop, toStop);
+    }
+
+    @Override
+    public boolean releaseSeat(Train train, LocalDate date, int coach, int seat, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        if (!layout.contains(coach, seat) || !layout.containsRange(fromStop, toStop)) {
+            return false;
+        }
+        Departure departure = departure(train, date, layout);
+        int word = seat >>> 6;
+        long mask = 1L << seat;
+        if (!departure.covers(coach, toStop) || word >= departure.words) {
+            return false;
+        }
+        for (int segment = fromStop; segment < toStop; segment++) {
+            if (((long) LONGS.getVolatile(buffer, departure.address(segment, coach, word)) & mask) == 0) {
+                return false; // Not held over the whole range
+            }
+        }
+        for (int segment = fromStop; segment < toStop; segment++) {
+            clearBit(departure.address(segment, coach, word), mask);
+        }
+        return true;
+    }
+
+    @Override
+    public List<List<Integer>> getSeatMap(Train train, LocalDate date, int fromStop, int toStop) {
+        SeatLayout layout = layout(train);
+        List<List<Integer>> seatMap = new ArrayList<>(layout.widths.length);
+        if (!layout.containsRange(fromStop, toStop)) {
+            return seatMap;
+        }
+        Departure departure = departure(train, date, layout);
+        for (int coach = 0; coach < layout.widths.length; coach++) {
+            List<Integer> row = new ArrayList<>(layout.widths[coach]);
+            boolean covered = departure.covers(coach, toStop);
+            for (int word = 0; word < layout.sellable[coach].length; word++) {
+                long free = covered && word < departure.words
+                    ? layout.sellable[coach][word] & ~occupied(departure, coach, word, fromStop, toStop) : 0;
+                int end = Math.min(64, layout.widths[coach] - (word << 6));
+                for (int bit = 0; bit < end; bit++) {
+                    row.add((free & (1L << bit)) != 0 ? 1 : 0);
+                }
+            }
+            seatMap.add(row);
+        }
+        return seatMap;
+    }
+
+    @Override
+    public void refreshLayout(Train train) {
+        layouts.put(train.getTrainId(), new SeatLayout(train));
+    }
+
+    /**
+     * Flush the mapped pages to disk and close the file; the process lock is released once
+     * every inventory on the file in this JVM is closed
+     */
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+        synchronized (OPEN) {
+            ProcessLock lock = OPEN.get(path);
+            if (lock != null && --lock.users == 0) {
+                OPEN.remove(path);
+                lock.release();
+            }
+        }
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    /**
+     * Map the file, laying out an empty inventory first if it was just created
+     */
+    private MappedByteBuffer map(FileChannel channel, int slots, long dataBytes) throws IOException {
+        MappedByteBuffer mapped;
+        if (channel.size() == 0) {
+            long size = HEADER_BYTES + (long) slots * SLOT_BYTES + (dataBytes & ~7L);
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Seat inventory file would exceed 2 GB: " + size + " bytes");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            mapped.order(ByteOrder.nativeOrder());
+            mapped.putInt(VERSION_OFFSET, FORMAT_VERSION);
+            mapped.putInt(SLOT_COUNT_OFFSET, slots);
+            mapped.putLong(NEXT_FREE_OFFSET, HEADER_BYTES + (long) slots * SLOT_BYTES);
+            mapped.putLong(DATA_END_OFFSET, size);
+            mapped.putLong(0, MAGIC);
+            mapped.force();
+            return mapped;
+        }
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Seat inventory file too large to map: " + path);
+        }
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        mapped.order(ByteOrder.nativeOrder());
+        if (mapped.getLong(0) != MAGIC || mapped.getInt(VERSION_OFFSET) != FORMAT_VERSION) {
+            throw new IOException("Not a version " + FORMAT_VERSION + " seat inventory file: " + path);
+        }
+        return mapped;
+    }
+
+    /**
+     * Return slots a crashed process left CLAIMED to EMPTY. Only called while no other
+     * inventory on the file is open, so no claim can be in progress.
+     */
+    private void clearUnfinishedClaims() {
+        for (int slot = 0; slot < slots; slot++) {
+            int base = HEADER_BYTES + slot * SLOT_BYTES;
+            if (buffer.getLong(base) == CLAIMED) {
+                buffer.putLong(base, EMPTY);
+            }
+        }
+    }
+
+    private SeatLayout layout(Train train) {
+        SeatLayout layout = layouts.get(train.getTrainId());
+        if (layout == null || !layout.isCurrentFor(train)) {
+            layout = new SeatLayout(train);
+            layouts.put(train.getTrainId(), layout);
+        }
+        return layout;
+    }
+
+    /**
+     * The departure's slot in the file, claiming a slot and a data region for it if no
+     * process has touched it yet
+     */
+    private Departure departure(Train train, LocalDate date, SeatLayout layout) {
+        String key = train.getTrainId() + '@' + date.toEpochDay();
+        Departure departure = departures.get(key);
+        if (departure == null) {
+            departure = findOrClaimSlot(train.getTrainId(), (int) date.toEpochDay(), layout);
+            departures.put(key, departure);
+        }
+        return departure;
+    }
+
+    private Departure findOrClaimSlot(String trainId, int epochDay, SeatLayout layout) {
+        byte[] id = trainId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > MAX_TRAIN_ID_BYTES) {
+            throw new IllegalArgumentException("Train ID longer than " + MAX_TRAIN_ID_BYTES + " bytes: " + trainId);
+        }
+        int slot = Math.floorMod(mix(trainId.hashCode() * 31 + epochDay), slots);
+        int probe = 0;
+        while (probe < slots) {
+            int base = HEADER_BYTES + slot * SLOT_BYTES;
+            long state = (long) LONGS.getVolatile(buffer, base);
+            if (state == EMPTY) {
+                if (LONGS.compareAndSet(buffer, base, EMPTY, CLAIMED)) {
+                    return fillSlot(base, epochDay, id, layout);
+                }
+                continue; // Lost the claim; look at the slot again
+            }
+            if (!awaitReady(base)) {
+                continue; // The claim failed and the slot is EMPTY again
+            }
+            if (buffer.getInt(base + 16) == epochDay && matchesTrainId(base, id)) {
+                return new Departure((int) buffer.getLong(base + 8), buffer.getInt(base + 20),
+                    buffer.getInt(base + 24), buffer.getInt(base + 28));
+            }
+            slot = slot + 1 == slots ? 0 : slot + 1;
+            probe++;
+        }
+        throw new IllegalStateException("Seat inventory file has no free departure slots");
+    }
+
+    /**
+     * Reserve a data region for a slot this process has just claimed and publish it.
+     * If the region cannot be reserved the slot goes back to EMPTY, so the failure does
+     * not leave it claimed for every other lookup.
+     */
+    private Departure fillSlot(int base, int epochDay, byte[] id, SeatLayout layout) {
+        try {
+            long bytes = 8L * layout.segments * layout.widths.length * layout.words;
+            long offset = allocate(bytes);
+            buffer.putLong(base + 8, offset);
+            buffer.putInt(base + 16, epochDay);
+            buffer.putInt(base + 20, layout.segments);
+            buffer.putInt(base + 24, layout.widths.length);
+            buffer.putInt(base + 28, layout.words);
+            buffer.putInt(base + 32, id.length);
+            buffer.put(base + TRAIN_ID_OFFSET, id);
+            // Publishes the fields above to every reader that sees READY
+            LONGS.setVolatile(buffer, base, READY);
+            return new Departure((int) offset, layout.segments, layout.widths.length, layout.words);
+        } catch (RuntimeException | Error e) {
+            LONGS.setVolatile(buffer, base, EMPTY);
+            throw e;
+        }
+    }
+
+    /**
+     * Wait out another thread that is filling in a slot it just claimed
+     * @return true once the slot is READY, false if its claim failed and it is EMPTY again
+     */
+    private boolean awaitReady(int base) {
+        long start = System.nanoTime();
+        while (true) {
+            long state = (long) LONGS.getVolatile(buffer, base);
+            if (state == READY) {
+                return true;
+            }
+            if (state == EMPTY) {
+                return false;
+            }
+            if (System.nanoTime() - start > CLAIM_TIMEOUT_NANOS) {
+                throw new IllegalStateException("Departure slot at " + base + " was never completed");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean matchesTrainId(int base, byte[] id) {
+        if (buffer.getInt(base + 32) != id.length) {
+            return false;
+        }
+        for (int i = 0; i < id.length; i++) {
+            if (buffer.get(base + TRAIN_ID_OFFSET + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Carve a region out of the shared data area by bumping the next-free offset
+     */
+    private long allocate(long bytes) {
+        long dataEnd = buffer.getLong(DATA_END_OFFSET);
+        while (true) {
+            long offset = (long) LONGS.getVolatile(buffer, NEXT_FREE_OFFSET);
+            if (offset + bytes > dataEnd) {
+                throw new IllegalStateException("Seat inventory file is full");
+            }
+            if (LONGS.compareAndSet(buffer, NEXT_FREE_OFFSET, offset, offset + bytes)) {
+                return offset;
+            }
+        }
+    }
+
+    /**
+     * Set the seat's bit in every segment of the range, or in none of them if any is
+     * already taken
+     */
+    private boolean reserve(Departure departure, int coach, int word, long mask, int fromStop, int toStop) {
+        for (int segment = fromStop; segment < toStop; segment++) {
+            if (!setBit(departure.address(segment, coach, word), mask)) {
+                for (int undo = fromStop; undo < segment; undo++) {
+                    clearBit(departure.address(undo, coach, word), mask);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean setBit(int address, long mask) {
+        while (true) {
+            long current = (long) LONGS.getVolatile(buffer, address);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (LONGS.compareAndSet(buffer, address, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    private void clearBit(int address, long mask) {
+        while (true) {
+            long current = (long) LONGS.getVolatile(buffer, address);
+            if (LONGS.compareAndSet(buffer, address, current, current & ~mask)) {
+                return;
+            }
+        }
+    }
+
+    private long occupied(Departure departure, int coach, int word, int fromStop, int toStop) {
+        long occupied = 0;
+        for (int segment = fromStop; segment < toStop; segment++) {
+            occupied |= (long) LONGS.getVolatile(buffer, departure.address(segment, coach, word));
+        }
+        return occupied;
+    }
+
+    private int countFree(SeatLayout layout, Departure departure, int coach, int fromStop, int toStop) {
+        if (!departure.covers(coach, toStop)) {
+            return 0;
+        }
+        int count = 0;
+        for (int word = 0; word < departure.words(layout); word++) {
+            count += Long.bitCount(layout.sellable[coach][word] & ~occupied(departure, coach, word, fromStop, toStop));
+        }
+        return count;
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    /**
+     * Exclusive lock on the file's sidecar .lock, held while any inventory on the file is open
+     * in this JVM. Closing any channel on a locked file drops the JVM's lock on it, so only
+     * this class opens the sidecar.
+     */
+    private static final class ProcessLock {
+        private final FileChannel channel;
+        private final FileLock lock;
+        // Guarded by OPEN; inventories in this JVM using the lock
+        int users;
+
+        private ProcessLock(FileChannel channel, FileLock lock) {
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        static ProcessLock acquire(Path file) throws IOException {
+            Path lockPath = file.resolveSibling(file.getFileName() + ".lock");
+            FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            if (lock == null) {
+                channel.close();
+                throw new IllegalStateException(file + " is open in another process; "
+                    + "the seat inventory is single-process");
+            }
+            return new ProcessLock(channel, lock);
+        }
+
+        void release() throws IOException {
+            try {
+                lock.release();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Location and dimensions of one departure's booked bitsets in the file
+     */
+    private static final class Departure {
+        final int offset;
+        final int segments;
+        final int coaches;
+        final int words;
+
+        Departure(int offset, int segments, int coaches, int words) {
+            this.offset = offset;
+            this.segments = segments;
+            this.coaches = coaches;
+            this.words = words;
+        }
+
+        boolean covers(int coach, int toStop) {
+            return coach < coaches && toStop <= segments;
+        }
+
+        int words(SeatLayout layout) {
+            return Math.min(words, layout.words);
+        }
+
+        int address(int segment, int coach, int word) {
+            return offset + ((segment * coaches + coach) * words + word) * 8;
+        }
+    }
+}
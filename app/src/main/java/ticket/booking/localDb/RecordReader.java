@@ -0,0 +1,234 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.User;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader for the users.json and tickets.json record layouts.
+ * Records are read field by field off a JsonParser, so only one record is materialized at a
+ * time and fields outside the requested set are skipped without being turned into objects.
+ * Train copies embedded in old ticket records are never deserialized; only their trainId is kept.
+ * Values that repeat across many records (stations, dates, statuses, train IDs) are shared
+ * through a per-load pool, so a large file holds one String per distinct value.
+ */
+final class RecordReader {
+    static final Set<String> ALL_USER_FIELDS = Set.of("userId", "name", "email", "password",
+        "hashedPassword", "phoneNumber", "registrationDate", "bookedTicketIds", "bookedTickets");
+    static final Set<String> ALL_TICKET_FIELDS = Set.of("ticketId", "userId", "source", "destination",
+        "dateOfTravel", "seatNumber", "ticketStatus", "price", "paymentMethod", "bookingDate", "trainId", "train", "passengerName");
+
+    private final JsonFactory factory;
+    private final Set<String> fields;
+    private final Map<String, String> pool = new HashMap<>();
+
+    /**
+     * @param factory Factory to create parsers from
+     * @param fields Record properties to read; any other property is skipped
+     */
+    RecordReader(JsonFactory factory, Set<String> fields) {
+        this.factory = factory;
+        this.fields = fields;
+    }
+
+    /**
+     * Stream the users held in the "users" array of a users.json document
+     * @param file users.json
+     * @param sink Receives each user as soon as it has been read
+     */
+    void readUsers(File file, Consumer<User> sink) throws IOException {
+        try (JsonParser parser = factory.createParser(file)) {
+            if (seekArray(parser, "users")) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    sink.accept(readUser(parser));
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream the tickets held in the top-level array of a tickets.json document
+     * @param file tickets.json
+     * @param sink Receives each ticket as soon as it has been read
+     */
+    void readTickets(File file, Consumer<Ticket> sink) throws IOException {
+        try (JsonParser parser = factory.createParser(file)) {
+            if (seekArray(parser, null)) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    sink.accept(readTicket(parser, fields));
+                }
+            }
+        }
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    /**
+     * Position the parser on the START_ARRAY of the records
+     * @param property Property of the top-level object holding the array, or null if the
+     *                 document itself is the array
+     * @return Whether the array was found
+     */
+    private static boolean seekArray(JsonParser parser, String property) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (property == null) {
+            return token == JsonToken.START_ARRAY;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            if (parser.nextToken() == JsonToken.START_ARRAY && property.equals(name)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Read one user; the parser is on its START_OBJECT and is left on its END_OBJECT
+     */
+    private User readUser(JsonParser parser) throws IOException {
+        User user = new User();
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            if (!fields.contains(name)) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (name) {
+                case "userId": user.setUserId(text(parser)); break;
+                case "name": user.setName(text(parser)); break;
+                case "email": user.setEmail(text(parser)); break;
+                case "password": user.setPassword(text(parser)); break;
+                case "hashedPassword": user.setHashedPassword(text(parser)); break;
+                case "phoneNumber": user.setPhoneNumber(text(parser)); break;
+                case "registrationDate": user.setRegistrationDate(text(parser)); break;
+                case "bookedTicketIds": user.setBookedTicketIds(readTicketIds(parser)); break;
+                case "bookedTickets": user.setBookedTickets(readEmbeddedTickets(parser)); break;
+                default: parser.skipChildren();
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Read one ticket; the parser is on its START_OBJECT and is left on its END_OBJECT
+     */
+    private Ticket readTicket(JsonParser parser, Set<String> wanted) throws IOException {
+        Ticket ticket = new Ticket();
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            if (!wanted.contains(name)) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (name) {
+                case "ticketId": ticket.setTicketId(text(parser)); break;
+                case "userId": ticket.setUserId(text(parser)); break;
+                case "source": ticket.setSource(pooled(parser)); break;
+                case "destination": ticket.setDestination(pooled(parser)); break;
+                case "dateOfTravel": ticket.setDateOfTravel(pooled(parser)); break;
+                case "seatNumber": ticket.setSeatNumber(text(parser)); break;
+                case "ticketStatus": ticket.setTicketStatus(pooled(parser)); break;
+                case "price": price(parser, ticket); break;
+                case "paymentMethod": ticket.setPaymentMethod(pooled(parser)); break;
+                case "bookingDate": ticket.setBookingDate(text(parser)); break;
+                case "trainId": ticket.setTrainId(pooled(parser)); break;
+                case "train": ticket.setTrainId(embeddedTrainId(parser, ticket.getTrainId())); break;
+                case "passengerName": ticket.setPassengerName(text(parser)); break;
+                default: parser.skipChildren();
+            }
+        }
+        return ticket;
+    }
+
+    private List<String> readTicketIds(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<String> ids = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            ids.add(text(parser));
+        }
+        return ids;
+    }
+
+    /**
+     * Tickets embedded in the old users.json format. They are always read in full because
+     * they are migrated into the ticket store.
+     */
+    private List<Ticket> readEmbeddedTickets(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<Ticket> tickets = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            tickets.add(readTicket(parser, ALL_TICKET_FIELDS));
+        }
+        return tickets;
+    }
+
+    /**
+     * trainId of an embedded Train copy; the rest of the copy, seat matrix included, is skipped
+     */
+    private String embeddedTrainId(JsonParser parser, String current) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return current;
+        }
+        String trainId = current;
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            if ("trainId".equals(name)) {
+                trainId = pooled(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return trainId;
+    }
+
+    private static String text(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    private String pooled(JsonParser parser) throws IOException {
+        String value = text(parser);
+        if (value == null) {
+            return null;
+        }
+        String shared = pool.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    /**
+     * A numeric price, or text that the ticket keeps verbatim if it is not a number
+     */
+    private static void price(JsonParser parser, Ticket ticket) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            ticket.setPrice(parser.getDoubleValue());
+        } else {
+            ticket.setPriceText(text(parser));
+        }
+    }
+}
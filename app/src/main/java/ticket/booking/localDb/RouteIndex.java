@@ -0,0 +1,308 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Train;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Read-only search index built from one snapshot of the train catalog.
+ * Every train's stop list is flattened into parallel arrays of station keys and scheduled
+ * minutes, and an inverted index maps each station to the (train, stop index) calls made there.
+ * Consecutive stops form the edges of the station graph, so "passes through A then B" is a
+ * lookup of A's calls plus one hash probe per train, and a one-change search only walks the
+ * stops after the boarding station.
+ * Stop times are counted in minutes from midnight of the day the train leaves its origin;
+ * a time earlier than the previous stop means the train ran past midnight.
+ */
+public class RouteIndex {
+    public static final int DEFAULT_MIN_CONNECTION_MINUTES = 15;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int UNKNOWN = -1;
+
+    private final Map<String, List<Call>> callsByStation = new HashMap<>();
+    private final int minConnectionMinutes;
+
+    public RouteIndex(List<Train> trains) {
+        this(trains, DEFAULT_MIN_CONNECTION_MINUTES);
+    }
+
+    public RouteIndex(List<Train> trains, int minConnectionMinutes) {
+        this.minConnectionMinutes = minConnectionMinutes;
+        for (Train train : trains) {
+            Route route = new Route(train);
+            for (int stop = 0; stop < route.stations.length; stop++) {
+                callsByStation.computeIfAbsent(route.stations[stop], key -> new ArrayList<>())
+                    .add(new Call(route, stop));
+            }
+        }
+    }
+
+    /**
+     * Trains that call at the source and later at the destination, ordered by departure
+     * time from the source
+     * @param date Date of departure from the source, or null to ignore operating days
+     */
+    public List<Train> findDirect(String source, String destination, LocalDate date) {
+        List<Call> boardings = callsByStation.get(key(source));
+        String destinationKey = key(destination);
+        if (boardings == null || destinationKey == null) {
+            return new ArrayList<>();
+        }
+        List<Call> matches = new ArrayList<>();
+        for (Call boarding : boardings) {
+            Integer alighting = boarding.route.stopIndex.get(destinationKey);
+            if (alighting != null && alighting > boarding.stop && boarding.route.runsOn(date, boarding.stop)) {
+                matches.add(boarding);
+            }
+        }
+        matches.sort(Comparator.comparingInt(call -> call.route.timeOfDay(call.stop)));
+        List<Train> trains = new ArrayList<>(matches.size());
+        for (Call call : matches) {
+            trains.add(call.route.train);
+        }
+        return trains;
+    }
+
+    /**
+     * Journeys with exactly one change of train, ordered by arrival at the destination.
+     * The second train must leave the transfer station at least the minimum connection time
+     * after the first arrives, and within the following 24 hours. For each pair of trains only
+     * the transfer station giving the earliest arrival is kept.
+     * @param date Date of departure from the source
+     */
+    public List<Connection> findConnections(String source, String destination, LocalDate date) {
+        List<Call> boardings = callsByStation.get(key(source));
+        List<Call> alightings = callsByStation.get(key(destination));
+        if (boardings == null || alightings == null || date == null) {
+            return new ArrayList<>();
+        }
+        // Trains reaching the destination, with the stop index they reach it at
+        Map<Route, Integer> toDestination = new IdentityHashMap<>();
+        for (Call call : alightings) {
+            toDestination.put(call.route, call.stop);
+        }
+
+        Map<String, Connection> bestByPair = new HashMap<>();
+        for (Call boarding : boardings) {
+            Route first = boarding.route;
+            if (!first.runsOn(date, boarding.stop) || first.minutes[boarding.stop] == UNKNOWN) {
+                continue;
+            }
+            // Minutes relative to midnight of the query date
+            int firstDayOffset = first.minutes[boarding.stop] / MINUTES_PER_DAY;
+            Integer direct = toDestination.get(first);
+            int lastTransfer = direct != null && direct > boarding.stop ? direct : first.stations.length;
+            for (int transfer = boarding.stop + 1; transfer < lastTransfer; transfer++) {
+                if (first.minutes[transfer] == UNKNOWN) {
+                    continue;
+                }
+                int arrival = first.minutes[transfer] - firstDayOffset * MINUTES_PER_DAY;
+                for (Call change : callsByStation.get(first.stations[transfer])) {
+                    Route second = change.route;
+                    Integer alighting = toDestination.get(second);
+                    if (second == first || alighting == null || alighting <= change.stop
+                            || second.minutes[change.stop] == UNKNOWN || second.minutes[alighting] == UNKNOWN) {
+                        continue;
+                    }
+                    int departure = nextDeparture(arrival + minConnectionMinutes, second.timeOfDay(change.stop));
+                    int departureDay = Math.floorDiv(departure, MINUTES_PER_DAY);
+                    LocalDate secondOrigin = date.plusDays(departureDay - second.minutes[change.stop] / MINUTES_PER_DAY);
+                    if (!second.runsFrom(secondOrigin)) {
+                        continue;
+                    }
+                    int finalArrival = departure + second.minutes[alighting] - second.minutes[change.stop];
+                    Connection connection = new Connection(first.train, second.train, first.names[transfer],
+                        date.minusDays(firstDayOffset), secondOrigin, arrival, departure, finalArrival);
+                    String pair = first.train.getTrainId() + '\u0000' + second.train.getTrainId();
+                    Connection best = bestByPair.get(pair);
+                    if (best == null || connection.finalArrival < best.finalArrival) {
+                        bestByPair.put(pair, connection);
+                    }
+                }
+            }
+        }
+        List<Connection> connections = new ArrayList<>(bestByPair.values());
+        connections.sort(Comparator.comparingInt((Connection c) -> c.finalArrival)
+            .thenComparingInt(c -> c.transferDeparture));
+        return connections;
+    }
+
+    /**
+     * One-change journey. Times are minutes from midnight of the travel date and may run past
+     * 1440 when a leg continues into the next day. Leg dates are the dates each train leaves
+     * its origin, which is the date its seats are booked against.
+     */
+    public static final class Connection {
+        private final Train firstTrain;
+        private final Train secondTrain;
+        private final String transferStation;
+        private final LocalDate firstLegDate;
+        private final LocalDate secondLegDate;
+        private final int transferArrival;
+        private final int transferDeparture;
+        private final int finalArrival;
+
+        Connection(Train firstTrain, Train secondTrain, String transferStation, LocalDate firstLegDate,
+                   LocalDate secondLegDate, int transferArrival, int transferDeparture, int finalArrival) {
+            this.firstTrain = firstTrain;
+            this.secondTrain = secondTrain;
+            this.transferStation = transferStation;
+            this.firstLegDate = firstLegDate;
+            this.secondLegDate = secondLegDate;
+            this.transferArrival = transferArrival;
+            this.transferDeparture = transferDeparture;
+            this.finalArrival = finalArrival;
+        }
+
+        public Train getFirstTrain() {
+            return firstTrain;
+        }
+        public Train getSecondTrain() {
+            return secondTrain;
+        }
+        public String getTransferStation() {
+            return transferStation;
+        }
+        public LocalDate getFirstLegDate() {
+            return firstLegDate;
+        }
+        public LocalDate getSecondLegDate() {
+            return secondLegDate;
+        }
+        public LocalTime getTransferArrivalTime() {
+            return toTime(transferArrival);
+        }
+        public LocalTime getTransferDepartureTime() {
+            return toTime(transferDeparture);
+        }
+        public LocalTime getFinalArrivalTime() {
+            return toTime(finalArrival);
+        }
+        public int getConnectionMinutes() {
+            return transferDeparture - transferArrival;
+        }
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static String key(String station) {
+        return station != null ? station.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * First minute at or after earliest whose time of day is timeOfDay
+     */
+    private static int nextDeparture(int earliest, int timeOfDay) {
+        int day = Math.floorDiv(earliest, MINUTES_PER_DAY);
+        int candidate = day * MINUTES_PER_DAY + timeOfDay;
+        return candidate >= earliest ? candidate : candidate + MINUTES_PER_DAY;
+    }
+
+    private static LocalTime toTime(int minutes) {
+        return LocalTime.ofSecondOfDay((long) Math.floorMod(minutes, MINUTES_PER_DAY) * 60);
+    }
+
+    private static int parseMinutes(String time) {
+        if (time == null) {
+            return UNKNOWN;
+        }
+        try {
+            LocalTime parsed = LocalTime.parse(time.trim());
+            return parsed.getHour() * 60 + parsed.getMinute();
+        } catch (DateTimeParseException e) {
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * A train's stop at one station
+     */
+    private static final class Call {
+        final Route route;
+        final int stop;
+
+        Call(Route route, int stop) {
+            this.route = route;
+            this.stop = stop;
+        }
+    }
+
+    /**
+     * A train's stops flattened for searching
+     */
+    private static final class Route {
+        final Train train;
+        final String[] names;
+        final String[] stations;
+        final int[] minutes;
+        final Map<String, Integer> stopIndex = new HashMap<>();
+        final Set<String> operatingDays;
+
+        Route(Train train) {
+            this.train = train;
+            List<String> names = train.getStations();
+            if (names == null || names.size() < 2) {
+                names = Arrays.asList(train.getSource(), train.getDestination());
+            }
+            this.names = names.toArray(new String[0]);
+            this.stations = new String[names.size()];
+            this.minutes = new int[names.size()];
+            Map<String, String> times = train.getStationArrivalTimes() != null
+                ? train.getStationArrivalTimes() : Collections.emptyMap();
+            int previous = UNKNOWN;
+            int dayOffset = 0;
+            for (int stop = 0; stop < names.size(); stop++) {
+                stations[stop] = key(names.get(stop));
+                stopIndex.putIfAbsent(stations[stop], stop);
+                String time = times.get(names.get(stop));
+                if (time == null) {
+                    time = stop == 0 ? train.getDepartureTime()
+                        : stop == names.size() - 1 ? train.getArrivalTime() : null;
+                }
+                int minute = parseMinutes(time);
+                if (minute != UNKNOWN) {
+                    if (previous != UNKNOWN && minute < previous) {
+                        dayOffset++; // Ran past midnight
+                    }
+                    previous = minute;
+                    minutes[stop] = dayOffset * MINUTES_PER_DAY + minute;
+                } else {
+                    minutes[stop] = UNKNOWN;
+                }
+            }
+            Set<String> days = new HashSet<>();
+            if (train.getOperatingDays() != null) {
+                for (String day : train.getOperatingDays()) {
+                    days.add(day.trim().toUpperCase(Locale.ROOT));
+                }
+            }
+            this.operatingDays = days;
+        }
+
+        int timeOfDay(int stop) {
+            return minutes[stop] == UNKNOWN ? Integer.MAX_VALUE : minutes[stop] % MINUTES_PER_DAY;
+        }
+
+        /**
+         * Whether the train calls at the stop on the given date, allowing for stops
+         * reached after midnight of the day it left its origin
+         */
+        boolean runsOn(LocalDate date, int stop) {
+            if (date == null) {
+                return true;
+            }
+            int dayOffset = minutes[stop] == UNKNOWN ? 0 : minutes[stop] / MINUTES_PER_DAY;
+            return runsFrom(date.minusDays(dayOffset));
+        }
+
+        /**
+         * Whether the train leaves its origin on the given date; no operating days means daily
+         */
+        boolean runsFrom(LocalDate originDate) {
+            return operatingDays.isEmpty() || operatingDays.contains(originDate.getDayOfWeek().name());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Train;
+import ticket.booking.interfaces.SeatInventory;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A train's sellable seats as one long[] bitset per coach, derived from its Train.seats
+ * template, plus the number of segments between its stops. Shared by the SeatInventory
+ * implementations; a layout is built from one version of the template and is never modified.
+ */
+final class SeatLayout {
+    final List<List<Integer>> seats;
+    final List<String> stations;
+    final long[][] sellable;
+    final int[] widths;
+    final int words;
+    final int segments;
+
+    SeatLayout(Train train) {
+        this.seats = train.getSeats();
+        this.stations = train.getStations();
+        this.segments = SeatInventory.segmentCount(train);
+        List<List<Integer>> rows = seats != null ? seats : Collections.emptyList();
+        int widest = 0;
+        for (List<Integer> row : rows) {
+            widest = Math.max(widest, row != null ? row.size() : 0);
+        }
+        this.words = Math.max(1, (widest + 63) >>> 6);
+        this.sellable = new long[rows.size()][words];
+        this.widths = new int[rows.size()];
+        for (int coach = 0; coach < rows.size(); coach++) {
+            List<Integer> row = rows.get(coach);
+            if (row == null) {
+                continue;
+            }
+            widths[coach] = row.size();
+            for (int seat = 0; seat < row.size(); seat++) {
+                Integer value = row.get(seat);
+                if (value != null && value == 1) {
+                    sellable[coach][seat >>> 6] |= 1L << seat;
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether this layout was built from the train's current seat template and station list
+     */
+    boolean isCurrentFor(Train train) {
+        return seats == train.getSeats() && stations == train.getStations();
+    }
+
+    boolean contains(int coach, int seat) {
+        return coach >= 0 && coach < widths.length && seat >= 0 && seat < widths[coach];
+    }
+
+    boolean containsRange(int fromStop, int toStop) {
+        return fromStop >= 0 && fromStop < toStop && toStop <= segments;
+    }
+
+    /**
+     * Pick seats for a group from the free seats of a departure, preferring in order: the first
+     * run of count adjacent seats in one coach, the first coach with count free seats, and
+     * finally the lowest free seats coach by coach
+     * @param free Free seats over the journey's range as [coach][word] bitsets
+     * @param count Number of seats wanted
+     * @return {coach, seat} pairs in seat order, or null if fewer than count seats are free
+     */
+    int[][] chooseGroup(long[][] free, int count) {
+        for (int coach = 0; coach < free.length; coach++) {
+            int run = 0;
+            for (int seat = 0; seat < widths[coach]; seat++) {
+                run = isSet(free[coach], seat) ? run + 1 : 0;
+                if (run == count) {
+                    int[][] group = new int[count][];
+                    for (int i = 0; i < count; i++) {
+                        group[i] = new int[] {coach, seat - count + 1 + i};
+                    }
+                    return group;
+                }
+            }
+        }
+        for (int coach = 0; coach < free.length; coach++) {
+            if (bitCount(free[coach]) >= count) {
+                return lowestFree(free, coach, coach + 1, count);
+            }
+        }
+        return lowestFree(free, 0, free.length, count);
+    }
+
+    private int[][] lowestFree(long[][] free, int fromCoach, int toCoach, int count) {
+        int[][] group = new int[count][];
+        int taken = 0;
+        for (int coach = fromCoach; coach < toCoach && taken < count; coach++) {
+            for (int word = 0; word < free[coach].length && taken < count; word++) {
+                long bits = free[coach][word];
+                while (bits != 0 && taken < count) {
+                    group[taken++] = new int[] {coach, (word << 6) + Long.numberOfTrailingZeros(bits)};
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return taken == count ? group : null;
+    }
+
+    private static boolean isSet(long[] bits, int seat) {
+        int word = seat >>> 6;
+        return word < bits.length && (bits[word] & (1L << seat)) != 0;
+    }
+
+    private static int bitCount(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,284 @@
+package ticket.booking.localDb;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Logged-in sessions, keyed by an unguessable random token and by user ID.
+ * A session is a small record (token, user ID, timestamps), never the User itself.
+ * Lookups are single ConcurrentHashMap reads. A session ends IDLE_TTL after it was last
+ * used or ABSOLUTE_TTL after it was created, whichever comes first; configure with
+ * -Dbooking.session.idleMinutes and -Dbooking.session.absoluteMinutes.
+ * Lookups check expiry themselves, and a hashed timer wheel evicts sessions nobody asks for
+ * again: each session sits in the slot of its deadline, and the wheel thread visits one slot
+ * per tick, dropping sessions that have expired and moving touched ones to their new slot,
+ * so touching a session is just a timestamp write.
+ * A user has at most one session; logging in again replaces the previous one.
+ * Time comes from an injectable clock, so tests can drive expiry and the wheel by hand.
+ */
+public class SessionStore {
+    private static final long IDLE_TTL_MILLIS =
+        TimeUnit.MINUTES.toMillis(Long.getLong("booking.session.idleMinutes", 30));
+    private static final long ABSOLUTE_TTL_MILLIS =
+        TimeUnit.MINUTES.toMillis(Long.getLong("booking.session.absoluteMinutes", 12 * 60));
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 512;
+    private static final int TOKEN_BYTES = 32;
+
+    private static final SecureRandom random = new SecureRandom();
+    private static final Base64.Encoder tokenEncoder = Base64.getUrlEncoder().withoutPadding();
+
+    private final long idleTtlMillis;
+    private final long absoluteTtlMillis;
+    private final long tickMillis;
+    private final LongSupplier clock;
+    private final Map<String, Session> byToken = new ConcurrentHashMap<>();
+    private final Map<String, Session> byUser = new ConcurrentHashMap<>();
+    private final List<Queue<Session>> wheel;
+    private final long startedAt;
+    // Written only by the wheel thread
+    private volatile long currentTick;
+    // Null when the caller turns the wheel itself
+    private final ScheduledExecutorService timer;
+
+    /**
+     * One logged-in session
+     */
+    public static final class Session {
+        private final String token;
+        private final String userId;
+        private final long createdAt;
+        private volatile long lastAccessedAt;
+
+        private Session(String token, String userId, long now) {
+            this.token = token;
+            this.userId = userId;
+            this.createdAt = now;
+            this.lastAccessedAt = now;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        /**
+         * @return Epoch milliseconds
+         */
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        /**
+         * @return Epoch milliseconds
+         */
+        public long getLastAccessedAt() {
+            return lastAccessedAt;
+        }
+    }
+
+    public SessionStore() {
+        this(IDLE_TTL_MILLIS, ABSOLUTE_TTL_MILLIS, TICK_MILLIS, WHEEL_SLOTS);
+    }
+
+    /**
+     * @param idleTtlMillis How long an unused session lives
+     * @param absoluteTtlMillis How long any session lives
+     * @param tickMillis How often the wheel advances one slot; eviction is at most this late
+     * @param wheelSlots Number of slots, a power of two; deadlines further away than a full
+     *                   turn simply wait in their slot for later turns
+     */
+    public SessionStore(long idleTtlMillis, long absoluteTtlMillis, long tickMillis, int wheelSlots) {
+        this(idleTtlMillis, absoluteTtlMillis, tickMillis, wheelSlots, System::currentTimeMillis, true);
+    }
+
+    /**
+     * A store on a caller-supplied clock whose wheel turns only when advance() is called,
+     * once per tickMillis of that clock; for tests
+     * @param clock Current time in epoch milliseconds
+     */
+    SessionStore(long idleTtlMillis, long absoluteTtlMillis, long tickMillis, int wheelSlots, LongSupplier clock) {
+        this(idleTtlMillis, absoluteTtlMillis, tickMillis, wheelSlots, clock, false);
+    }
+
+    private SessionStore(long idleTtlMillis, long absoluteTtlMillis, long tickMillis, int wheelSlots,
+                         LongSupplier clock, boolean startTimer) {
+        if (Integer.bitCount(wheelSlots) != 1) {
+            throw new IllegalArgumentException("wheelSlots must be a power of two: " + wheelSlots);
+        }
+        this.idleTtlMillis = idleTtlMillis;
+        this.absoluteTtlMillis = absoluteTtlMillis;
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        this.wheel = new ArrayList<>(wheelSlots);
+        for (int i = 0; i < wheelSlots; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+        this.startedAt = clock.getAsLong();
+        if (!startTimer) {
+            this.timer = null;
+            return;
+        }
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start a session for a user, ending any session they already had
+     * @return The new session; hand its token to the client
+     */
+    public Session create(String userId) {
+        Session session = new Session(newToken(), userId, clock.getAsLong());
+        byToken.put(session.token, session);
+        Session previous = byUser.put(userId, session);
+        if (previous != null) {
+            byToken.remove(previous.token);
+        }
+        schedule(session);
+        return session;
+    }
+
+    /**
+     * Look up a live session by token and mark it used
+     * @return The session, or null if the token is unknown or the session has expired
+     */
+    public Session get(String token) {
+        Session session = token != null ? byToken.get(token) : null;
+        return touch(session);
+    }
+
+    /**
+     * Look up a user's live session and mark it used
+     * @return The session, or null if the user has none
+     */
+    public Session getByUserId(String userId) {
+        Session session = userId != null ? byUser.get(userId) : null;
+        return touch(session);
+    }
+
+    /**
+     * End a session by token
+     * @return true if there was one
+     */
+    public boolean invalidate(String token) {
+        Session session = token != null ? byToken.get(token) : null;
+        return session != null && remove(session);
+    }
+
+    /**
+     * End the user's session, if any
+     * @return true if they had one
+     */
+    public boolean invalidateUser(String userId) {
+        Session session = userId != null ? byUser.get(userId) : null;
+        return session != null && remove(session);
+    }
+
+    /**
+     * When the session will end unless it is used again
+     * @return Epoch milliseconds
+     */
+    public long expiresAt(Session session) {
+        return Math.min(session.lastAccessedAt + idleTtlMillis, session.createdAt + absoluteTtlMillis);
+    }
+
+    /**
+     * Sessions currently held, including expired ones the wheel has not reached yet
+     */
+    public int size() {
+        return byToken.size();
+    }
+
+    public void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Visit the next slot: evict expired sessions, and re-slot the ones that were touched
+     * (or are due on a later turn). Only the sessions present when the visit starts are looked
+     * at, so re-slotting into the same slot does not loop. Run by the wheel thread every tick,
+     * or by the caller of a store built on its own clock.
+     */
+    void advance() {
+        try {
+            long tick = currentTick + 1;
+            currentTick = tick;
+            Queue<Session> slot = wheel.get((int) (tick & (wheel.size() - 1)));
+            long now = clock.getAsLong();
+            for (int remaining = slot.size(); remaining > 0; remaining--) {
+                Session session = slot.poll();
+                if (session == null) {
+                    break;
+                }
+                if (byToken.get(session.token) != session) {
+                    continue; // Logged out or replaced
+                }
+                if (isExpired(session, now)) {
+                    remove(session);
+                } else {
+                    schedule(session);
+                }
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace(); // Keep the wheel turning
+        }
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private Session touch(Session session) {
+        if (session == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (isExpired(session, now)) {
+            remove(session);
+            return null;
+        }
+        session.lastAccessedAt = now;
+        return session;
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now >= expiresAt(session);
+    }
+
+    /**
+     * Remove a session from both maps, leaving any newer session of the same user alone
+     * @return true if this call removed it
+     */
+    private boolean remove(Session session) {
+        byUser.remove(session.userId, session);
+        return byToken.remove(session.token, session);
+    }
+
+    private void schedule(Session session) {
+        long deadlineTick = Math.max(currentTick + 1, (expiresAt(session) - startedAt + tickMillis - 1) / tickMillis);
+        wheel.get((int) (deadlineTick & (wheel.size() - 1))).add(session);
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return tokenEncoder.encodeToString(bytes);
+    }
+}
@@ -0,0 +1,274 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.TicketStatus;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Running booking and revenue totals over a set of tickets, bucketed per travel day,
+ * per train and per user, and split by status.
+ * Totals are adjusted as tickets are added and removed, so statistics never scan tickets.
+ * Travel days are also kept in a Fenwick tree (binary indexed tree) over a window of epoch
+ * days, so a date range is the difference of two prefix sums, O(log days) however long it is.
+ * The window grows to take in new dates up to MAX_WINDOW_DAYS wide; the odd day beyond that
+ * is summed from its own bucket. A train or user is a single lookup.
+ * Like TicketIndex, a ticket must be removed before any of its bucketed fields (travel date,
+ * trainId, userId, status, price) change and added again afterwards.
+ */
+public class TicketAggregates {
+    private static final int INITIAL_WINDOW_DAYS = 1 << 10;
+    private static final int MAX_WINDOW_DAYS = 1 << 15;
+
+    // Exact per-day totals; the tree is rebuilt from them when its window moves
+    private final NavigableMap<Integer, Totals> byDay = new TreeMap<>();
+    private final DayTree dayTree = new DayTree();
+    private final Map<String, Totals> byTrain = new HashMap<>();
+    private final Map<String, Totals> byUser = new HashMap<>();
+
+    /**
+     * Ticket counts and revenue, in minor units, per status. Tickets without a known status
+     * are counted in the totals but under no status.
+     */
+    public static final class Totals {
+        private final long[] counts = new long[TicketStatus.count()];
+        private final long[] revenue = new long[TicketStatus.count()];
+        private long count;
+        private long totalRevenue;
+
+        public long count() {
+            return count;
+        }
+
+        public long count(TicketStatus status) {
+            return counts[status.ordinal()];
+        }
+
+        public long revenue() {
+            return totalRevenue;
+        }
+
+        public long revenue(TicketStatus status) {
+            return revenue[status.ordinal()];
+        }
+
+        private void apply(Ticket ticket, int sign) {
+            long price = ticket.getPriceInMinorUnits();
+            count += sign;
+            totalRevenue += sign * price;
+            TicketStatus status = ticket.getStatus();
+            if (status != null) {
+                counts[status.ordinal()] += sign;
+                revenue[status.ordinal()] += sign * price;
+            }
+        }
+
+        private void addAll(Totals other) {
+            count += other.count;
+            totalRevenue += other.totalRevenue;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+                revenue[i] += other.revenue[i];
+            }
+        }
+
+        private Totals copy() {
+            Totals copy = new Totals();
+            copy.addAll(this);
+            return copy;
+        }
+    }
+
+    public void add(Ticket ticket) {
+        apply(ticket, 1);
+    }
+
+    public void remove(Ticket ticket) {
+        apply(ticket, -1);
+    }
+
+    /**
+     * Totals for tickets travelling between the two dates, both inclusive; tickets without
+     * a valid travel date are left out, as in TicketIndex.getByDateRange
+     */
+    public Totals between(LocalDate startDate, LocalDate endDate) {
+        Totals sum = new Totals();
+        if (startDate.isAfter(endDate)) {
+            return sum;
+        }
+        int first = (int) startDate.toEpochDay();
+        int last = (int) endDate.toEpochDay();
+        if (dayTree.isEmpty() || last < dayTree.firstDay || first > dayTree.lastDay()) {
+            addDays(sum, first, last);
+            return sum;
+        }
+        int from = Math.max(first, dayTree.firstDay);
+        int to = Math.min(last, dayTree.lastDay());
+        dayTree.addRange(sum, from, to);
+        if (first < from) {
+            addDays(sum, first, from - 1);
+        }
+        if (last > to) {
+            addDays(sum, to + 1, last);
+        }
+        return sum;
+    }
+
+    public Totals forTrain(String trainId) {
+        return copyOf(byTrain.get(trainId));
+    }
+
+    public Totals forUser(String userId) {
+        return copyOf(byUser.get(userId));
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private void apply(Ticket ticket, int sign) {
+        if (ticket.hasTravelDate()) {
+            int day = ticket.getTravelDay();
+            apply(byDay, day, ticket, sign);
+            if (dayTree.covers(day)) {
+                dayTree.apply(day, ticket, sign);
+            } else {
+                dayTree.grow(day, byDay); // Refilled from the buckets, which already count this ticket
+            }
+        }
+        apply(byTrain, ticket.getTrainId(), ticket, sign);
+        apply(byUser, ticket.getUserId(), ticket, sign);
+    }
+
+    private static <K> void apply(Map<K, Totals> buckets, K key, Ticket ticket, int sign) {
+        if (key == null) {
+            return;
+        }
+        Totals totals = buckets.computeIfAbsent(key, k -> new Totals());
+        totals.apply(ticket, sign);
+        if (totals.count == 0) {
+            buckets.remove(key);
+        }
+    }
+
+    /**
+     * Add the buckets of days outside the tree's window
+     */
+    private void addDays(Totals sum, int first, int last) {
+        for (Totals day : byDay.subMap(first, true, last, true).values()) {
+            sum.addAll(day);
+        }
+    }
+
+    private static Totals copyOf(Totals totals) {
+        return totals != null ? totals.copy() : new Totals();
+    }
+
+    /**
+     * Fenwick tree of Totals over the days firstDay .. firstDay + size - 1. Node i (1-based)
+     * holds the sum of the i & -i days ending at day i, flattened into one long array of
+     * WIDTH values per node: count, revenue, then the counts and the revenue per status.
+     */
+    private static final class DayTree {
+        private static final int STATUSES = TicketStatus.count();
+        private static final int WIDTH = 2 + 2 * STATUSES;
+
+        private int firstDay;
+        private int size;
+        private long[] nodes;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int lastDay() {
+            return firstDay + size - 1;
+        }
+
+        boolean covers(int day) {
+            return size > 0 && day >= firstDay && (long) day - firstDay < size;
+        }
+
+        /**
+         * Widen the window to take in the day and refill it from the exact per-day buckets;
+         * a day that would make it wider than MAX_WINDOW_DAYS is left outside
+         */
+        void grow(int day, NavigableMap<Integer, Totals> byDay) {
+            long start;
+            long width;
+            if (size == 0) {
+                start = (long) day - INITIAL_WINDOW_DAYS / 2;
+                width = INITIAL_WINDOW_DAYS;
+            } else {
+                start = Math.min(firstDay, day);
+                long end = Math.max((long) firstDay + size, (long) day + 1);
+                width = size;
+                while (width < end - start) {
+                    width *= 2;
+                }
+                if (width > MAX_WINDOW_DAYS) {
+                    return;
+                }
+                if (day < firstDay) {
+                    start = end - width; // Grow downwards, keeping the later days
+                }
+            }
+            start = Math.max(Integer.MIN_VALUE, Math.min(start, (long) Integer.MAX_VALUE - width + 1));
+            firstDay = (int) start;
+            size = (int) width;
+            nodes = new long[(size + 1) * WIDTH];
+            long lastDay = (long) firstDay + size - 1;
+            for (Map.Entry<Integer, Totals> bucket : byDay.subMap(firstDay, true, (int) lastDay, true).entrySet()) {
+                add(bucket.getKey() - firstDay + 1, bucket.getValue());
+            }
+        }
+
+        void apply(int day, Ticket ticket, int sign) {
+            long price = ticket.getPriceInMinorUnits();
+            TicketStatus status = ticket.getStatus();
+            for (int i = day - firstDay + 1; i <= size; i += i & -i) {
+                int node = i * WIDTH;
+                nodes[node] += sign;
+                nodes[node + 1] += sign * price;
+                if (status != null) {
+                    nodes[node + 2 + status.ordinal()] += sign;
+                    nodes[node + 2 + STATUSES + status.ordinal()] += sign * price;
+                }
+            }
+        }
+
+        /**
+         * Add the totals of the days from..to, both inside the window, to sum
+         */
+        void addRange(Totals sum, int from, int to) {
+            addPrefix(sum, to - firstDay + 1, 1);
+            addPrefix(sum, from - firstDay, -1);
+        }
+
+        private void add(int position, Totals day) {
+            for (int i = position; i <= size; i += i & -i) {
+                int node = i * WIDTH;
+                nodes[node] += day.count;
+                nodes[node + 1] += day.totalRevenue;
+                for (int s = 0; s < STATUSES; s++) {
+                    nodes[node + 2 + s] += day.counts[s];
+                    nodes[node + 2 + STATUSES + s] += day.revenue[s];
+                }
+            }
+        }
+
+        /**
+         * Add sign times the totals of the first `position` days of the window to sum
+         */
+        private void addPrefix(Totals sum, int position, int sign) {
+            for (int i = position; i > 0; i -= i & -i) {
+                int node = i * WIDTH;
+                sum.count += sign * nodes[node];
+                sum.totalRevenue += sign * nodes[node + 1];
+                for (int s = 0; s < STATUSES; s++) {
+                    sum.counts[s] += sign * nodes[node + 2 + s];
+                    sum.revenue[s] += sign * nodes[node + 2 + STATUSES + s];
+                }
+            }
+        }
+    }
+}
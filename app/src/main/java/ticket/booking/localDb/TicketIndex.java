@@ -0,0 +1,180 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.TicketStatus;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Incrementally maintained secondary indexes over a set of tickets:
+ * status, trainId, (source, destination) and travel date.
+ * Each bucket maps ticketId to ticket so removal is O(1) and insertion order is kept.
+ * Indexed fields must not be changed while a ticket is indexed: call remove(),
+ * mutate the ticket, then add() it again.
+ * Status buckets live in an EnumMap, and TicketAggregates keeps per-day, per-train and
+ * per-user totals in step, so status filters and statistics never scan the tickets.
+ */
+public class TicketIndex {
+    private final Map<TicketStatus, Map<String, Ticket>> byStatus = new EnumMap<>(TicketStatus.class);
+    // Tickets loaded with a status that is not a TicketStatus, keyed by the stored text
+    private final Map<String, Map<String, Ticket>> byOtherStatus = new HashMap<>();
+    private final Map<String, Map<String, Ticket>> byTrain = new HashMap<>();
+    private final Map<String, Map<String, Ticket>> byRoute = new HashMap<>();
+    // Keyed by epoch day
+    private final NavigableMap<Integer, Map<String, Ticket>> byDate = new TreeMap<>();
+    private final Map<String, Ticket> all = new LinkedHashMap<>();
+    private final TicketAggregates aggregates = new TicketAggregates();
+
+    /**
+     * Index a ticket, first dropping any ticket indexed under the same ID from every bucket
+     */
+    public void add(Ticket ticket) {
+        Ticket replaced = all.get(ticket.getTicketId());
+        if (replaced != null) {
+            remove(replaced);
+        }
+        all.put(ticket.getTicketId(), ticket);
+        aggregates.add(ticket);
+        TicketStatus status = ticket.getStatus();
+        if (status != null) {
+            put(byStatus, status, ticket);
+        } else {
+            put(byOtherStatus, ticket.getTicketStatus(), ticket);
+        }
+        put(byTrain, trainKey(ticket), ticket);
+        put(byRoute, routeKey(ticket.getSource(), ticket.getDestination()), ticket);
+        if (ticket.hasTravelDate()) { // Tickets with invalid dates are left out of range scans
+            put(byDate, ticket.getTravelDay(), ticket);
+        }
+    }
+
+    public void remove(Ticket ticket) {
+        if (all.remove(ticket.getTicketId()) == null) {
+            return;
+        }
+        aggregates.remove(ticket);
+        TicketStatus status = ticket.getStatus();
+        if (status != null) {
+            take(byStatus, status, ticket);
+        } else {
+            take(byOtherStatus, ticket.getTicketStatus(), ticket);
+        }
+        take(byTrain, trainKey(ticket), ticket);
+        take(byRoute, routeKey(ticket.getSource(), ticket.getDestination()), ticket);
+        if (ticket.hasTravelDate()) {
+            take(byDate, ticket.getTravelDay(), ticket);
+        }
+    }
+
+    public Ticket get(String ticketId) {
+        return all.get(ticketId);
+    }
+
+    /**
+     * Live read-only view of every indexed ticket, for callers that must not pay for a copy
+     */
+    public Collection<Ticket> values() {
+        return Collections.unmodifiableCollection(all.values());
+    }
+
+    public List<Ticket> getAll() {
+        return new ArrayList<>(all.values());
+    }
+
+    /**
+     * Tickets with the given stored status, which may also be one that is not a TicketStatus
+     */
+    public List<Ticket> getByStatus(String status) {
+        TicketStatus known = TicketStatus.fromName(status);
+        return copy(known != null ? byStatus.get(known) : byOtherStatus.get(status));
+    }
+
+    public List<Ticket> getByTrainId(String trainId) {
+        return copy(byTrain.get(trainId));
+    }
+
+    public List<Ticket> getByRoute(String source, String destination) {
+        return copy(byRoute.get(routeKey(source, destination)));
+    }
+
+    /**
+     * Tickets travelling between the two dates, both inclusive, in date order
+     */
+    public List<Ticket> getByDateRange(LocalDate startDate, LocalDate endDate) {
+        List<Ticket> tickets = new ArrayList<>();
+        if (startDate.isAfter(endDate)) {
+            return tickets;
+        }
+        int first = (int) startDate.toEpochDay();
+        int last = (int) endDate.toEpochDay();
+        for (Map<String, Ticket> bucket : byDate.subMap(first, true, last, true).values()) {
+            tickets.addAll(bucket.values());
+        }
+        return tickets;
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    public int countByStatus(String status) {
+        TicketStatus known = TicketStatus.fromName(status);
+        return count(known != null ? byStatus.get(known) : byOtherStatus.get(status));
+    }
+
+    /**
+     * Running totals over the indexed tickets
+     */
+    public TicketAggregates aggregates() {
+        return aggregates;
+    }
+
+    public int countByTrainId(String trainId) {
+        return count(byTrain.get(trainId));
+    }
+
+    public int countByRoute(String source, String destination) {
+        return count(byRoute.get(routeKey(source, destination)));
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static <K> void put(Map<K, Map<String, Ticket>> index, K key, Ticket ticket) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(ticket.getTicketId(), ticket);
+        }
+    }
+
+    private static <K> void take(Map<K, Map<String, Ticket>> index, K key, Ticket ticket) {
+        if (key == null) {
+            return;
+        }
+        Map<String, Ticket> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(ticket.getTicketId());
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static List<Ticket> copy(Map<String, Ticket> bucket) {
+        return bucket != null ? new ArrayList<>(bucket.values()) : new ArrayList<>();
+    }
+
+    private static int count(Map<String, Ticket> bucket) {
+        return bucket != null ? bucket.size() : 0;
+    }
+
+    private static String trainKey(Ticket ticket) {
+        return ticket.getTrainId();
+    }
+
+    private static String routeKey(String source, String destination) {
+        if (source == null || destination == null) {
+            return null;
+        }
+        return source.toLowerCase(Locale.ROOT) + '\u0000' + destination.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,39 +1,365 @@
 package ticket.booking.localDb;
 
 import ticket.booking.entities.Ticket;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.entities.TicketStatus;
+import ticket.booking.entities.Train;
+
+import com.google.common.util.concurrent.Striped;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
- * Handles persistent storage and retrieval of Ticket objects from tickets.json
+ * The in-memory ticket store shared by every service, and its persistence to tickets.json.
+ * Tickets are loaded once into a TicketIndex; every change goes through this class so the
+ * index, its aggregates and the file stay in step, and a change made through one service is
+ * seen by all of them. Like UserRepository, changes are journaled to tickets.journal unless
+ * -Dbooking.persistence=snapshot is set, and the snapshot may be the binary tickets.bin.
+ * Only one instance may be open per file, in this or any other process; the journal's lock
+ * refuses a second. Use shared() unless the paths are your own.
  */
 public class TicketRepository {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final String TICKETS_FILE_PATH = "app/src/main/resources/tickets.json";
+    private static final int COMPACT_THRESHOLD = 1000;
+    private static final int LOCK_STRIPES = 256;
+    private static final boolean JOURNAL_ENABLED =
+        !"snapshot".equalsIgnoreCase(System.getProperty("booking.persistence"));
+    private static TicketRepository shared;
+
+    private final String filePath;
+    private final String binaryPath;
+    private final Journal<Ticket> journal;
+    // Guarded by this
+    private final TicketIndex tickets = new TicketIndex();
+    private final Striped<Lock> ticketLocks = Striped.lock(LOCK_STRIPES);
+
+    /**
+     * The store over the data directory's tickets.json, opened on first use and shared by
+     * every caller in this JVM, so two stores never journal to the same file
+     */
+    public static synchronized TicketRepository shared() {
+        if (shared == null) {
+            shared = new TicketRepository(DataDirectory.file("tickets.json"), DataDirectory.file("tickets.journal"));
+        }
+        return shared;
+    }
+
+    /**
+     * Open the store and load every ticket from the snapshot and journal
+     * @param filePath The tickets.json snapshot
+     * @param journalPath The journal of changes made since the snapshot
+     */
+    public TicketRepository(String filePath, String journalPath) {
+        this.filePath = filePath;
+        this.binaryPath = BinarySnapshot.binaryPath(filePath);
+        this.journal = new Journal<>(journalPath, Ticket.class);
+        try {
+            for (Ticket ticket : loadTicketsFromFile()) {
+                tickets.add(ticket);
+            }
+        } catch (RuntimeException e) {
+            journal.close(); // Do not keep the files locked for a store that failed to open
+            throw e;
+        }
+    }
+
+    public List<Ticket> loadTicketsFromFile() {
+        return loadTicketsFromFile(RecordReader.ALL_TICKET_FIELDS);
+    }
+
+    /**
+     * Read tickets from the files, reading only the given properties from the tickets.json
+     * snapshot, see UserRepository.loadUsersFromFile(Set). The result is a fresh copy that
+     * is not part of the store.
+     * @param fields tickets.json property names
+     */
+    public synchronized List<Ticket> loadTicketsFromFile(Set<String> fields) {
+        Map<String, Ticket> loaded = new LinkedHashMap<>();
+        for (Ticket ticket : loadSnapshot(fields)) {
+            loaded.put(ticket.getTicketId(), ticket);
+        }
+        journal.replay((op, id, value) -> {
+            if (Journal.PUT.equals(op)) {
+                loaded.put(id, value);
+            } else {
+                loaded.remove(id);
+            }
+        });
+        return new ArrayList<>(loaded.values());
+    }
+
+    // ==================== QUERIES ====================
+
+    public synchronized Ticket get(String ticketId) {
+        return ticketId != null ? tickets.get(ticketId) : null;
+    }
+
+    /**
+     * Look up a ticket and attach its Train on first lookup, under the store's lock, since
+     * the ticket object is shared by every service
+     * @param trains Resolves a trainId, e.g. TrainCatalog::getTrain
+     */
+    public synchronized Ticket getWithTrain(String ticketId, Function<String, Train> trains) {
+        Ticket ticket = get(ticketId);
+        if (ticket != null && ticket.getTrain() == null && ticket.getTrainId() != null) {
+            ticket.setTrain(trains.apply(ticket.getTrainId()));
+        }
+        return ticket;
+    }
+
+    public synchronized List<Ticket> getAll() {
+        return tickets.getAll();
+    }
+
+    public synchronized List<Ticket> getByStatus(String status) {
+        return tickets.getByStatus(status);
+    }
+
+    public synchronized List<Ticket> getByTrainId(String trainId) {
+        return tickets.getByTrainId(trainId);
+    }
+
+    public synchronized List<Ticket> getByRoute(String source, String destination) {
+        return tickets.getByRoute(source, destination);
+    }
+
+    public synchronized List<Ticket> getByDateRange(LocalDate startDate, LocalDate endDate) {
+        return tickets.getByDateRange(startDate, endDate);
+    }
+
+    public synchronized int size() {
+        return tickets.size();
+    }
+
+    public synchronized int countByStatus(String status) {
+        return tickets.countByStatus(status);
+    }
+
+    public synchronized int countByTrainId(String trainId) {
+        return tickets.countByTrainId(trainId);
+    }
+
+    public synchronized int countByRoute(String source, String destination) {
+        return tickets.countByRoute(source, destination);
+    }
+
+    /**
+     * Totals for tickets travelling between the two dates, both inclusive
+     */
+    public synchronized TicketAggregates.Totals totalsBetween(LocalDate startDate, LocalDate endDate) {
+        return tickets.aggregates().between(startDate, endDate);
+    }
+
+    public synchronized TicketAggregates.Totals totalsForUser(String userId) {
+        return tickets.aggregates().forUser(userId);
+    }
+
+    public synchronized TicketAggregates.Totals totalsForTrain(String trainId) {
+        return tickets.aggregates().forTrain(trainId);
+    }
+
+    /**
+     * Lock to hold while checking a ticket and moving its seat. Every service over this store
+     * takes the same lock for the same ticket ID, so two changes to one ticket (a cancel and a
+     * reschedule, or two cancels) never both pass their checks. Re-read the ticket once the
+     * lock is held; it may have been replaced or deleted meanwhile.
+     */
+    public Lock lockFor(String ticketId) {
+        return ticketLocks.get(ticketId);
+    }
 
-    public static List<Ticket> loadTicketsFromFile() {
+    // ==================== CHANGES ====================
+
+    /**
+     * Add a ticket, or replace the stored ticket with the same ID
+     * @return Completes once the change is on disk; the change is already visible either way
+     */
+    public synchronized CompletableFuture<Void> save(Ticket ticket) {
+        Ticket existing = tickets.get(ticket.getTicketId());
+        if (existing != null) {
+            tickets.remove(existing);
+        }
+        tickets.add(ticket);
+        return recordSaved(ticket);
+    }
+
+    /**
+     * Add several tickets, e.g. a group booking, with a single write: one journal batch, or
+     * one snapshot in snapshot mode
+     * @return Completes once all of them are on disk
+     */
+    public synchronized CompletableFuture<Void> saveAll(Collection<Ticket> group) {
+        Map<String, Ticket> records = new LinkedHashMap<>();
+        for (Ticket ticket : group) {
+            Ticket existing = tickets.get(ticket.getTicketId());
+            if (existing != null) {
+                tickets.remove(existing);
+            }
+            tickets.add(ticket);
+            records.put(ticket.getTicketId(), ticket);
+        }
+        if (!JOURNAL_ENABLED) {
+            return snapshot();
+        }
+        try {
+            CompletableFuture<Void> durable = journal.appendPuts(records);
+            compactIfNeeded();
+            return durable;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Change a stored ticket in place, keeping the indexes and totals in step
+     * @param ticket A ticket in this store
+     * @param change Applied to the ticket while it is out of the indexes
+     * @return Completes once the change is on disk
+     */
+    public synchronized CompletableFuture<Void> update(Ticket ticket, Consumer<Ticket> change) {
+        tickets.remove(ticket);
+        try {
+            change.accept(ticket);
+        } finally {
+            tickets.add(ticket);
+        }
+        return recordSaved(ticket);
+    }
+
+    /**
+     * Move a stored ticket to a new status
+     */
+    public CompletableFuture<Void> updateStatus(Ticket ticket, TicketStatus status) {
+        return update(ticket, t -> t.setStatus(status));
+    }
+
+    /**
+     * Remove a ticket
+     * @return The removed ticket, or null if there was none with this ID
+     */
+    public synchronized Ticket delete(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null) {
+            return null;
+        }
+        tickets.remove(ticket);
+        recordDeleted(ticketId);
+        return ticket;
+    }
+
+    /**
+     * Future that completes once every change recorded so far is on disk
+     */
+    public CompletableFuture<Void> whenDurable() {
+        return journal.whenDurable();
+    }
+
+    /**
+     * Write a full snapshot of the store and discard the journal it supersedes
+     * @throws UncheckedIOException If the snapshot could not be written; the journal is then kept
+     */
+    public synchronized void saveTicketsToFile() {
+        Collection<Ticket> all = tickets.values();
         try {
-            File file = new File(TICKETS_FILE_PATH);
-            if (!file.exists()) {
-                return new ArrayList<>();
+            if (BinarySnapshot.isEnabled()) {
+                BinarySnapshot.writeTickets(binaryPath, all);
+                journal.truncate();
+                return;
             }
-            return objectMapper.readValue(file, new TypeReference<List<Ticket>>() {});
+            AtomicFiles.write(filePath, out -> JsonCodecs.TICKET_LIST_WRITER.writeValue(out, all));
+            journal.truncate();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flush the journal and release its lock; the store must not be used afterwards
+     */
+    public void close() {
+        journal.close();
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private CompletableFuture<Void> recordSaved(Ticket ticket) {
+        if (!JOURNAL_ENABLED) {
+            return snapshot();
+        }
+        try {
+            CompletableFuture<Void> durable = journal.appendPut(ticket.getTicketId(), ticket);
+            compactIfNeeded();
+            return durable;
         } catch (IOException e) {
             e.printStackTrace();
-            return new ArrayList<>();
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    public static void saveTicketsToFile(List<Ticket> tickets) {
+    private CompletableFuture<Void> recordDeleted(String ticketId) {
+        if (!JOURNAL_ENABLED) {
+            return snapshot();
+        }
         try {
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(TICKETS_FILE_PATH), tickets);
+            CompletableFuture<Void> durable = journal.appendDelete(ticketId);
+            compactIfNeeded();
+            return durable;
         } catch (IOException e) {
             e.printStackTrace();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Write the whole store when journaling is off, as the only copy of the change
+     */
+    private CompletableFuture<Void> snapshot() {
+        try {
+            saveTicketsToFile();
+            return CompletableFuture.completedFuture(null);
+        } catch (UncheckedIOException e) {
+            return CompletableFuture.failedFuture(e.getCause());
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (journal.size() >= COMPACT_THRESHOLD) {
+            try {
+                saveTicketsToFile();
+            } catch (UncheckedIOException e) {
+                // The records are safe in the journal, which was not truncated; the next write retries
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Read tickets.json or tickets.bin, falling back to the backup copy, see UserRepository
+     */
+    private List<Ticket> loadSnapshot(Set<String> fields) {
+        try {
+            List<Ticket> loaded;
+            if (BinarySnapshot.isPreferred(filePath)) {
+                loaded = AtomicFiles.read(binaryPath, file -> BinarySnapshot.readTickets(file.getPath()),
+                    Throwable::printStackTrace);
+            } else {
+                loaded = AtomicFiles.read(filePath, file -> {
+                    List<Ticket> read = new ArrayList<>();
+                    if (file.length() > 0) {
+                        new RecordReader(JsonCodecs.MAPPER.getFactory(), fields).readTickets(file, read::add);
+                    }
+                    return read;
+                }, Throwable::printStackTrace);
+            }
+            return loaded != null ? loaded : new ArrayList<>();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 }
@@ -0,0 +1,208 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Train;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resident, change-aware copy of trains.json.
+ * The file is parsed once and only re-read when its modification time or size changes,
+ * so lookups are served from memory instead of re-parsing the whole file.
+ * The binary trains.bin is watched as well and loaded instead when it is the newer
+ * of the two, see BinarySnapshot.
+ */
+public class TrainCatalog {
+    private static final long CHECK_INTERVAL_NANOS = 500_000_000L;
+
+    private final Path path;
+    private final Path binaryPath;
+    private List<Train> trainList = new ArrayList<>();
+    private Map<String, Train> trainsById = new HashMap<>();
+    private long loadedModified = Long.MIN_VALUE;
+    private long loadedSize = -1;
+    private long lastCheck;
+    private boolean loaded;
+    private long version;
+
+    public TrainCatalog(String filePath) {
+        this.path = new File(filePath).toPath();
+        this.binaryPath = new File(BinarySnapshot.binaryPath(filePath)).toPath();
+        refreshIfChanged();
+    }
+
+    /**
+     * Re-read the file if it changed on disk since it was last loaded or written.
+     * The check itself is throttled so bursts of reads cost at most one stat call.
+     * @return true if the catalog was reloaded
+     */
+    public synchronized boolean refreshIfChanged() {
+        long now = System.nanoTime();
+        if (loaded && now - lastCheck < CHECK_INTERVAL_NANOS) {
+            return false;
+        }
+        lastCheck = now;
+
+        long modified;
+        long size;
+        try {
+            long[] json = stamp(path);
+            long[] binary = stamp(binaryPath);
+            modified = Math.max(json[0], binary[0]);
+            size = json[1] * 31 + binary[1];
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        if (loaded && modified == loadedModified && size == loadedSize) {
+            return false;
+        }
+        try {
+            setTrains(loadTrainsFromFile());
+        } catch (IOException e) {
+            if (!loaded) {
+                throw new UncheckedIOException(e);
+            }
+            // Keep serving the trains already loaded rather than an empty catalog
+            e.printStackTrace();
+        }
+        loadedModified = modified;
+        loadedSize = size;
+        loaded = true;
+        return true;
+    }
+
+    /**
+     * The returned list is a read-only snapshot; mutators swap in a new list
+     * rather than editing the one handed out to readers.
+     */
+    public synchronized List<Train> getTrains() {
+        refreshIfChanged();
+        return Collections.unmodifiableList(trainList);
+    }
+
+    /**
+     * Counter bumped whenever the set of trains changes, through a reload or a local write,
+     * so callers can rebuild structures derived from getTrains() only when needed
+     */
+    public synchronized long version() {
+        refreshIfChanged();
+        return version;
+    }
+
+    public synchronized Train getTrain(String trainId) {
+        refreshIfChanged();
+        return trainsById.get(trainId);
+    }
+
+    public synchronized boolean addTrain(Train train) {
+        refreshIfChanged();
+        if (trainsById.containsKey(train.getTrainId())) {
+            return false;
+        }
+        List<Train> trains = new ArrayList<>(trainList);
+        trains.add(train);
+        trainList = trains;
+        version++;
+        trainsById.put(train.getTrainId(), train);
+        saveTrainsToFile();
+        return true;
+    }
+
+    public synchronized boolean replaceTrain(String trainId, Train updatedTrain) {
+        refreshIfChanged();
+        Train existingTrain = trainsById.get(trainId);
+        if (existingTrain == null) {
+            return false;
+        }
+        List<Train> trains = new ArrayList<>(trainList);
+        trains.replaceAll(train -> train == existingTrain ? updatedTrain : train);
+        trainList = trains;
+        version++;
+        trainsById.put(trainId, updatedTrain);
+        saveTrainsToFile();
+        return true;
+    }
+
+    public synchronized boolean removeTrain(String trainId) {
+        refreshIfChanged();
+        Train train = trainsById.remove(trainId);
+        if (train == null) {
+            return false;
+        }
+        List<Train> trains = new ArrayList<>(trainList);
+        trains.removeIf(existing -> existing == train);
+        trainList = trains;
+        version++;
+        saveTrainsToFile();
+        return true;
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private void setTrains(List<Train> trains) {
+        Map<String, Train> index = new HashMap<>();
+        for (Train train : trains) {
+            index.put(train.getTrainId(), train);
+        }
+        this.trainList = trains;
+        this.trainsById = index;
+        version++;
+    }
+
+    /**
+     * Read trains.json or trains.bin, falling back to the backup copy if it is damaged
+     */
+    private List<Train> loadTrainsFromFile() throws IOException {
+        List<Train> trains;
+        if (BinarySnapshot.isPreferred(path.toString())) {
+            trains = AtomicFiles.read(binaryPath.toString(), file -> BinarySnapshot.readTrains(file.getPath()),
+                Throwable::printStackTrace);
+        } else {
+            trains = AtomicFiles.read(path.toString(), file -> {
+                Map<String, List<Train>> data = JsonCodecs.TRAINS_DOCUMENT_READER.readValue(file);
+                return new ArrayList<>(data.getOrDefault("trains", new ArrayList<>()));
+            }, Throwable::printStackTrace);
+        }
+        return trains != null ? trains : new ArrayList<>();
+    }
+
+    private void saveTrainsToFile() {
+        try {
+            if (BinarySnapshot.isEnabled()) {
+                BinarySnapshot.writeTrains(binaryPath.toString(), trainList);
+            } else {
+                Map<String, List<Train>> data = new HashMap<>();
+                data.put("trains", trainList);
+                AtomicFiles.write(path.toString(), out -> JsonCodecs.TRAINS_DOCUMENT_WRITER.writeValue(out, data));
+            }
+            // Remember our own write so it is not mistaken for an external change
+            long[] json = stamp(path);
+            long[] binary = stamp(binaryPath);
+            loadedModified = Math.max(json[0], binary[0]);
+            loadedSize = json[1] * 31 + binary[1];
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Modification time and size of a file, or MIN_VALUE and -1 if it does not exist
+     */
+    private static long[] stamp(Path file) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new long[] {attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), attributes.size()};
+        } catch (NoSuchFileException e) {
+            return new long[] {Long.MIN_VALUE, -1};
+        }
+    }
+}
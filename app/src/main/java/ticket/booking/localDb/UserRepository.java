@@ -0,0 +1,430 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * The in-memory user store shared by every service, and its persistence to users.json.
+ * Users are loaded once, indexed by ID and email, and their bookedTicketIds are resolved to
+ * the tickets held by the TicketRepository, so a user and the ticket store share one copy of
+ * each ticket. Every change goes through this class and is seen by all services at once.
+ * In journaled mode (the default) mutations are appended to users.journal and folded
+ * into users.json once the log reaches COMPACT_THRESHOLD records.
+ * Run with -Dbooking.persistence=snapshot to rewrite users.json on every change instead.
+ * The snapshot may also be the binary users.bin, see BinarySnapshot.
+ * Only one instance may be open per file, in this or any other process; the journal's lock
+ * refuses a second. Use shared() unless the paths are your own.
+ */
+public class UserRepository {
+    private static final int COMPACT_THRESHOLD = 1000;
+    private static final boolean JOURNAL_ENABLED =
+        !"snapshot".equalsIgnoreCase(System.getProperty("booking.persistence"));
+    private static UserRepository shared;
+
+    private final String filePath;
+    private final String binaryPath;
+    private final Journal<User> journal;
+    private final TicketRepository tickets;
+    // Guarded by this; usersById keeps file order
+    private final Map<String, User> usersById = new LinkedHashMap<>();
+    private final Map<String, User> usersByEmail = new HashMap<>();
+
+    /**
+     * The store over the data directory's users.json, resolving tickets against
+     * TicketRepository.shared(); opened on first use and shared by every caller in this JVM
+     */
+    public static synchronized UserRepository shared() {
+        if (shared == null) {
+            shared = new UserRepository(DataDirectory.file("users.json"), DataDirectory.file("users.journal"),
+                TicketRepository.shared());
+        }
+        return shared;
+    }
+
+    /**
+     * Open the store, load every user and resolve their tickets.
+     * Users still carrying embedded ticket copies from the old users.json format are
+     * migrated: tickets missing from the ticket store are added to it, and the user is
+     * rewritten with ticket IDs only.
+     * A booking writes the ticket store first and the user second, to separate journals, so
+     * after a crash the two can disagree. The ticket store wins: a ticket still holding its
+     * seat is added to its user's list if missing, and IDs of tickets the store does not have
+     * are dropped. Either repair rewrites the user.
+     * @param filePath The users.json snapshot
+     * @param journalPath The journal of changes made since the snapshot
+     * @param tickets The ticket store the users' bookedTicketIds refer to
+     */
+    public UserRepository(String filePath, String journalPath, TicketRepository tickets) {
+        this.filePath = filePath;
+        this.binaryPath = BinarySnapshot.binaryPath(filePath);
+        this.journal = new Journal<>(journalPath, User.class);
+        this.tickets = tickets;
+        Map<String, User> changed = new LinkedHashMap<>(); // By ID; User's equals is by value
+        try {
+            Set<String> booked = new HashSet<>();
+            for (User user : loadUsersFromFile()) {
+                int listed = user.getBookedTicketIds().size();
+                if (user.getBookedTickets() != null) {
+                    changed.put(user.getUserId(), user);
+                }
+                user.setBookedTickets(resolveTickets(user));
+                if (user.getBookedTickets().size() != listed) {
+                    changed.put(user.getUserId(), user); // Dangling IDs were dropped
+                }
+                for (Ticket ticket : user.getBookedTickets()) {
+                    booked.add(ticket.getTicketId());
+                }
+                index(user);
+            }
+            for (User user : attachUnlistedTickets(booked)) {
+                changed.put(user.getUserId(), user);
+            }
+        } catch (RuntimeException e) {
+            journal.close(); // Do not keep the files locked for a store that failed to open
+            throw e;
+        }
+        for (User user : changed.values()) {
+            recordSaved(user);
+        }
+    }
+
+    /**
+     * Read every user from the snapshot and journal, see loadUsersFromFile(Set)
+     */
+    public List<User> loadUsersFromFile() {
+        return loadUsersFromFile(RecordReader.ALL_USER_FIELDS);
+    }
+
+    /**
+     * Read users from the files, reading only the given properties from the users.json
+     * snapshot; the others are skipped unparsed and keep their User defaults. Journaled
+     * records are small and are always read in full. The result is a fresh copy that is not
+     * part of the store and whose tickets are not resolved, for read-only work such as bulk
+     * exports.
+     * @param fields users.json property names, e.g. Set.of("userId", "email", "hashedPassword")
+     */
+    public synchronized List<User> loadUsersFromFile(Set<String> fields) {
+        Map<String, User> loaded = new LinkedHashMap<>();
+        for (User user : loadSnapshot(fields)) {
+            loaded.put(user.getUserId(), user);
+        }
+        journal.replay((op, id, value) -> {
+            if (Journal.PUT.equals(op)) {
+                loaded.put(id, value);
+            } else {
+                loaded.remove(id);
+            }
+        });
+        return new ArrayList<>(loaded.values());
+    }
+
+    // ==================== QUERIES ====================
+
+    public synchronized User get(String userId) {
+        return userId != null ? usersById.get(userId) : null;
+    }
+
+    public synchronized User getByEmail(String email) {
+        return email != null ? usersByEmail.get(email) : null;
+    }
+
+    public synchronized List<User> getAll() {
+        return new ArrayList<>(usersById.values());
+    }
+
+    public synchronized int size() {
+        return usersById.size();
+    }
+
+    /**
+     * Copy of a user's booked tickets, taken under the store's lock
+     * @return The tickets, or an empty list if there is no such user
+     */
+    public synchronized List<Ticket> getBookedTickets(String userId) {
+        User user = get(userId);
+        return user != null ? new ArrayList<>(user.getBookedTickets()) : new ArrayList<>();
+    }
+
+    // ==================== CHANGES ====================
+
+    /**
+     * Add a user, or replace the stored user with the same ID
+     * @return Completes once the change is on disk; the change is already visible either way
+     */
+    public synchronized CompletableFuture<Void> save(User user) {
+        if (user.getBookedTickets() == null) {
+            user.setBookedTickets(new ArrayList<>());
+        }
+        User existing = usersById.get(user.getUserId());
+        if (existing != null) {
+            unindex(existing);
+        }
+        index(user);
+        return recordSaved(user);
+    }
+
+    /**
+     * Change a stored user in place, keeping the email index in step
+     * @param user A user in this store
+     * @param change Applied to the user while it is out of the indexes
+     * @return Completes once the change is on disk
+     */
+    public synchronized CompletableFuture<Void> update(User user, Consumer<User> change) {
+        unindex(user);
+        try {
+            change.accept(user);
+        } finally {
+            index(user);
+        }
+        return recordSaved(user);
+    }
+
+    /**
+     * Change a stored user in place only if it still passes a check, with the check and the
+     * change under the store's lock
+     * @param user A user in this store
+     * @param condition Checked first; if it fails, or the user has been replaced or deleted,
+     *                  nothing is changed or written
+     * @param change Applied to the user while it is out of the indexes
+     * @return true if the change was applied
+     */
+    public synchronized boolean updateIf(User user, Predicate<User> condition, Consumer<User> change) {
+        if (usersById.get(user.getUserId()) != user || !condition.test(user)) {
+            return false;
+        }
+        update(user, change);
+        return true;
+    }
+
+    /**
+     * Reference a ticket, already in the ticket store, from the user's bookedTickets
+     * @return Completes once the change is on disk
+     */
+    public synchronized CompletableFuture<Void> addBookedTicket(User user, Ticket ticket) {
+        user.getBookedTickets().add(ticket);
+        return recordSaved(user);
+    }
+
+    /**
+     * Reference several tickets, already in the ticket store, with one change to the user
+     * @return Completes once the change is on disk
+     */
+    public synchronized CompletableFuture<Void> addBookedTickets(User user, Collection<Ticket> group) {
+        user.getBookedTickets().addAll(group);
+        return recordSaved(user);
+    }
+
+    /**
+     * Drop a ticket from the user's bookedTickets
+     * @return true if the user held it
+     */
+    public synchronized boolean removeBookedTicket(User user, Ticket ticket) {
+        if (!user.getBookedTickets().removeIf(booked -> booked == ticket)) {
+            return false;
+        }
+        recordSaved(user);
+        return true;
+    }
+
+    /**
+     * Point the user's bookedTickets at a ticket that replaced one with the same ID.
+     * Only the in-memory reference changes; the stored ID list is the same.
+     */
+    public synchronized void replaceBookedTicket(User user, Ticket existing, Ticket replacement) {
+        user.getBookedTickets().replaceAll(ticket -> ticket == existing ? replacement : ticket);
+    }
+
+    /**
+     * Remove a user; their tickets stay in the ticket store
+     * @return The removed user, or null if there was none with this ID
+     */
+    public synchronized User delete(String userId) {
+        User user = usersById.get(userId);
+        if (user == null) {
+            return null;
+        }
+        unindex(user);
+        recordDeleted(userId);
+        return user;
+    }
+
+    /**
+     * Future that completes once every change recorded so far is on disk
+     */
+    public CompletableFuture<Void> whenDurable() {
+        return journal.whenDurable();
+    }
+
+    /**
+     * Write a full users.json (or users.bin) snapshot and discard the journal it supersedes
+     * @throws UncheckedIOException If the snapshot could not be written; the journal is then kept
+     */
+    public synchronized void saveUsersToFile() {
+        Collection<User> users = usersById.values();
+        try {
+            if (BinarySnapshot.isEnabled()) {
+                BinarySnapshot.writeUsers(binaryPath, users);
+                journal.truncate();
+                return;
+            }
+            Map<String, Collection<User>> data = new HashMap<>();
+            data.put("users", users);
+            AtomicFiles.write(filePath, out -> JsonCodecs.USERS_DOCUMENT_WRITER.writeValue(out, data));
+            journal.truncate();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flush the journal and release its lock; the store must not be used afterwards
+     */
+    public void close() {
+        journal.close();
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    /**
+     * The user's tickets from the ticket store, adding any embedded legacy copies it lacks
+     */
+    private List<Ticket> resolveTickets(User user) {
+        List<Ticket> resolved = new ArrayList<>();
+        if (user.getBookedTickets() != null) {
+            for (Ticket embedded : user.getBookedTickets()) {
+                Ticket stored = tickets.get(embedded.getTicketId());
+                if (stored == null) {
+                    tickets.save(embedded);
+                    stored = embedded;
+                }
+                resolved.add(stored);
+            }
+        } else {
+            for (String ticketId : user.getBookedTicketIds()) {
+                Ticket stored = tickets.get(ticketId);
+                if (stored != null) {
+                    resolved.add(stored);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Add each ticket that still holds a seat but is on no user's list to its own user's list,
+     * as left by a crash between a booking's two writes
+     * @param booked IDs of the tickets already on some user's list
+     * @return The users that were given tickets, once per ticket
+     */
+    private List<User> attachUnlistedTickets(Set<String> booked) {
+        List<User> attached = new ArrayList<>();
+        for (Ticket ticket : tickets.getAll()) {
+            User user = usersById.get(ticket.getUserId());
+            if (user == null || booked.contains(ticket.getTicketId())
+                    || (ticket.getStatus() != null && !ticket.getStatus().holdsSeat())) {
+                continue;
+            }
+            user.getBookedTickets().add(ticket);
+            attached.add(user);
+        }
+        return attached;
+    }
+
+    private void index(User user) {
+        usersById.put(user.getUserId(), user);
+        if (user.getEmail() != null) {
+            usersByEmail.put(user.getEmail(), user);
+        }
+    }
+
+    private void unindex(User user) {
+        usersById.remove(user.getUserId());
+        if (user.getEmail() != null) {
+            usersByEmail.remove(user.getEmail());
+        }
+    }
+
+    private CompletableFuture<Void> recordSaved(User user) {
+        if (!JOURNAL_ENABLED) {
+            return snapshot();
+        }
+        try {
+            CompletableFuture<Void> durable = journal.appendPut(user.getUserId(), user);
+            compactIfNeeded();
+            return durable;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<Void> recordDeleted(String userId) {
+        if (!JOURNAL_ENABLED) {
+            return snapshot();
+        }
+        try {
+            CompletableFuture<Void> durable = journal.appendDelete(userId);
+            compactIfNeeded();
+            return durable;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Write the whole store when journaling is off, as the only copy of the change
+     */
+    private CompletableFuture<Void> snapshot() {
+        try {
+            saveUsersToFile();
+            return CompletableFuture.completedFuture(null);
+        } catch (UncheckedIOException e) {
+            return CompletableFuture.failedFuture(e.getCause());
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (journal.size() >= COMPACT_THRESHOLD) {
+            try {
+                saveUsersToFile();
+            } catch (UncheckedIOException e) {
+                // The records are safe in the journal, which was not truncated; the next write retries
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Stream the users.json snapshot one user at a time, or read users.bin if it is newer.
+     * Falls back to the backup copy if the snapshot is damaged, and refuses to start on an
+     * empty store when every copy is unreadable, since that would be written back over them.
+     */
+    private List<User> loadSnapshot(Set<String> fields) {
+        try {
+            List<User> users;
+            if (BinarySnapshot.isPreferred(filePath)) {
+                users = AtomicFiles.read(binaryPath, file -> BinarySnapshot.readUsers(file.getPath()),
+                    Throwable::printStackTrace);
+            } else {
+                users = AtomicFiles.read(filePath, file -> {
+                    List<User> loaded = new ArrayList<>();
+                    if (file.length() > 0) {
+                        new RecordReader(JsonCodecs.MAPPER.getFactory(), fields).readUsers(file, loaded::add);
+                    }
+                    return loaded;
+                }, Throwable::printStackTrace);
+            }
+            return users != null ? users : new ArrayList<>();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,203 +1,249 @@
 package ticket.booking.services;
 
+import ticket.booking.interfaces.SeatInventory;
 import ticket.booking.interfaces.TicketService;
 import ticket.booking.entities.Ticket;
+import ticket.booking.entities.TicketStatus;
+import ticket.booking.entities.Train;
 import ticket.booking.entities.User;
+import ticket.booking.localDb.TicketAggregates;
 import ticket.booking.localDb.TicketRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.localDb.TrainCatalog;
+import ticket.booking.localDb.UserRepository;
 
-import java.io.File;
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors; // Added TicketRepository for ticket persistence
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of TicketService interface providing comprehensive ticket management functionality.
  */
 public class TicketServiceImpl implements TicketService {
     
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final String USERS_FILE_PATH = "app/src/main/resources/users.json";
-    private List<User> userList;
-    private List<Ticket> ticketList;
-    
-    public TicketServiceImpl() {
-        this.userList = loadUsersFromFile();
-        this.ticketList = TicketRepository.loadTicketsFromFile();
+    // Stores shared with the other services; tickets.json is the single ticket store and
+    // users reference their tickets by ID
+    private final UserRepository users;
+    private final TicketRepository tickets;
+    private final TrainCatalog trainCatalog;
+    private final SeatInventory seatInventory;
+    
+    /**
+     * @param seatInventory Inventory shared with TrainServiceImpl, which fills it from the
+     *                      stored tickets; seats are released and re-taken here as tickets change,
+     *                      so it must be that filled inventory and not a fresh one
+     * @param trainCatalog Catalog the tickets' trains are resolved against
+     * @param users User store shared with UserServiceImpl
+     * @param tickets Ticket store shared with UserServiceImpl and TrainServiceImpl
+     */
+    public TicketServiceImpl(SeatInventory seatInventory, TrainCatalog trainCatalog,
+                             UserRepository users, TicketRepository tickets) {
+        this.seatInventory = seatInventory;
+        this.trainCatalog = trainCatalog;
+        this.users = users;
+        this.tickets = tickets;
     }
     
     // ==================== TICKET MANAGEMENT ====================
     
+    /**
+     * Store a ticket built by the caller. A ticket whose status holds a seat takes that seat
+     * in the inventory, and is rejected if the seat is already sold or cannot be read.
+     */
     @Override
     public Ticket createTicket(Ticket ticket) {
+        if (ticket == null || ticket.getTicketId() == null) {
+            return null;
+        }
+        Lock lock = tickets.lockFor(ticket.getTicketId());
+        lock.lock();
         try {
-            if (ticket != null && ticket.getTicketId() != null) {
-                // Add to tickets.json
-                this.ticketList.add(ticket);
-                TicketRepository.saveTicketsToFile(this.ticketList);
-                // Also add to user's bookedTickets
-                User user = getUserById(ticket.getUserId());
-                if (user != null) {
-                    user.getBookedTickets().add(ticket);
-                    saveUsersToFile();
+            hydrate(ticket);
+            boolean reserved = holdsSeat(ticket) && ticket.getTrain() != null;
+            if (reserved && !seatInventory.reserveSeat(ticket.getTrain(), ticket)) {
+                return null; // Seat taken, or no seat label and date to reserve
+            }
+            try {
+                tickets.save(ticket);
+            } catch (RuntimeException e) {
+                if (reserved) {
+                    releaseSeat(ticket);
                 }
-                return ticket;
+                throw e;
             }
-            return null;
+            // Reference it from the user's bookedTickets
+            User user = getUserById(ticket.getUserId());
+            if (user != null) {
+                users.addBookedTicket(user, ticket);
+            }
+            return ticket;
         } catch (Exception e) {
             e.printStackTrace();
             return null;
+        } finally {
+            lock.unlock();
         }
     }
     
     @Override
     public Ticket getTicketById(String ticketId) {
-        for (Ticket ticket : ticketList) {
-            if (ticket.getTicketId().equals(ticketId)) {
-                return ticket;
-            }
-        }
-        return null;
+        // Tickets booked through another service may not be resolved yet
+        return tickets.getWithTrain(ticketId, trainCatalog::getTrain);
     }
     
     @Override
     public boolean updateTicket(String ticketId, Ticket updatedTicket) {
+        if (ticketId == null) {
+            return false;
+        }
+        Lock lock = tickets.lockFor(ticketId);
+        lock.lock();
         try {
-            for (int i = 0; i < ticketList.size(); i++) {
-                Ticket ticket = ticketList.get(i);
-                if (ticket.getTicketId().equals(ticketId)) {
-                    updatedTicket.setTicketId(ticketId); // Ensure ID remains the same
-                    ticketList.set(i, updatedTicket);
-                    TicketRepository.saveTicketsToFile(ticketList);
-                    // Also update in user's bookedTickets
-                    User user = getUserById(updatedTicket.getUserId());
-                    if (user != null) {
-                        for (int j = 0; j < user.getBookedTickets().size(); j++) {
-                            if (user.getBookedTickets().get(j).getTicketId().equals(ticketId)) {
-                                user.getBookedTickets().set(j, updatedTicket);
-                                saveUsersToFile();
-                                break;
-                            }
-                        }
-                    }
-                    return true;
+            Ticket existing = getTicketById(ticketId);
+            if (existing != null) {
+                updatedTicket.setTicketId(ticketId); // Ensure ID remains the same
+                hydrate(updatedTicket);
+                if (!moveSeat(existing, updatedTicket)) {
+                    return false; // The new seat is taken
                 }
+                tickets.save(updatedTicket);
+                // Swap the reference held by the owner; the ID list itself is unchanged
+                User user = findOwner(existing);
+                if (user != null) {
+                    users.replaceBookedTicket(user, existing, updatedTicket);
+                }
+                return true;
             }
             return false;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            lock.unlock();
         }
     }
     
     @Override
     public boolean deleteTicket(String ticketId) {
+        if (ticketId == null) {
+            return false;
+        }
+        Lock lock = tickets.lockFor(ticketId);
+        lock.lock();
         try {
-            boolean removed = ticketList.removeIf(ticket -> ticket.getTicketId().equals(ticketId));
-            TicketRepository.saveTicketsToFile(ticketList);
-            // Also remove from user's bookedTickets
-            for (User user : userList) {
-                boolean userRemoved = user.getBookedTickets().removeIf(ticket -> ticket.getTicketId().equals(ticketId));
-                if (userRemoved) {
-                    saveUsersToFile();
-                }
+            Ticket ticket = getTicketById(ticketId);
+            if (ticket == null) {
+                return false;
+            }
+            if (holdsSeat(ticket)) {
+                releaseSeat(ticket);
             }
-            return removed;
+            tickets.delete(ticketId);
+            // Also drop the owner's reference
+            User user = findOwner(ticket);
+            if (user != null) {
+                users.removeBookedTicket(user, ticket);
+            }
+            return true;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            lock.unlock();
         }
     }
     
     @Override
     public List<Ticket> getAllTickets() {
-        return new ArrayList<>(ticketList);
+        return tickets.getAll();
     }
     
     // ==================== TICKET STATUS MANAGEMENT ====================
     
     @Override
     public boolean confirmTicket(String ticketId) {
-        return updateTicketStatus(ticketId, "CONFIRMED");
+        return changeStatus(ticketId, TicketStatus.CONFIRMED);
     }
     
     @Override
     public boolean cancelTicket(String ticketId) {
-        return updateTicketStatus(ticketId, "CANCELLED");
+        return changeStatus(ticketId, TicketStatus.CANCELLED);
     }
     
     @Override
     public Ticket rescheduleTicket(String ticketId, LocalDate newDate) {
+        if (ticketId == null) {
+            return null;
+        }
+        Lock lock = tickets.lockFor(ticketId);
+        lock.lock();
         try {
-            for (User user : userList) {
-                for (Ticket ticket : user.getBookedTickets()) {
-                    if (ticket.getTicketId().equals(ticketId)) {
-                        ticket.setDateOfTravel(newDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-                        saveUsersToFile();
-                        return ticket;
-                    }
+            Ticket ticket = getTicketById(ticketId);
+            if (ticket != null) {
+                String newSeat = holdsSeat(ticket) ? allocateSeat(ticket, newDate) : ticket.getSeatNumber();
+                if (newSeat == null) {
+                    return null; // Nothing free on the new date
+                }
+                if (holdsSeat(ticket)) {
+                    releaseSeat(ticket);
                 }
+                tickets.update(ticket, t -> {
+                    t.setTravelDate(newDate);
+                    t.setSeatNumber(newSeat);
+                });
+                return ticket;
             }
             return null;
         } catch (Exception e) {
             e.printStackTrace();
             return null;
+        } finally {
+            lock.unlock();
         }
     }
     
+    /**
+     * Move a ticket to a new status; unknown statuses and transitions TicketStatus does not
+     * allow are rejected
+     */
     @Override
     public boolean updateTicketStatus(String ticketId, String status) {
-        try {
-            for (User user : userList) {
-                for (Ticket ticket : user.getBookedTickets()) {
-                    if (ticket.getTicketId().equals(ticketId)) {
-                        ticket.setTicketStatus(status);
-                        saveUsersToFile();
-                        return true;
-                    }
-                }
-            }
-            return false;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
+        TicketStatus next = TicketStatus.fromName(status);
+        return next != null && changeStatus(ticketId, next);
     }
     
     @Override
     public List<Ticket> getTicketsByStatus(String status) {
-        List<Ticket> tickets = new ArrayList<>();
-        for (User user : userList) {
-            for (Ticket ticket : user.getBookedTickets()) {
-                if (ticket.getTicketStatus().equals(status)) {
-                    tickets.add(ticket);
-                }
-            }
-        }
-        return tickets;
+        return tickets.getByStatus(status);
     }
     
     // ==================== PAYMENT PROCESSING ====================
     
     @Override
     public boolean processPayment(String ticketId, String paymentMethod, double amount) {
+        if (ticketId == null) {
+            return false;
+        }
+        Lock lock = tickets.lockFor(ticketId);
+        lock.lock();
         try {
             Ticket ticket = getTicketById(ticketId);
-            if (ticket != null) {
-                ticket.setPaymentMethod(paymentMethod);
-                ticket.setPrice(amount);
-                ticket.setTicketStatus("PAID");
-                saveUsersToFile();
-                return true;
+            if (ticket == null || !TicketStatus.isValidTransition(ticket.getStatus(), TicketStatus.PAID)) {
+                return false;
             }
-            return false;
+            tickets.update(ticket, t -> {
+                t.setPaymentMethod(paymentMethod);
+                t.setPrice(amount);
+                t.setStatus(TicketStatus.PAID);
+            });
+            return true;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -213,13 +259,7 @@ public class TicketServiceImpl implements TicketService {
     @Override
     public boolean refundTicket(String ticketId) {
         try {
-            Ticket ticket = getTicketById(ticketId);
-            if (ticket != null) {
-                ticket.setTicketStatus("REFUNDED");
-                saveUsersToFile();
-                return true;
-            }
-            return false;
+            return changeStatus(ticketId, TicketStatus.REFUNDED);
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -230,7 +270,7 @@ public class TicketServiceImpl implements TicketService {
     public double getTicketPrice(String ticketId) {
         Ticket ticket = getTicketById(ticketId);
         if (ticket != null) {
-            return ticket.getPrice();
+            return ticket.getPriceInMinorUnits() / 100.0;
         }
         return 0.0;
     }
@@ -239,64 +279,30 @@ public class TicketServiceImpl implements TicketService {
     
     @Override
     public List<Ticket> getTicketsByUserId(String userId) {
-        User user = getUserById(userId);
-        if (user != null) {
-            return new ArrayList<>(user.getBookedTickets());
-        }
-        return new ArrayList<>();
+        return users.getBookedTickets(userId);
     }
     
     @Override
     public List<Ticket> getTicketsByTrainId(String trainId) {
-        List<Ticket> tickets = new ArrayList<>();
-        for (User user : userList) {
-            for (Ticket ticket : user.getBookedTickets()) {
-                if (ticket.getTrain() != null && ticket.getTrain().getTrainId().equals(trainId)) {
-                    tickets.add(ticket);
-                }
-            }
-        }
-        return tickets;
+        return tickets.getByTrainId(trainId);
     }
     
     @Override
     public List<Ticket> getTicketsByDateRange(LocalDate startDate, LocalDate endDate) {
-        List<Ticket> tickets = new ArrayList<>();
-        for (User user : userList) {
-            for (Ticket ticket : user.getBookedTickets()) {
-                try {
-                    LocalDate ticketDate = LocalDate.parse(ticket.getDateOfTravel());
-                    if (!ticketDate.isBefore(startDate) && !ticketDate.isAfter(endDate)) {
-                        tickets.add(ticket);
-                    }
-                } catch (Exception e) {
-                    // Skip tickets with invalid dates
-                }
-            }
-        }
-        return tickets;
+        return tickets.getByDateRange(startDate, endDate);
     }
     
     @Override
     public List<Ticket> getTicketsByRoute(String source, String destination) {
-        List<Ticket> tickets = new ArrayList<>();
-        for (User user : userList) {
-            for (Ticket ticket : user.getBookedTickets()) {
-                if (ticket.getSource().equalsIgnoreCase(source) && 
-                    ticket.getDestination().equalsIgnoreCase(destination)) {
-                    tickets.add(ticket);
-                }
-            }
-        }
-        return tickets;
+        return tickets.getByRoute(source, destination);
     }
     
     @Override
     public List<Ticket> searchTickets(Map<String, Object> criteria) {
-        List<Ticket> allTickets = getAllTickets();
+        List<Ticket> candidates = selectCandidates(criteria);
         List<Ticket> filteredTickets = new ArrayList<>();
         
-        for (Ticket ticket : allTickets) {
+        for (Ticket ticket : candidates) {
             boolean matches = true;
             
             for (Map.Entry<String, Object> entry : criteria.entrySet()) {
@@ -305,22 +311,27 @@ public class TicketServiceImpl implements TicketService {
                 
                 switch (key) {
                     case "userId":
-                        if (!ticket.getUserId().equals(value)) {
+                        if (!Objects.equals(ticket.getUserId(), value)) {
                             matches = false;
                         }
                         break;
                     case "status":
-                        if (!ticket.getTicketStatus().equals(value)) {
+                        if (!Objects.equals(ticket.getTicketStatus(), value)) {
+                            matches = false;
+                        }
+                        break;
+                    case "trainId":
+                        if (!Objects.equals(ticket.getTrainId(), value)) {
                             matches = false;
                         }
                         break;
                     case "source":
-                        if (!ticket.getSource().equalsIgnoreCase((String) value)) {
+                        if (ticket.getSource() == null || !ticket.getSource().equalsIgnoreCase((String) value)) {
                             matches = false;
                         }
                         break;
                     case "destination":
-                        if (!ticket.getDestination().equalsIgnoreCase((String) value)) {
+                        if (ticket.getDestination() == null || !ticket.getDestination().equalsIgnoreCase((String) value)) {
                             matches = false;
                         }
                         break;
@@ -343,7 +354,7 @@ public class TicketServiceImpl implements TicketService {
     public boolean validateTicket(String ticketId) {
         Ticket ticket = getTicketById(ticketId);
         if (ticket != null) {
-            return "CONFIRMED".equals(ticket.getTicketStatus()) && !isTicketExpired(ticketId);
+            return ticket.getStatus() == TicketStatus.CONFIRMED && !isTicketExpired(ticketId);
         }
         return false;
     }
@@ -352,12 +363,10 @@ public class TicketServiceImpl implements TicketService {
     public boolean isTicketExpired(String ticketId) {
         Ticket ticket = getTicketById(ticketId);
         if (ticket != null) {
-            try {
-                LocalDate ticketDate = LocalDate.parse(ticket.getDateOfTravel());
-                return ticketDate.isBefore(LocalDate.now());
-            } catch (Exception e) {
+            if (!ticket.hasTravelDate()) {
                 return true; // Invalid date format
             }
+            return ticket.getTravelDay() < LocalDate.now().toEpochDay();
         }
         return true;
     }
@@ -366,14 +375,8 @@ public class TicketServiceImpl implements TicketService {
     public boolean canCancelTicket(String ticketId) {
         Ticket ticket = getTicketById(ticketId);
         if (ticket != null) {
-            try {
-                LocalDate ticketDate = LocalDate.parse(ticket.getDateOfTravel());
-                LocalDate now = LocalDate.now();
-                // Allow cancellation if journey is more than 24 hours away
-                return ticketDate.isAfter(now.plusDays(1));
-            } catch (Exception e) {
-                return false;
-            }
+            // Allow cancellation if journey is more than 24 hours away
+            return ticket.hasTravelDate() && ticket.getTravelDay() > LocalDate.now().toEpochDay() + 1;
         }
         return false;
     }
@@ -382,14 +385,8 @@ public class TicketServiceImpl implements TicketService {
     public boolean canRescheduleTicket(String ticketId) {
         Ticket ticket = getTicketById(ticketId);
         if (ticket != null) {
-            try {
-                LocalDate ticketDate = LocalDate.parse(ticket.getDateOfTravel());
-                LocalDate now = LocalDate.now();
-                // Allow rescheduling if journey is more than 1 day away
-                return ticketDate.isAfter(now.plusDays(1));
-            } catch (Exception e) {
-                return false;
-            }
+            // Allow rescheduling if journey is more than 1 day away
+            return ticket.hasTravelDate() && ticket.getTravelDay() > LocalDate.now().toEpochDay() + 1;
         }
         return false;
     }
@@ -417,32 +414,27 @@ public class TicketServiceImpl implements TicketService {
     
     @Override
     public Map<String, Object> getBookingStatistics(LocalDate startDate, LocalDate endDate) {
-        List<Ticket> tickets = getTicketsByDateRange(startDate, endDate);
+        TicketAggregates.Totals totals = tickets.totalsBetween(startDate, endDate);
         Map<String, Object> stats = new HashMap<>();
         
-        stats.put("totalBookings", tickets.size());
-        stats.put("confirmedBookings", tickets.stream()
-            .filter(t -> "CONFIRMED".equals(t.getTicketStatus())).count());
-        stats.put("cancelledBookings", tickets.stream()
-            .filter(t -> "CANCELLED".equals(t.getTicketStatus())).count());
-        stats.put("totalRevenue", tickets.stream()
-            .mapToDouble(Ticket::getPrice).sum());
+        stats.put("totalBookings", (int) totals.count());
+        stats.put("confirmedBookings", totals.count(TicketStatus.CONFIRMED));
+        stats.put("cancelledBookings", totals.count(TicketStatus.CANCELLED));
+        stats.put("totalRevenue", totals.revenue() / 100.0);
         
         return stats;
     }
     
     @Override
     public Map<String, Object> getRevenueStatistics(LocalDate startDate, LocalDate endDate) {
-        List<Ticket> tickets = getTicketsByDateRange(startDate, endDate);
+        TicketAggregates.Totals totals = tickets.totalsBetween(startDate, endDate);
         Map<String, Object> stats = new HashMap<>();
         
-        double totalRevenue = tickets.stream()
-            .filter(t -> "CONFIRMED".equals(t.getTicketStatus()))
-            .mapToDouble(Ticket::getPrice).sum();
+        double totalRevenue = totals.revenue(TicketStatus.CONFIRMED) / 100.0;
         
         stats.put("totalRevenue", totalRevenue);
-        stats.put("averageTicketPrice", tickets.isEmpty() ? 0 : totalRevenue / tickets.size());
-        stats.put("totalTickets", tickets.size());
+        stats.put("averageTicketPrice", totals.count() == 0 ? 0 : totalRevenue / totals.count());
+        stats.put("totalTickets", (int) totals.count());
         
         return stats;
     }
@@ -494,6 +486,7 @@ public class TicketServiceImpl implements TicketService {
             details.put("ticketStatus", ticket.getTicketStatus());
             details.put("price", ticket.getPrice());
             details.put("paymentMethod", ticket.getPaymentMethod());
+            details.put("passengerName", ticket.getPassengerName());
             details.put("bookingDate", ticket.getBookingDate());
         }
         
@@ -531,37 +524,180 @@ public class TicketServiceImpl implements TicketService {
         // For now, return empty list
         return new ArrayList<>();
     }
+
+    @Override
+    public CompletableFuture<Void> whenDurable() {
+        return CompletableFuture.allOf(users.whenDurable(), tickets.whenDurable());
+    }
     
     // ==================== PRIVATE HELPER METHODS ====================
     
-    private List<User> loadUsersFromFile() {
-        try {
-            File file = new File(USERS_FILE_PATH);
-            if (file.exists()) {
-                Map<String, List<User>> data = objectMapper.readValue(file, 
-                    new TypeReference<Map<String, List<User>>>() {});
-                return data.getOrDefault("users", new ArrayList<>());
+    private User getUserById(String userId) {
+        return users.get(userId);
+    }
+    
+    /**
+     * Pick the smallest candidate set among the indexes the criteria can use,
+     * so searchTickets only filters what it has to
+     */
+    private List<Ticket> selectCandidates(Map<String, Object> criteria) {
+        int best = tickets.size();
+        String bestKey = null;
+        
+        List<Ticket> userTickets = null;
+        if (criteria.get("userId") instanceof String) {
+            userTickets = users.getBookedTickets((String) criteria.get("userId"));
+            int size = userTickets.size();
+            if (size < best) {
+                best = size;
+                bestKey = "userId";
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-        return new ArrayList<>();
+        if (criteria.get("status") instanceof String) {
+            int size = tickets.countByStatus((String) criteria.get("status"));
+            if (size < best) {
+                best = size;
+                bestKey = "status";
+            }
+        }
+        if (criteria.get("trainId") instanceof String) {
+            int size = tickets.countByTrainId((String) criteria.get("trainId"));
+            if (size < best) {
+                best = size;
+                bestKey = "trainId";
+            }
+        }
+        if (criteria.get("source") instanceof String && criteria.get("destination") instanceof String) {
+            int size = tickets.countByRoute((String) criteria.get("source"), (String) criteria.get("destination"));
+            if (size < best) {
+                bestKey = "route";
+            }
+        }
+        
+        if (bestKey == null) {
+            return tickets.getAll();
+        }
+        switch (bestKey) {
+            case "userId":
+                return userTickets;
+            case "status":
+                return tickets.getByStatus((String) criteria.get("status"));
+            case "trainId":
+                return tickets.getByTrainId((String) criteria.get("trainId"));
+            default:
+                return tickets.getByRoute((String) criteria.get("source"), (String) criteria.get("destination"));
+        }
     }
     
-    private void saveUsersToFile() {
+    private User findOwner(Ticket ticket) {
+        return ticket != null ? getUserById(ticket.getUserId()) : null;
+    }
+    
+    /**
+     * Cancelled and refunded tickets give their seat back; every other status, including
+     * one that is not a TicketStatus, holds it
+     */
+    private static boolean holdsSeat(TicketStatus status) {
+        return status == null || status.holdsSeat();
+    }
+    
+    private static boolean holdsSeat(Ticket ticket) {
+        return holdsSeat(ticket.getStatus());
+    }
+    
+    /**
+     * Validate and apply a status transition, moving the seat hold and the status index with it
+     * @return false if the ticket is missing, the transition is not allowed, or the seat had
+     *         to be re-taken but has been resold
+     */
+    private boolean changeStatus(String ticketId, TicketStatus next) {
+        if (ticketId == null) {
+            return false;
+        }
+        // Two requests for the same ticket must not both pass the check and both move its seat
+        Lock lock = tickets.lockFor(ticketId);
+        lock.lock();
         try {
-            Map<String, List<User>> data = new HashMap<>();
-            data.put("users", userList);
-            objectMapper.writeValue(new File(USERS_FILE_PATH), data);
-        } catch (IOException e) {
+            Ticket ticket = getTicketById(ticketId);
+            if (ticket == null || !TicketStatus.isValidTransition(ticket.getStatus(), next)) {
+                return false;
+            }
+            if (next == TicketStatus.REFUNDED && ticket.getPaymentMethod() == null) {
+                return false; // A cancelled ticket that was never paid has nothing to refund
+            }
+            if (!changeSeatHold(ticket, next)) {
+                return false; // Re-confirming a ticket whose seat has been resold
+            }
+            tickets.updateStatus(ticket, next);
+            return true;
+        } catch (Exception e) {
             e.printStackTrace();
+            return false;
+        } finally {
+            lock.unlock();
         }
     }
     
-    private User getUserById(String userId) {
-        return userList.stream()
-                .filter(user -> user.getUserId().equals(userId))
-                .findFirst()
-                .orElse(null);
+    /**
+     * Release or re-take the ticket's seat when a status change crosses between holding and not holding it
+     * @return false if the seat had to be re-taken but is no longer free
+     */
+    private boolean changeSeatHold(Ticket ticket, TicketStatus newStatus) {
+        boolean held = holdsSeat(ticket);
+        boolean holds = holdsSeat(newStatus);
+        if (held && !holds) {
+            releaseSeat(ticket);
+        } else if (!held && holds && ticket.getTrain() != null) {
+            return seatInventory.reserveSeat(ticket.getTrain(), ticket);
+        }
+        return true;
+    }
+    
+    /**
+     * Swap the seat held by an existing ticket for the one named by its replacement
+     * @return false, with the original seat still held, if the replacement's seat is taken
+     */
+    private boolean moveSeat(Ticket existing, Ticket replacement) {
+        if (holdsSeat(existing)) {
+            releaseSeat(existing);
+        }
+        if (!holdsSeat(replacement) || replacement.getTrain() == null
+                || seatInventory.reserveSeat(replacement.getTrain(), replacement)) {
+            return true;
+        }
+        if (holdsSeat(existing) && existing.getTrain() != null) {
+            seatInventory.reserveSeat(existing.getTrain(), existing);
+        }
+        return false;
+    }
+    
+    private void releaseSeat(Ticket ticket) {
+        if (ticket.getTrain() != null) {
+            seatInventory.releaseSeat(ticket.getTrain(), ticket);
+        }
+    }
+    
+    /**
+     * Reserve a seat for the ticket's journey on another date
+     * @return The new seat label, or null if the train is full that day
+     */
+    private String allocateSeat(Ticket ticket, LocalDate date) {
+        Train train = ticket.getTrain();
+        if (train == null) {
+            return ticket.getSeatNumber(); // Tickets for unknown trains keep their seat label
+        }
+        int[] range = SeatInventory.ticketRange(train, ticket);
+        int[] seat = seatInventory.allocateSeat(train, date, range[0], range[1]);
+        return seat != null ? SeatInventory.seatLabel(seat[0], seat[1]) : null;
+    }
+    
+    /**
+     * Resolve the trainId of a ticket built by the caller, before it is in the store; stored
+     * tickets are resolved by getTicketById, under the store's lock
+     */
+    private void hydrate(Ticket ticket) {
+        if (ticket.getTrain() == null && ticket.getTrainId() != null) {
+            ticket.setTrain(trainCatalog.getTrain(ticket.getTrainId()));
+        }
     }
 } 
\ No newline at end of file
@@ -1,12 +1,15 @@
 package ticket.booking.services;
 
+import ticket.booking.interfaces.SeatInventory;
 import ticket.booking.interfaces.TrainService;
+import ticket.booking.entities.Ticket;
 import ticket.booking.entities.Train;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ticket.booking.localDb.DataDirectory;
+import ticket.booking.localDb.InMemorySeatInventory;
+import ticket.booking.localDb.RouteIndex;
+import ticket.booking.localDb.TicketRepository;
+import ticket.booking.localDb.TrainCatalog;
 
-import java.io.File;
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -17,16 +20,32 @@ import java.util.stream.Collectors;
  */
 public class TrainServiceImpl implements TrainService {
     
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final String TRAINS_FILE_PATH = "app/src/main/resources/trains.json";
-    private List<Train> trainList;
+    private static final String TRAINS_FILE_PATH = DataDirectory.file("trains.json");
+    private static final int MIN_CONNECTION_MINUTES =
+        Integer.getInteger("booking.minConnectionMinutes", RouteIndex.DEFAULT_MIN_CONNECTION_MINUTES);
+    private final TrainCatalog trainCatalog;
+    private final SeatInventory seatInventory;
+    private RouteIndex routeIndex;
+    private long routeIndexVersion = -1;
     
     public TrainServiceImpl() {
-        this.trainList = loadTrainsFromFile();
+        this(new InMemorySeatInventory());
     }
-
-    private void reloadTrains() {
-        this.trainList = loadTrainsFromFile();
+    
+    public TrainServiceImpl(SeatInventory seatInventory) {
+        this(seatInventory, new TrainCatalog(TRAINS_FILE_PATH), TicketRepository.shared());
+    }
+    
+    /**
+     * @param seatInventory Inventory shared with the services that book and cancel seats;
+     *                      it is filled with the seats held by stored tickets
+     * @param trainCatalog Catalog shared with TicketServiceImpl
+     * @param tickets Ticket store shared with the other services
+     */
+    public TrainServiceImpl(SeatInventory seatInventory, TrainCatalog trainCatalog, TicketRepository tickets) {
+        this.trainCatalog = trainCatalog;
+        this.seatInventory = seatInventory;
+        loadReservedSeats(tickets);
     }
     
     // ==================== TRAIN MANAGEMENT ====================
@@ -34,16 +53,8 @@ public class TrainServiceImpl implements TrainService {
     @Override
     public boolean addTrain(Train train) {
         try {
-            reloadTrains();
             if (train != null && train.getTrainId() != null) {
-                // Check if train already exists
-                if (getTrainById(train.getTrainId()) != null) {
-                    return false; // Train already exists
-                }
-                trainList.add(train);
-                saveTrainsToFile();
-                reloadTrains();
-                return true;
+                return trainCatalog.addTrain(train);
             }
             return false;
         } catch (Exception e) {
@@ -55,15 +66,9 @@ public class TrainServiceImpl implements TrainService {
     @Override
     public boolean updateTrain(String trainId, Train updatedTrain) {
         try {
-            reloadTrains();
-            Train existingTrain = getTrainById(trainId);
-            if (existingTrain != null && updatedTrain != null) {
-                int index = trainList.indexOf(existingTrain);
+            if (updatedTrain != null) {
                 updatedTrain.setTrainId(trainId); // Ensure ID remains the same
-                trainList.set(index, updatedTrain);
-                saveTrainsToFile();
-                reloadTrains();
-                return true;
+                return trainCatalog.replaceTrain(trainId, updatedTrain);
             }
             return false;
         } catch (Exception e) {
@@ -75,17 +80,7 @@ public class TrainServiceImpl implements TrainService {
     @Override
     public boolean deleteTrain(String trainId) {
         try {
-            reloadTrains();
-            Train train = getTrainById(trainId);
-            if (train != null) {
-                boolean removed = trainList.remove(train);
-                if (removed) {
-                    saveTrainsToFile();
-                    reloadTrains();
-                }
-                return removed;
-            }
-            return false;
+            return trainCatalog.removeTrain(trainId);
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -94,28 +89,39 @@ public class TrainServiceImpl implements TrainService {
     
     @Override
     public Train getTrainById(String trainId) {
-        reloadTrains();
-        return trainList.stream()
-                .filter(train -> train.getTrainId().equals(trainId))
-                .findFirst()
-                .orElse(null);
+        return trainCatalog.getTrain(trainId);
     }
     
     @Override
     public List<Train> getAllTrains() {
-        reloadTrains();
-        return new ArrayList<>(trainList);
+        return new ArrayList<>(trainCatalog.getTrains());
     }
     
     // ==================== SEARCH & AVAILABILITY ====================
     
     @Override
     public List<Train> searchTrains(String source, String destination, LocalDate date) {
-        reloadTrains();
-        return trainList.stream()
-                .filter(train -> train.getSource().equalsIgnoreCase(source) &&
-                               train.getDestination().equalsIgnoreCase(destination))
-                .collect(Collectors.toList());
+        // Includes trains that only pass through the two stations, and honours operating days
+        return routeIndex().findDirect(source, destination, date);
+    }
+    
+    @Override
+    public List<Map<String, Object>> searchConnections(String source, String destination, LocalDate date) {
+        List<Map<String, Object>> journeys = new ArrayList<>();
+        for (RouteIndex.Connection connection : routeIndex().findConnections(source, destination, date)) {
+            Map<String, Object> journey = new HashMap<>();
+            journey.put("firstTrain", connection.getFirstTrain());
+            journey.put("secondTrain", connection.getSecondTrain());
+            journey.put("transferStation", connection.getTransferStation());
+            journey.put("firstLegDate", connection.getFirstLegDate());
+            journey.put("secondLegDate", connection.getSecondLegDate());
+            journey.put("arrivalAtTransfer", connection.getTransferArrivalTime());
+            journey.put("departureFromTransfer", connection.getTransferDepartureTime());
+            journey.put("connectionMinutes", connection.getConnectionMinutes());
+            journey.put("arrivalTime", connection.getFinalArrivalTime());
+            journeys.add(journey);
+        }
+        return journeys;
     }
     
     @Override
@@ -130,19 +136,42 @@ public class TrainServiceImpl implements TrainService {
     @Override
     public int getAvailableSeats(String trainId, LocalDate date, String classType) {
         Train train = getTrainById(trainId);
-        if (train != null) {
-            // This is a simplified implementation
-            // In a real system, you would check actual bookings for the date
-            return train.getAvailableSeats();
+        if (train != null && date != null) {
+            // Coaches carry no class yet, so every sellable seat counts
+            return seatInventory.countFreeSeats(train, date);
+        }
+        return 0;
+    }
+    
+    @Override
+    public int getAvailableSeats(String trainId, LocalDate date, String source, String destination) {
+        Train train = getTrainById(trainId);
+        int[] range = train != null ? SeatInventory.stopRange(train, source, destination) : null;
+        if (range != null && date != null) {
+            return seatInventory.countFreeSeats(train, date, range[0], range[1]);
         }
         return 0;
     }
     
     @Override
     public List<String> getBookedSeats(String trainId, LocalDate date) {
-        // This would typically query a booking database
-        // For now, return empty list
-        return new ArrayList<>();
+        List<String> bookedSeats = new ArrayList<>();
+        Train train = getTrainById(trainId);
+        if (train == null || date == null || train.getSeats() == null) {
+            return bookedSeats;
+        }
+        List<List<Integer>> seatMap = seatInventory.getSeatMap(train, date);
+        for (int coach = 0; coach < seatMap.size(); coach++) {
+            List<Integer> template = train.getSeats().get(coach);
+            List<Integer> row = seatMap.get(coach);
+            for (int seat = 0; seat < row.size(); seat++) {
+                // Sellable in the template but taken on at least one segment of this date
+                if (Integer.valueOf(1).equals(template.get(seat)) && row.get(seat) == 0) {
+                    bookedSeats.add(SeatInventory.seatLabel(coach, seat));
+                }
+            }
+        }
+        return bookedSeats;
     }
     
     @Override
@@ -178,16 +207,25 @@ public class TrainServiceImpl implements TrainService {
     
     @Override
     public boolean checkSeatAvailability(String trainId, LocalDate journeyDate, String seatType) {
-        // This would check actual seat availability
-        // For now, return true if train exists
-        return getTrainById(trainId) != null;
+        Train train = getTrainById(trainId);
+        return train != null && journeyDate != null && seatInventory.countFreeSeats(train, journeyDate) > 0;
     }
     
     @Override
     public List<List<Integer>> getSeatMap(String trainId, LocalDate journeyDate) {
         Train train = getTrainById(trainId);
-        if (train != null) {
-            return train.getSeats();
+        if (train != null && journeyDate != null) {
+            return seatInventory.getSeatMap(train, journeyDate);
+        }
+        return new ArrayList<>();
+    }
+    
+    @Override
+    public List<List<Integer>> getSeatMap(String trainId, LocalDate journeyDate, String source, String destination) {
+        Train train = getTrainById(trainId);
+        int[] range = train != null ? SeatInventory.stopRange(train, source, destination) : null;
+        if (range != null && journeyDate != null) {
+            return seatInventory.getSeatMap(train, journeyDate, range[0], range[1]);
         }
         return new ArrayList<>();
     }
@@ -196,15 +234,12 @@ public class TrainServiceImpl implements TrainService {
     
     @Override
     public List<Train> getTrainsByRoute(String source, String destination) {
-        return trainList.stream()
-                .filter(train -> train.getSource().equalsIgnoreCase(source) &&
-                               train.getDestination().equalsIgnoreCase(destination))
-                .collect(Collectors.toList());
+        return routeIndex().findDirect(source, destination, null);
     }
     
     @Override
     public List<Train> getTrainsByType(String trainType) {
-        return trainList.stream()
+        return trainCatalog.getTrains().stream()
                 .filter(train -> train.getTrainType() != null &&
                                train.getTrainType().equalsIgnoreCase(trainType))
                 .collect(Collectors.toList());
@@ -212,27 +247,41 @@ public class TrainServiceImpl implements TrainService {
     
     @Override
     public List<Train> getTrainsByDepartureStation(String station) {
-        return trainList.stream()
+        return trainCatalog.getTrains().stream()
                 .filter(train -> train.getSource().equalsIgnoreCase(station))
                 .collect(Collectors.toList());
     }
     
     @Override
     public List<Train> getTrainsByArrivalStation(String station) {
-        return trainList.stream()
+        return trainCatalog.getTrains().stream()
                 .filter(train -> train.getDestination().equalsIgnoreCase(station))
                 .collect(Collectors.toList());
     }
     
     @Override
     public boolean updateSeatAvailability(String trainId, String seatNumber, boolean isAvailable) {
+        // Changes the train's seat template, so the seat is opened or blocked on every date
         Train train = getTrainById(trainId);
-        if (train != null) {
-            // This would update the seat availability in the train's seat map
-            // For now, just return true
-            return true;
+        int[] position = SeatInventory.parseSeatLabel(seatNumber);
+        if (train == null || position == null || train.getSeats() == null
+                || position[0] >= train.getSeats().size()
+                || position[1] >= train.getSeats().get(position[0]).size()) {
+            return false;
+        }
+        try {
+            List<List<Integer>> seats = new ArrayList<>();
+            for (List<Integer> row : train.getSeats()) {
+                seats.add(new ArrayList<>(row));
+            }
+            seats.get(position[0]).set(position[1], isAvailable ? 1 : 0);
+            train.setSeats(seats);
+            seatInventory.refreshLayout(train);
+            return trainCatalog.replaceTrain(trainId, train);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
         }
-        return false;
     }
     
     @Override
@@ -255,27 +304,30 @@ public class TrainServiceImpl implements TrainService {
     
     // ==================== PRIVATE HELPER METHODS ====================
     
-    private List<Train> loadTrainsFromFile() {
-        try {
-            File file = new File(TRAINS_FILE_PATH);
-            if (file.exists()) {
-                Map<String, List<Train>> data = objectMapper.readValue(file, 
-                    new TypeReference<Map<String, List<Train>>>() {});
-                return data.getOrDefault("trains", new ArrayList<>());
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Search index over the current catalog, rebuilt only after the set of trains changed
+     */
+    private synchronized RouteIndex routeIndex() {
+        long version = trainCatalog.version();
+        if (routeIndex == null || version != routeIndexVersion) {
+            routeIndex = new RouteIndex(trainCatalog.getTrains(), MIN_CONNECTION_MINUTES);
+            routeIndexVersion = version;
         }
-        return new ArrayList<>();
+        return routeIndex;
     }
     
-    private void saveTrainsToFile() {
-        try {
-            Map<String, List<Train>> data = new HashMap<>();
-            data.put("trains", trainList);
-            objectMapper.writeValue(new File(TRAINS_FILE_PATH), data);
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Mark the seats held by live tickets as reserved in the inventory
+     */
+    private void loadReservedSeats(TicketRepository tickets) {
+        for (Ticket ticket : tickets.getAll()) {
+            if (ticket.getStatus() != null && !ticket.getStatus().holdsSeat()) {
+                continue;
+            }
+            Train train = ticket.getTrainId() != null ? trainCatalog.getTrain(ticket.getTrainId()) : null;
+            if (train != null) {
+                seatInventory.reserveSeat(train, ticket);
+            }
         }
     }
     
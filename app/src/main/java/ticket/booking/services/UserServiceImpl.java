@@ -1,18 +1,25 @@
 package ticket.booking.services;
 
+import ticket.booking.interfaces.SeatInventory;
+import ticket.booking.interfaces.TrainService;
 import ticket.booking.interfaces.UserService;
+import ticket.booking.entities.Train;
 import ticket.booking.entities.User;
 import ticket.booking.entities.Ticket;
+import ticket.booking.entities.TicketStatus;
+import ticket.booking.localDb.SessionStore;
+import ticket.booking.localDb.TicketAggregates;
+import ticket.booking.localDb.TicketRepository;
+import ticket.booking.localDb.UserRepository;
+import ticket.booking.utils.PasswordHasher;
 import ticket.booking.utils.UserServiceUtil;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.io.File;
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 /**
@@ -20,18 +27,31 @@ import java.util.stream.Collectors;
  */
 public class UserServiceImpl implements UserService {
     
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final String USERS_FILE_PATH = "app/src/main/resources/users.json";
-    private List<User> userList;
-    private Map<String, User> activeSessions;
-    
-    public UserServiceImpl() {
-        this.userList = loadUsersFromFile();
-        this.activeSessions = new HashMap<>();
-    }
-
-    private void reloadUsers() {
-        this.userList = loadUsersFromFile();
+    // Stores shared with the other services, so bookings made here are seen there at once
+    private final UserRepository users;
+    private final TicketRepository tickets;
+    private final SessionStore sessions;
+    private final TrainService trainService;
+    private final SeatInventory seatInventory;
+    
+    public UserServiceImpl(TrainService trainService, SeatInventory seatInventory) {
+        this(trainService, seatInventory, UserRepository.shared(), TicketRepository.shared());
+    }
+    
+    /**
+     * @param trainService Used to look up the train being booked
+     * @param seatInventory Inventory shared with trainService; seats are allocated from it,
+     *                      so concurrent bookings of the same departure never get the same seat
+     * @param users User store shared with TicketServiceImpl
+     * @param tickets Ticket store shared with TicketServiceImpl and TrainServiceImpl
+     */
+    public UserServiceImpl(TrainService trainService, SeatInventory seatInventory,
+                           UserRepository users, TicketRepository tickets) {
+        this.trainService = trainService;
+        this.seatInventory = seatInventory;
+        this.users = users;
+        this.tickets = tickets;
+        this.sessions = new SessionStore();
     }
     
     // ==================== AUTHENTICATION ====================
@@ -39,7 +59,6 @@ public class UserServiceImpl implements UserService {
     @Override
     public boolean registerUser(User user) {
         try {
-            reloadUsers();
             if (user != null && user.getEmail() != null) {
                 // Check if email already exists
                 if (isEmailRegistered(user.getEmail())) {
@@ -49,9 +68,7 @@ public class UserServiceImpl implements UserService {
                 if (user.getPassword() != null) {
                     user.setHashedPassword(UserServiceUtil.hashPassword(user.getPassword()));
                 }
-                userList.add(user);
-                saveUsersToFile();
-                reloadUsers();
+                users.save(user);
                 return true;
             }
             return false;
@@ -64,24 +81,34 @@ public class UserServiceImpl implements UserService {
     @Override
     public User loginUser(String username, String password) {
         try {
-            User user = getUserByEmail(username);
-            if (user != null && UserServiceUtil.checkPassword(password, user.getHashedPassword())) {
-                // Create session
-                activeSessions.put(user.getUserId(), user);
-                return user;
+            User user = authenticate(username, password);
+            if (user != null) {
+                sessions.create(user.getUserId());
             }
-            return null;
+            return user;
+        } catch (PasswordHasher.OverloadedException e) {
+            return null; // Expected under load; startSession reports it to callers that can retry
         } catch (Exception e) {
             e.printStackTrace();
             return null;
         }
     }
     
+    @Override
+    public Map<String, Object> startSession(String username, String password) {
+        User user = authenticate(username, password);
+        if (user == null) {
+            return null;
+        }
+        // Described from the session created here, not looked up again by user ID, so a
+        // concurrent login of the same user cannot hand this caller the other token
+        return sessionDetails(user, sessions.create(user.getUserId()));
+    }
+    
     @Override
     public boolean logoutUser(String userId) {
         try {
-            User user = activeSessions.remove(userId);
-            return user != null;
+            return sessions.invalidateUser(userId);
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -111,24 +138,35 @@ public class UserServiceImpl implements UserService {
                            String seatType, Map<String, Object> passengerDetails) {
         try {
             User user = getUserProfile(userId);
-            if (user == null) {
+            Train train = trainService.getTrainById(trainId);
+            if (user == null || train == null || journeyDate == null) {
                 return null;
             }
             
-            // Create a new ticket
-            Ticket ticket = new Ticket();
-            ticket.setTicketId(UUID.randomUUID().toString());
-            ticket.setUserId(userId);
-            ticket.setDateOfTravel(journeyDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-            ticket.setSeatNumber(generateSeatNumber());
-            ticket.setTicketStatus("CONFIRMED");
-            ticket.setPrice(85.50); // Default price
-            ticket.setPaymentMethod("CREDIT_CARD");
-            ticket.setBookingDate(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
+            // Ride the whole run unless the passenger boards or alights at an intermediate stop
+            String source = passengerDetail(passengerDetails, "source", train.getSource());
+            String destination = passengerDetail(passengerDetails, "destination", train.getDestination());
+            int[] range = SeatInventory.stopRange(train, source, destination);
+            if (range == null) {
+                return null;
+            }
             
-            // Add ticket to user's booked tickets
-            user.getBookedTickets().add(ticket);
-            saveUsersToFile();
+            // The inventory locks the (trainId, date) departure for the find-and-reserve,
+            // so bookings of other departures are not held up
+            int[] seat = seatInventory.allocateSeat(train, journeyDate, range[0], range[1]);
+            if (seat == null) {
+                return null; // Sold out between these stops
+            }
+            
+            Ticket ticket = newTicket(userId, trainId, source, destination, journeyDate, seat,
+                passengerDetail(passengerDetails, "name", null));
+            
+            try {
+                recordBooking(user, ticket);
+            } catch (RuntimeException e) {
+                seatInventory.releaseSeat(train, journeyDate, seat[0], seat[1], range[0], range[1]);
+                throw e;
+            }
             
             return ticket;
         } catch (Exception e) {
@@ -138,63 +176,133 @@ public class UserServiceImpl implements UserService {
     }
     
     @Override
-    public boolean cancelTicket(String ticketId) {
+    public List<Ticket> bookTickets(String userId, String trainId, LocalDate journeyDate,
+                                    List<Map<String, Object>> passengers) {
         try {
-            for (User user : userList) {
-                boolean removed = user.getBookedTickets().removeIf(ticket -> 
-                    ticket.getTicketId().equals(ticketId));
-                if (removed) {
-                    saveUsersToFile();
-                    reloadUsers();
+            User user = getUserProfile(userId);
+            Train train = trainService.getTrainById(trainId);
+            if (user == null || train == null || journeyDate == null || passengers == null || passengers.isEmpty()) {
+                return new ArrayList<>();
+            }
+            
+            // The group shares one journey: the first passenger's stops, which the others may repeat.
+            // Stops are compared as the inventory resolves them, so station names ignore case.
+            String source = passengerDetail(passengers.get(0), "source", train.getSource());
+            String destination = passengerDetail(passengers.get(0), "destination", train.getDestination());
+            int[] range = SeatInventory.stopRange(train, source, destination);
+            if (range == null) {
+                return new ArrayList<>();
+            }
+            for (Map<String, Object> passenger : passengers) {
+                int[] stops = SeatInventory.stopRange(train, passengerDetail(passenger, "source", source),
+                    passengerDetail(passenger, "destination", destination));
+                if (!Arrays.equals(range, stops)) {
+                    return new ArrayList<>();
+                }
+            }
+            
+            // All seats are found and reserved in one step, so the group gets every seat or none
+            int[][] seats = seatInventory.allocateSeats(train, journeyDate, range[0], range[1], passengers.size());
+            if (seats == null) {
+                return new ArrayList<>();
+            }
+            
+            List<Ticket> group = new ArrayList<>(seats.length);
+            for (int i = 0; i < seats.length; i++) {
+                group.add(newTicket(userId, trainId, source, destination, journeyDate, seats[i],
+                    passengerDetail(passengers.get(i), "name", null)));
+            }
+            
+            // Two writes, tickets first: UserRepository reattaches tickets whose user record
+            // was lost, so a crash between them cannot leave a booking nobody owns
+            try {
+                tickets.saveAll(group);
+                users.addBookedTickets(user, group);
+            } catch (RuntimeException e) {
+                for (int[] seat : seats) {
+                    seatInventory.releaseSeat(train, journeyDate, seat[0], seat[1], range[0], range[1]);
                 }
-                return removed;
+                throw e;
+            }
+            
+            return group;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+    
+    @Override
+    public boolean cancelTicket(String ticketId) {
+        if (ticketId == null) {
+            return false;
+        }
+        // The same lock TicketServiceImpl takes, so the seat is released once whichever service cancels
+        Lock lock = tickets.lockFor(ticketId);
+        lock.lock();
+        try {
+            Ticket ticket = tickets.get(ticketId);
+            User user = ticket != null ? users.get(ticket.getUserId()) : null;
+            if (user != null && users.removeBookedTicket(user, ticket)) {
+                releaseSeat(ticket);
+                tickets.delete(ticketId);
+                return true;
             }
             return false;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            lock.unlock();
         }
     }
     
     @Override
     public Ticket rescheduleTicket(String ticketId, LocalDate newDate) {
+        if (ticketId == null) {
+            return null;
+        }
+        Lock lock = tickets.lockFor(ticketId);
+        lock.lock();
         try {
-            for (User user : userList) {
-                for (Ticket ticket : user.getBookedTickets()) {
-                    if (ticket.getTicketId().equals(ticketId)) {
-                        ticket.setDateOfTravel(newDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-                        saveUsersToFile();
-                        reloadUsers();
-                        return ticket;
+            Ticket ticket = tickets.get(ticketId);
+            User user = ticket != null ? users.get(ticket.getUserId()) : null;
+            if (user != null) {
+                Train train = ticket.getTrainId() != null ? trainService.getTrainById(ticket.getTrainId()) : null;
+                String seatNumber = ticket.getSeatNumber();
+                if (train != null && holdsSeat(ticket)) {
+                    int[] range = SeatInventory.ticketRange(train, ticket);
+                    int[] seat = seatInventory.allocateSeat(train, newDate, range[0], range[1]);
+                    if (seat == null) {
+                        return null; // Nothing free on the new date
                     }
+                    seatInventory.releaseSeat(train, ticket);
+                    seatNumber = SeatInventory.seatLabel(seat[0], seat[1]);
                 }
+                String newSeat = seatNumber;
+                tickets.update(ticket, t -> {
+                    t.setTravelDate(newDate);
+                    t.setSeatNumber(newSeat);
+                });
+                return ticket;
             }
             return null;
         } catch (Exception e) {
             e.printStackTrace();
             return null;
+        } finally {
+            lock.unlock();
         }
     }
     
     @Override
     public List<Ticket> getUserTickets(String userId) {
-        User user = getUserProfile(userId);
-        if (user != null) {
-            return new ArrayList<>(user.getBookedTickets());
-        }
-        return new ArrayList<>();
+        return users.getBookedTickets(userId);
     }
     
     @Override
     public Ticket getTicketById(String ticketId) {
-        for (User user : userList) {
-            for (Ticket ticket : user.getBookedTickets()) {
-                if (ticket.getTicketId().equals(ticketId)) {
-                    return ticket;
-                }
-            }
-        }
-        return null;
+        return tickets.get(ticketId);
     }
     
     @Override
@@ -224,26 +332,20 @@ public class UserServiceImpl implements UserService {
     
     @Override
     public User getUserProfile(String userId) {
-        reloadUsers();
-        return userList.stream()
-                .filter(user -> user.getUserId().equals(userId))
-                .findFirst()
-                .orElse(null);
+        return users.get(userId);
     }
     
     @Override
     public boolean updateUser(String userId, User updatedUser) {
         try {
-            reloadUsers();
-            for (int i = 0; i < userList.size(); i++) {
-                User user = userList.get(i);
-                if (user.getUserId().equals(userId)) {
-                    updatedUser.setUserId(userId); // Ensure ID remains the same
-                    userList.set(i, updatedUser);
-                    saveUsersToFile();
-                    reloadUsers();
-                    return true;
+            User user = getUserProfile(userId);
+            if (user != null) {
+                updatedUser.setUserId(userId); // Ensure ID remains the same
+                if (updatedUser.getBookedTickets() == null) {
+                    updatedUser.setBookedTickets(user.getBookedTickets());
                 }
+                users.save(updatedUser);
+                return true;
             }
             return false;
         } catch (Exception e) {
@@ -255,22 +357,20 @@ public class UserServiceImpl implements UserService {
     @Override
     public boolean updateUserProfile(String userId, Map<String, Object> updatedProfile) {
         try {
-            reloadUsers();
             User user = getUserProfile(userId);
             if (user != null) {
                 // Update user fields based on the provided map
-                if (updatedProfile.containsKey("name")) {
-                    user.setName((String) updatedProfile.get("name"));
-                }
-                if (updatedProfile.containsKey("email")) {
-                    user.setEmail((String) updatedProfile.get("email"));
-                }
-                if (updatedProfile.containsKey("phoneNumber")) {
-                    user.setPhoneNumber((String) updatedProfile.get("phoneNumber"));
-                }
-                
-                saveUsersToFile();
-                reloadUsers();
+                users.update(user, u -> {
+                    if (updatedProfile.containsKey("name")) {
+                        u.setName((String) updatedProfile.get("name"));
+                    }
+                    if (updatedProfile.containsKey("email")) {
+                        u.setEmail((String) updatedProfile.get("email"));
+                    }
+                    if (updatedProfile.containsKey("phoneNumber")) {
+                        u.setPhoneNumber((String) updatedProfile.get("phoneNumber"));
+                    }
+                });
                 return true;
             }
             return false;
@@ -283,13 +383,24 @@ public class UserServiceImpl implements UserService {
     // This method is not in the interface, so make it private
     private boolean deleteUser(String userId) {
         try {
-            reloadUsers();
-            boolean removed = userList.removeIf(user -> user.getUserId().equals(userId));
-            if (removed) {
-                saveUsersToFile();
-                reloadUsers();
+            User user = users.delete(userId);
+            if (user != null) {
+                sessions.invalidateUser(userId);
+                for (Ticket ticket : new ArrayList<>(user.getBookedTickets())) {
+                    Lock lock = tickets.lockFor(ticket.getTicketId());
+                    lock.lock();
+                    try {
+                        if (tickets.get(ticket.getTicketId()) == ticket) { // Not cancelled or replaced meanwhile
+                            releaseSeat(ticket);
+                            tickets.delete(ticket.getTicketId());
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                return true;
             }
-            return removed;
+            return false;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -300,40 +411,30 @@ public class UserServiceImpl implements UserService {
     
     @Override
     public User getUserByEmail(String email) {
-        reloadUsers();
-        return userList.stream()
-                .filter(user -> user.getEmail().equals(email))
-                .findFirst()
-                .orElse(null);
+        return users.getByEmail(email);
     }
     
     @Override
     public boolean userExists(String userId) {
-        reloadUsers();
         return getUserProfile(userId) != null;
     }
     
     @Override
     public boolean isEmailRegistered(String email) {
-        reloadUsers();
         return getUserByEmail(email) != null;
     }
     
     @Override
     public Map<String, Object> getUserStatistics(String userId) {
-        reloadUsers();
         User user = getUserProfile(userId);
         Map<String, Object> stats = new HashMap<>();
         
         if (user != null) {
-            List<Ticket> tickets = user.getBookedTickets();
-            stats.put("totalBookings", tickets.size());
-            stats.put("activeBookings", tickets.stream()
-                .filter(t -> "CONFIRMED".equals(t.getTicketStatus())).count());
-            stats.put("cancelledBookings", tickets.stream()
-                .filter(t -> "CANCELLED".equals(t.getTicketStatus())).count());
-            stats.put("totalSpent", tickets.stream()
-                .mapToDouble(Ticket::getPrice).sum());
+            TicketAggregates.Totals totals = tickets.totalsForUser(userId);
+            stats.put("totalBookings", users.getBookedTickets(userId).size());
+            stats.put("activeBookings", totals.count(TicketStatus.CONFIRMED));
+            stats.put("cancelledBookings", totals.count(TicketStatus.CANCELLED));
+            stats.put("totalSpent", totals.revenue() / 100.0);
         }
         
         return stats;
@@ -341,37 +442,32 @@ public class UserServiceImpl implements UserService {
     
     @Override
     public List<Ticket> getActiveTickets(String userId) {
-        reloadUsers();
         return getUserTickets(userId).stream()
-                .filter(ticket -> "CONFIRMED".equals(ticket.getTicketStatus()))
+                .filter(ticket -> ticket.getStatus() == TicketStatus.CONFIRMED)
                 .collect(Collectors.toList());
     }
     
     @Override
     public List<Ticket> getCancelledTickets(String userId) {
-        reloadUsers();
         return getUserTickets(userId).stream()
-                .filter(ticket -> "CANCELLED".equals(ticket.getTicketStatus()))
+                .filter(ticket -> ticket.getStatus() == TicketStatus.CANCELLED)
                 .collect(Collectors.toList());
     }
     
     @Override
     public List<Ticket> getCompletedJourneys(String userId) {
-        reloadUsers();
         return getUserTickets(userId).stream()
-                .filter(ticket -> "COMPLETED".equals(ticket.getTicketStatus()))
+                .filter(ticket -> ticket.getStatus() == TicketStatus.COMPLETED)
                 .collect(Collectors.toList());
     }
     
     @Override
     public boolean updateUserPreferences(String userId, Map<String, Object> preferences) {
-        reloadUsers();
         User user = getUserProfile(userId);
         if (user != null) {
             // Update user preferences
             // This would typically update a preferences field in the User entity
-            saveUsersToFile();
-            reloadUsers();
+            users.save(user);
             return true;
         }
         return false;
@@ -379,7 +475,6 @@ public class UserServiceImpl implements UserService {
     
     @Override
     public Map<String, Object> getUserPreferences(String userId) {
-        reloadUsers();
         User user = getUserProfile(userId);
         Map<String, Object> preferences = new HashMap<>();
         
@@ -393,7 +488,6 @@ public class UserServiceImpl implements UserService {
     
     @Override
     public boolean validateCredentials(String username, String password) {
-        reloadUsers();
         User user = getUserByEmail(username);
         return user != null && UserServiceUtil.checkPassword(password, user.getHashedPassword());
     }
@@ -401,12 +495,10 @@ public class UserServiceImpl implements UserService {
     @Override
     public boolean changePassword(String userId, String oldPassword, String newPassword) {
         try {
-            reloadUsers();
             User user = getUserProfile(userId);
             if (user != null && UserServiceUtil.checkPassword(oldPassword, user.getHashedPassword())) {
-                user.setHashedPassword(UserServiceUtil.hashPassword(newPassword));
-                saveUsersToFile();
-                reloadUsers();
+                String hashedPassword = UserServiceUtil.hashPassword(newPassword);
+                users.update(user, u -> u.setHashedPassword(hashedPassword));
                 return true;
             }
             return false;
@@ -418,18 +510,9 @@ public class UserServiceImpl implements UserService {
     
     @Override
     public Map<String, Object> getUserSession(String userId) {
-        reloadUsers();
-        User user = activeSessions.get(userId);
-        Map<String, Object> session = new HashMap<>();
-        
-        if (user != null) {
-            session.put("userId", user.getUserId());
-            session.put("email", user.getEmail());
-            session.put("name", user.getName());
-            session.put("isActive", true);
-        }
-        
-        return session;
+        SessionStore.Session active = sessions.getByUserId(userId);
+        User user = active != null ? users.get(userId) : null;
+        return user != null ? sessionDetails(user, active) : new HashMap<>();
     }
     
     @Override
@@ -437,37 +520,103 @@ public class UserServiceImpl implements UserService {
         return logoutUser(userId);
     }
     
+    @Override
+    public String getUserIdForToken(String token) {
+        SessionStore.Session session = sessions.get(token);
+        return session != null ? session.getUserId() : null;
+    }
+    
+    @Override
+    public CompletableFuture<Void> whenDurable() {
+        return CompletableFuture.allOf(users.whenDurable(), tickets.whenDurable());
+    }
+    
     // ==================== PRIVATE HELPER METHODS ====================
     
-    private List<User> loadUsersFromFile() {
-        try {
-            File file = new File(USERS_FILE_PATH);
-            if (file.exists()) {
-                Map<String, List<User>> data = objectMapper.readValue(file, 
-                    new TypeReference<Map<String, List<User>>>() {});
-                return data.getOrDefault("users", new ArrayList<>());
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Check a user's password, upgrading its hash if it was made at another cost
+     * @return The user, or null if the email is unknown or the password is wrong
+     * @throws PasswordHasher.OverloadedException If the hashing pool is overloaded
+     */
+    private User authenticate(String username, String password) {
+        User user = getUserByEmail(username);
+        if (user != null && UserServiceUtil.checkPassword(password, user.getHashedPassword())) {
+            rehashIfNeeded(user, password);
+            return user;
         }
-        return new ArrayList<>();
+        return null;
     }
     
-    private void saveUsersToFile() {
-        try {
-            Map<String, List<User>> data = new HashMap<>();
-            data.put("users", userList);
-            objectMapper.writeValue(new File(USERS_FILE_PATH), data);
-        } catch (IOException e) {
-            e.printStackTrace();
+    private Map<String, Object> sessionDetails(User user, SessionStore.Session active) {
+        Map<String, Object> session = new HashMap<>();
+        session.put("userId", user.getUserId());
+        session.put("email", user.getEmail());
+        session.put("name", user.getName());
+        session.put("token", active.getToken());
+        session.put("expiresAt", sessions.expiresAt(active));
+        session.put("isActive", true);
+        return session;
+    }
+    
+    /**
+     * Upgrade a hash made at another bcrypt cost now that the user has proved the password.
+     * The new hash is computed in the background so the login is not held up; if the hashing
+     * pool is busy the upgrade is simply left for a later login.
+     */
+    private void rehashIfNeeded(User user, String password) {
+        String oldHash = user.getHashedPassword();
+        if (!UserServiceUtil.needsRehash(oldHash)) {
+            return;
+        }
+        // Skipped if the password was changed while the new hash was being computed
+        PasswordHasher.shared().hashAsync(password).thenAccept(newHash ->
+            users.updateIf(user, u -> oldHash.equals(u.getHashedPassword()), u -> u.setHashedPassword(newHash)));
+    }
+    
+    /**
+     * A confirmed ticket for a seat the inventory has just reserved
+     * @param passengerName Who travels on it, or null if the booking did not say
+     */
+    private static Ticket newTicket(String userId, String trainId, String source, String destination,
+                                    LocalDate journeyDate, int[] seat, String passengerName) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(UUID.randomUUID().toString());
+        ticket.setUserId(userId);
+        ticket.setTrainId(trainId);
+        ticket.setSource(source);
+        ticket.setDestination(destination);
+        ticket.setTravelDate(journeyDate);
+        ticket.setSeatNumber(SeatInventory.seatLabel(seat[0], seat[1]));
+        ticket.setPassengerName(passengerName);
+        ticket.setStatus(TicketStatus.CONFIRMED);
+        ticket.setPrice(85.50); // Default price
+        ticket.setPaymentMethod("CREDIT_CARD");
+        ticket.setBookingDate(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")));
+        return ticket;
+    }
+    
+    /**
+     * Store the ticket once and reference it from the user's booked tickets.
+     * Only this part of a booking touches the shared stores; seat allocation happens before it.
+     */
+    private void recordBooking(User user, Ticket ticket) {
+        tickets.save(ticket);
+        users.addBookedTicket(user, ticket);
+    }
+    
+    private void releaseSeat(Ticket ticket) {
+        Train train = ticket.getTrainId() != null ? trainService.getTrainById(ticket.getTrainId()) : null;
+        if (train != null && holdsSeat(ticket)) {
+            seatInventory.releaseSeat(train, ticket);
         }
     }
     
-    private String generateSeatNumber() {
-        // Generate a random seat number
-        Random random = new Random();
-        char row = (char) ('A' + random.nextInt(26));
-        int seat = random.nextInt(50) + 1;
-        return row + String.valueOf(seat);
+    private static boolean holdsSeat(Ticket ticket) {
+        return ticket.getStatus() == null || ticket.getStatus().holdsSeat();
+    }
+    
+    private static String passengerDetail(Map<String, Object> passengerDetails, String key, String defaultValue) {
+        Object value = passengerDetails != null ? passengerDetails.get(key) : null;
+        return value != null ? value.toString() : defaultValue;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,487 @@
+package ticket.booking.utils;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.localDb.JsonCodecs;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.*;
+
+/**
+ * Writes a reproducible synthetic trains.json, users.json and tickets.json for load testing.
+ * The same seed and sizes always produce byte-identical files.
+ *
+ * Trains run along a network of lines that share interchange stations, stop at 2 to 12 of
+ * them, and have 4 to 12 coaches with a few blocked seats. Some run overnight or on weekdays only.
+ * Bookings are skewed the way real traffic is: train popularity and traveller frequency
+ * follow Zipf distributions, and dates are weighted towards Fridays, Sundays, summer and the
+ * holidays. No departure is sold beyond its sellable seats, and no seat is sold twice.
+ *
+ * Tickets and users are streamed to disk, so millions of tickets need only a few int
+ * arrays of memory. Run from Gradle with e.g.
+ * ./gradlew generateDataset -Ptickets=1000000 -Pusers=200000 -Ptrains=5000 -Pout=build/dataset
+ */
+public class DatasetGenerator {
+    public static final long DEFAULT_SEED = 42L;
+    public static final String DEFAULT_PASSWORD = "password123";
+    public static final LocalDate DEFAULT_START_DATE = LocalDate.of(2025, 1, 1);
+    public static final int DEFAULT_DAYS = 365;
+
+    private static final String[] FIRST_NAMES = {"Ava", "Ben", "Chloe", "Daniel", "Emma", "Farah", "Grace", "Hiro",
+        "Isla", "Jack", "Kiran", "Lena", "Mateo", "Nora", "Omar", "Priya", "Quinn", "Rosa", "Sam", "Tara"};
+    private static final String[] LAST_NAMES = {"Adams", "Brown", "Chen", "Diaz", "Evans", "Fischer", "Garcia",
+        "Hughes", "Ito", "Jones", "Khan", "Lopez", "Miller", "Nguyen", "Okafor", "Patel", "Rossi", "Smith"};
+    private static final String[] STATION_SUFFIXES = {"Central", "Junction", "Park", "Harbour", "North", "South",
+        "Bridge", "Market", "Airport", "Valley"};
+    private static final String[] PAYMENT_METHODS = {"CREDIT_CARD", "CREDIT_CARD", "DEBIT_CARD", "UPI"};
+    private static final double TRAIN_SKEW = 1.1;
+    private static final double USER_SKEW = 0.8;
+    private static final int MAX_DRAWS = 64;
+
+    private final long seed;
+    private final int trainCount;
+    private final int userCount;
+    private final int ticketCount;
+    private final LocalDate startDate;
+    private final int days;
+    private final String password;
+
+    public DatasetGenerator(long seed, int trainCount, int userCount, int ticketCount) {
+        this(seed, trainCount, userCount, ticketCount, DEFAULT_START_DATE, DEFAULT_DAYS, DEFAULT_PASSWORD);
+    }
+
+    public DatasetGenerator(long seed, int trainCount, int userCount, int ticketCount,
+                            LocalDate startDate, int days, String password) {
+        if (trainCount < 1 || userCount < 1 || ticketCount < 0 || days < 1) {
+            throw new IllegalArgumentException("Need at least one train, one user and one day");
+        }
+        this.seed = seed;
+        this.trainCount = trainCount;
+        this.userCount = userCount;
+        this.ticketCount = ticketCount;
+        this.startDate = startDate;
+        this.days = days;
+        this.password = password;
+    }
+
+    public static String trainId(int index) {
+        return "T" + index;
+    }
+
+    public static String userId(int index) {
+        return "U" + index;
+    }
+
+    public static String email(int index) {
+        return "user" + index + "@example.com";
+    }
+
+    public static String ticketId(int index) {
+        return "K" + index;
+    }
+
+    /**
+     * Write trains.json, users.json and tickets.json into a directory, creating it if needed
+     */
+    public void generate(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        List<Train> trains = generateTrains();
+        JsonCodecs.TRAINS_DOCUMENT_WRITER.writeValue(directory.resolve("trains.json").toFile(),
+            Collections.singletonMap("trains", trains));
+        int[] owners = writeTickets(directory.resolve("tickets.json"), trains);
+        writeUsers(directory.resolve("users.json"), owners);
+    }
+
+    // ==================== TRAINS ====================
+
+    private List<Train> generateTrains() {
+        Random random = new Random(seed);
+        int stationCount = Math.max(30, trainCount / 4);
+        String[] stations = new String[stationCount];
+        for (int i = 0; i < stationCount; i++) {
+            stations[i] = "City " + (i / STATION_SUFFIXES.length + 1) + " " + STATION_SUFFIXES[i % STATION_SUFFIXES.length];
+        }
+        // Lines are random walks over the stations; stations on several lines become interchanges
+        int lineCount = Math.max(4, stationCount / 15);
+        List<int[]> lines = new ArrayList<>(lineCount);
+        for (int line = 0; line < lineCount; line++) {
+            int length = Math.min(stationCount, 12 + random.nextInt(24));
+            int[] stops = new int[length];
+            Set<Integer> used = new HashSet<>();
+            for (int stop = 0; stop < length; stop++) {
+                int station;
+                do {
+                    station = random.nextInt(stationCount);
+                } while (!used.add(station));
+                stops[stop] = station;
+            }
+            lines.add(stops);
+        }
+        double[] lineWeights = zipfCdf(lineCount, 1.0);
+
+        List<Train> trains = new ArrayList<>(trainCount);
+        for (int index = 0; index < trainCount; index++) {
+            int[] line = lines.get(sample(lineWeights, random));
+            boolean reverse = random.nextBoolean();
+            boolean express = random.nextInt(4) == 0;
+            int stopCount = 2 + random.nextInt(Math.min(11, line.length - 1));
+            int stride = express ? 2 : 1;
+            int span = (stopCount - 1) * stride + 1;
+            if (span > line.length) {
+                stride = 1;
+                span = stopCount;
+            }
+            int first = random.nextInt(line.length - span + 1);
+
+            List<String> route = new ArrayList<>(stopCount);
+            Map<String, String> times = new LinkedHashMap<>();
+            boolean overnight = random.nextInt(10) == 0;
+            int minute = overnight ? 19 * 60 + random.nextInt(4 * 60) : 5 * 60 + random.nextInt(15 * 60);
+            int startMinute = minute;
+            int endMinute = minute;
+            for (int stop = 0; stop < stopCount; stop++) {
+                int position = first + stop * stride;
+                String station = stations[line[reverse ? line.length - 1 - position : position]];
+                route.add(station);
+                times.put(station, String.format("%02d:%02d:00", (minute / 60) % 24, minute % 60));
+                endMinute = minute;
+                minute += (overnight ? 90 : 20) + random.nextInt(overnight ? 180 : 70);
+            }
+
+            List<List<Integer>> seats = new ArrayList<>();
+            int coaches = 4 + random.nextInt(9);
+            int width = express ? 12 : 16 + 4 * random.nextInt(3);
+            int sellable = 0;
+            for (int coach = 0; coach < coaches; coach++) {
+                List<Integer> row = new ArrayList<>(width);
+                for (int seat = 0; seat < width; seat++) {
+                    int value = random.nextInt(25) == 0 ? 0 : 1; // About 4% blocked
+                    sellable += value;
+                    row.add(value);
+                }
+                seats.add(row);
+            }
+
+            Train train = new Train(trainId(index), (express ? "EX-" : "RG-") + (100 + index),
+                (express ? "Express " : "Regional ") + index, route.get(0), route.get(stopCount - 1),
+                times.get(route.get(0)).substring(0, 5),
+                String.format("%02d:%02d", (endMinute / 60) % 24, endMinute % 60), seats, route, times,
+                overnight ? "OVERNIGHT" : express ? "EXPRESS" : "REGIONAL", sellable, sellable,
+                Math.round((20 + (endMinute - startMinute) * (express ? 0.9 : 0.6)) * 100) / 100.0);
+            train.setOperatingDays(random.nextInt(5) == 0 ? weekdays() : everyDay());
+            trains.add(train);
+        }
+        return trains;
+    }
+
+    // ==================== TICKETS ====================
+
+    /**
+     * Stream tickets.json and return each ticket's owning user index
+     */
+    private int[] writeTickets(Path file, List<Train> trains) throws IOException {
+        Random random = new Random(seed * 31 + 1);
+        double[] trainWeights = zipfCdf(trains.size(), TRAIN_SKEW);
+        int[] trainRank = permutation(trains.size(), random);
+        double[] userWeights = zipfCdf(userCount, USER_SKEW);
+        int[] userRank = permutation(userCount, random);
+        double[] dateWeights = dateCdf();
+
+        // Sellable seat positions per train, and seats sold so far per departure
+        int[][] sellableSeats = new int[trains.size()][];
+        boolean[][] runsOn = new boolean[trains.size()][];
+        for (int i = 0; i < trains.size(); i++) {
+            sellableSeats[i] = sellablePositions(trains.get(i));
+            runsOn[i] = operatingCalendar(trains.get(i));
+        }
+        int[] sold = new int[trains.size() * days];
+
+        int[] owners = new int[ticketCount];
+        try (JsonGenerator generator = JsonCodecs.MAPPER.getFactory().createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            for (int index = 0; index < ticketCount; index++) {
+                int trainIndex = -1;
+                int day = -1;
+                for (int draw = 0; draw < MAX_DRAWS; draw++) {
+                    int candidateTrain = trainRank[sample(trainWeights, random)];
+                    int candidateDay = sample(dateWeights, random);
+                    if (runsOn[candidateTrain][candidateDay]
+                            && sold[candidateTrain * days + candidateDay] < sellableSeats[candidateTrain].length) {
+                        trainIndex = candidateTrain;
+                        day = candidateDay;
+                        break;
+                    }
+                }
+                if (trainIndex < 0) {
+                    int departure = firstUnsoldDeparture(sold, sellableSeats, runsOn, random.nextInt(sold.length));
+                    trainIndex = departure / days;
+                    day = departure % days;
+                }
+                Train train = trains.get(trainIndex);
+                int position = sellableSeats[trainIndex][sold[trainIndex * days + day]++];
+                int owner = userRank[sample(userWeights, random)];
+                owners[index] = owner;
+                generator.writeObject(ticket(index, train, owner, day, position, random));
+            }
+            generator.writeEndArray();
+        }
+        return owners;
+    }
+
+    private Ticket ticket(int index, Train train, int owner, int day, int position, Random random) {
+        List<String> stops = train.getStations();
+        // Most passengers ride end to end; the rest board or alight at intermediate stops
+        int from = 0;
+        int to = stops.size() - 1;
+        if (stops.size() > 2 && random.nextInt(3) == 0) {
+            from = random.nextInt(stops.size() - 1);
+            to = from + 1 + random.nextInt(stops.size() - from - 1);
+        }
+        LocalDate travelDate = startDate.plusDays(day);
+        int status = random.nextInt(100);
+
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ticketId(index));
+        ticket.setUserId(userId(owner));
+        ticket.setTrainId(train.getTrainId());
+        ticket.setSource(stops.get(from));
+        ticket.setDestination(stops.get(to));
+        ticket.setTravelDate(travelDate);
+        ticket.setSeatNumber(seatLabel(train, position));
+        ticket.setTicketStatus(status < 85 ? "CONFIRMED" : status < 93 ? "CANCELLED" : status < 97 ? "PAID" : "COMPLETED");
+        ticket.setPrice(Math.round(train.getBasePrice() * (to - from) / (stops.size() - 1) * 100) / 100.0);
+        ticket.setPaymentMethod(PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)]);
+        ticket.setBookingDate(travelDate.minusDays(random.nextInt(60)) + "T"
+            + String.format("%02d:%02d:%02d", random.nextInt(24), random.nextInt(60), random.nextInt(60)));
+        return ticket;
+    }
+
+    // ==================== USERS ====================
+
+    private void writeUsers(Path file, int[] owners) throws IOException {
+        // Group ticket indexes by owner without boxing: counts, then offsets, then fill
+        int[] offsets = new int[userCount + 1];
+        for (int owner : owners) {
+            offsets[owner + 1]++;
+        }
+        for (int user = 0; user < userCount; user++) {
+            offsets[user + 1] += offsets[user];
+        }
+        int[] ticketsByUser = new int[owners.length];
+        int[] fill = Arrays.copyOf(offsets, userCount);
+        for (int index = 0; index < owners.length; index++) {
+            ticketsByUser[fill[owners[index]]++] = index;
+        }
+
+        Random random = new Random(seed * 31 + 2);
+        // One hash shared by every user; hashing millions of passwords would dominate generation.
+        // The salt comes from the seed so the file stays reproducible.
+        String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt(10, seededRandom(seed)));
+        try (JsonGenerator generator = JsonCodecs.MAPPER.getFactory().createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("users");
+            for (int index = 0; index < userCount; index++) {
+                List<String> ticketIds = new ArrayList<>(offsets[index + 1] - offsets[index]);
+                for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+                    ticketIds.add(ticketId(ticketsByUser[i]));
+                }
+                User user = new User();
+                user.setUserId(userId(index));
+                user.setName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+                user.setEmail(email(index));
+                user.setHashedPassword(hashedPassword);
+                user.setPhoneNumber(String.format("+1-555-%03d-%04d", random.nextInt(1000), random.nextInt(10000)));
+                user.setRegistrationDate(startDate.minusDays(1 + random.nextInt(1000)) + "T09:00:00");
+                user.setBookedTicketIds(ticketIds);
+                generator.writeObject(user);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    /**
+     * Cumulative Zipf weights: rank k has weight 1 / (k + 1)^skew
+     */
+    private static double[] zipfCdf(int size, double skew) {
+        double[] cdf = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1.0 / Math.pow(rank + 1, skew);
+            cdf[rank] = total;
+        }
+        return cdf;
+    }
+
+    /**
+     * Cumulative weights for each day in the range: busier on Fridays and Sundays,
+     * in summer and over the year-end holidays
+     */
+    private double[] dateCdf() {
+        double[] cdf = new double[days];
+        double total = 0;
+        for (int day = 0; day < days; day++) {
+            LocalDate date = startDate.plusDays(day);
+            double weight;
+            switch (date.getDayOfWeek()) {
+                case FRIDAY:
+                case SUNDAY:
+                    weight = 1.6;
+                    break;
+                case SATURDAY:
+                    weight = 1.2;
+                    break;
+                default:
+                    weight = 0.85;
+            }
+            Month month = date.getMonth();
+            if (month == Month.JUNE || month == Month.JULY || month == Month.AUGUST) {
+                weight *= 1.3;
+            } else if ((month == Month.DECEMBER && date.getDayOfMonth() >= 18)
+                    || (month == Month.JANUARY && date.getDayOfMonth() <= 3)) {
+                weight *= 1.8;
+            }
+            total += weight;
+            cdf[day] = total;
+        }
+        return cdf;
+    }
+
+    private static SecureRandom seededRandom(long seed) {
+        try {
+            SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+            random.setSeed(seed); // Seeding before first use makes SHA1PRNG deterministic
+            return random;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int sample(double[] cdf, Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble() * cdf[cdf.length - 1]);
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+
+    /**
+     * Random mapping from popularity rank to index, so the busiest train or user is not always number 0
+     */
+    private static int[] permutation(int size, Random random) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    private int firstUnsoldDeparture(int[] sold, int[][] sellableSeats, boolean[][] runsOn, int from) {
+        for (int offset = 0; offset < sold.length; offset++) {
+            int departure = (from + offset) % sold.length;
+            int train = departure / days;
+            if (runsOn[train][departure % days] && sold[departure] < sellableSeats[train].length) {
+                return departure;
+            }
+        }
+        throw new IllegalArgumentException("Not enough seats for " + ticketCount
+            + " tickets; add trains or days");
+    }
+
+    /**
+     * Sellable seats encoded as coach * 1024 + seat, in allocation order
+     */
+    private static int[] sellablePositions(Train train) {
+        List<Integer> positions = new ArrayList<>();
+        for (int coach = 0; coach < train.getSeats().size(); coach++) {
+            List<Integer> row = train.getSeats().get(coach);
+            for (int seat = 0; seat < row.size(); seat++) {
+                if (row.get(seat) == 1) {
+                    positions.add(coach * 1024 + seat);
+                }
+            }
+        }
+        int[] result = new int[positions.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = positions.get(i);
+        }
+        return result;
+    }
+
+    private static String seatLabel(Train train, int position) {
+        // Same "S<coach>-<seat>" format the seat inventory parses
+        return "S" + (position / 1024 + 1) + "-" + (position % 1024 + 1);
+    }
+
+    private boolean[] operatingCalendar(Train train) {
+        boolean[] runs = new boolean[days];
+        for (int day = 0; day < days; day++) {
+            runs[day] = train.getOperatingDays().contains(startDate.plusDays(day).getDayOfWeek().name());
+        }
+        return runs;
+    }
+
+    private static List<String> everyDay() {
+        List<String> result = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            result.add(day.name());
+        }
+        return result;
+    }
+
+    private static List<String> weekdays() {
+        List<String> result = everyDay();
+        result.remove(DayOfWeek.SATURDAY.name());
+        result.remove(DayOfWeek.SUNDAY.name());
+        return result;
+    }
+
+    // ==================== COMMAND LINE ====================
+
+    /**
+     * Arguments: --seed=N --trains=N --users=N --tickets=N --start=YYYY-MM-DD --days=N
+     * --password=TEXT --out=DIR. Anything left out takes its default.
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                System.err.println("Unrecognised argument: " + arg);
+                System.exit(1);
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        long seed = Long.parseLong(options.getOrDefault("seed", String.valueOf(DEFAULT_SEED)));
+        int trains = Integer.parseInt(options.getOrDefault("trains", "1000"));
+        int users = Integer.parseInt(options.getOrDefault("users", "10000"));
+        int tickets = Integer.parseInt(options.getOrDefault("tickets", "100000"));
+        LocalDate start = LocalDate.parse(options.getOrDefault("start", DEFAULT_START_DATE.toString()));
+        int days = Integer.parseInt(options.getOrDefault("days", String.valueOf(DEFAULT_DAYS)));
+        String password = options.getOrDefault("password", DEFAULT_PASSWORD);
+        Path out = Paths.get(options.getOrDefault("out", "build/dataset"));
+
+        long started = System.nanoTime();
+        new DatasetGenerator(seed, trains, users, tickets, start, days, password).generate(out);
+        System.out.printf("Wrote %d trains, %d users and %d tickets to %s in %.1f s%n",
+            trains, users, tickets, out.toAbsolutePath(), (System.nanoTime() - started) / 1e9);
+    }
+}
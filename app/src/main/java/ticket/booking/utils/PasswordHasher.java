@@ -0,0 +1,176 @@
+package ticket.booking.utils;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bcrypt hashing and verification on a small dedicated pool, so a burst of logins
+ * uses at most THREADS cores and never starves the threads doing bookings.
+ * Work beyond the pool waits in a bounded queue; once that is full, or a caller has waited
+ * longer than the timeout, the request fails fast with OverloadedException instead of
+ * piling up. Tune with -Dbooking.bcrypt.cost (work factor, default 10),
+ * -Dbooking.bcrypt.threads (default half the cores), -Dbooking.bcrypt.queue and
+ * -Dbooking.bcrypt.timeoutMs. Hashes made at another cost still verify; needsRehash()
+ * tells callers to upgrade them.
+ */
+public class PasswordHasher {
+    public static final int MIN_COST = 4;
+    public static final int MAX_COST = 31;
+    public static final int DEFAULT_COST = 10;
+
+    private static final int COST = clampCost(Integer.getInteger("booking.bcrypt.cost", DEFAULT_COST));
+    private static final int THREADS =
+        Math.max(1, Integer.getInteger("booking.bcrypt.threads", Runtime.getRuntime().availableProcessors() / 2));
+    private static final int QUEUE_CAPACITY = Math.max(1, Integer.getInteger("booking.bcrypt.queue", THREADS * 64));
+    private static final long TIMEOUT_MILLIS = Long.getLong("booking.bcrypt.timeoutMs", 5000);
+    private static PasswordHasher shared;
+
+    private final int cost;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Thrown when the hashing queue is full or a request waited longer than the timeout
+     */
+    public static class OverloadedException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        public OverloadedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The hasher configured by the booking.bcrypt.* properties, created on first use
+     */
+    public static synchronized PasswordHasher shared() {
+        if (shared == null) {
+            shared = new PasswordHasher(COST, THREADS, QUEUE_CAPACITY, TIMEOUT_MILLIS);
+        }
+        return shared;
+    }
+
+    /**
+     * @param cost bcrypt work factor for new hashes, clamped to MIN_COST..MAX_COST
+     * @param threads Number of threads doing bcrypt work
+     * @param queueCapacity Requests allowed to wait for a thread before new ones are rejected
+     * @param timeoutMillis How long a caller waits for its result
+     */
+    public PasswordHasher(int cost, int threads, int queueCapacity, long timeoutMillis) {
+        this.cost = clampCost(cost);
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "bcrypt-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    public int cost() {
+        return cost;
+    }
+
+    /**
+     * Hash a password at the configured cost, waiting for a hashing thread
+     * @throws OverloadedException if the queue is full or the timeout passes
+     */
+    public String hash(String plainPassword) {
+        return await(submit(() -> BCrypt.hashpw(plainPassword, BCrypt.gensalt(cost))));
+    }
+
+    /**
+     * Hash a password without waiting for the result
+     * @return Completes with the hash, or exceptionally with OverloadedException if the queue is full
+     */
+    public CompletableFuture<String> hashAsync(String plainPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> BCrypt.hashpw(plainPassword, BCrypt.gensalt(cost)), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new OverloadedException("Password hashing queue is full"));
+        }
+    }
+
+    /**
+     * Check a password against a stored hash of any cost, waiting for a hashing thread
+     * @throws OverloadedException if the queue is full or the timeout passes
+     */
+    public boolean verify(String plainPassword, String hashedPassword) {
+        return await(submit(() -> BCrypt.checkpw(plainPassword, hashedPassword)));
+    }
+
+    /**
+     * Whether a stored hash was made at a cost other than the configured one
+     * (or is not a bcrypt hash this class understands) and should be replaced
+     */
+    public boolean needsRehash(String hashedPassword) {
+        return costOf(hashedPassword) != cost;
+    }
+
+    /**
+     * Work factor of a bcrypt hash such as "$2a$10$..."
+     * @return The cost, or -1 if the hash is not in that form
+     */
+    public static int costOf(String hashedPassword) {
+        if (hashedPassword == null || !hashedPassword.startsWith("$2")) {
+            return -1;
+        }
+        int start = hashedPassword.indexOf('$', 2) + 1;
+        if (start == 0 || start + 2 >= hashedPassword.length() || hashedPassword.charAt(start + 2) != '$') {
+            return -1;
+        }
+        char tens = hashedPassword.charAt(start);
+        char units = hashedPassword.charAt(start + 1);
+        if (tens < '0' || tens > '9' || units < '0' || units > '9') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new OverloadedException("Password hashing queue is full");
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false); // Drop it if it is still queued
+            throw new OverloadedException("Password hashing timed out after " + timeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause(); // e.g. an invalid stored hash
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static int clampCost(int cost) {
+        return Math.max(MIN_COST, Math.min(MAX_COST, cost));
+    }
+}
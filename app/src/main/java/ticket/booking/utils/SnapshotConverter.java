@@ -0,0 +1,128 @@
+package ticket.booking.utils;
+
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.localDb.AtomicFiles;
+import ticket.booking.localDb.BinarySnapshot;
+import ticket.booking.localDb.DataDirectory;
+import ticket.booking.localDb.JsonCodecs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Converts a data directory between the JSON snapshots and the binary ones (see BinarySnapshot).
+ * "export" writes trains.bin, users.bin and tickets.bin from the JSON files; "import" writes
+ * the JSON files back from the binary ones. Journals are left alone: they apply equally on
+ * top of either snapshot. Run from Gradle with e.g.
+ * ./gradlew convertSnapshot -Pdirection=export -Pdir=build/dataset
+ */
+public class SnapshotConverter {
+    private static final String DEFAULT_DIRECTORY = "app/src/main/resources";
+
+    private final Path directory;
+
+    public SnapshotConverter(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Write the binary snapshots from the JSON ones. Tickets still embedded in users
+     * from the old users.json format are carried over into tickets.bin.
+     */
+    public void exportToBinary() throws IOException {
+        List<Train> trains = new ArrayList<>();
+        if (file("trains.json").exists()) {
+            Map<String, List<Train>> data = JsonCodecs.TRAINS_DOCUMENT_READER.readValue(file("trains.json"));
+            trains = data.getOrDefault("trains", trains);
+        }
+        List<User> users = new ArrayList<>();
+        if (file("users.json").exists() && file("users.json").length() > 0) {
+            Map<String, List<User>> data = JsonCodecs.USERS_DOCUMENT_READER.readValue(file("users.json"));
+            users = data.getOrDefault("users", users);
+        }
+        Map<String, Ticket> tickets = new LinkedHashMap<>();
+        if (file("tickets.json").exists() && file("tickets.json").length() > 0) {
+            for (Ticket ticket : JsonCodecs.TICKET_LIST_READER.<List<Ticket>>readValue(file("tickets.json"))) {
+                tickets.put(ticket.getTicketId(), ticket);
+            }
+        }
+        for (User user : users) {
+            if (user.getBookedTickets() != null) {
+                for (Ticket embedded : user.getBookedTickets()) {
+                    tickets.putIfAbsent(embedded.getTicketId(), embedded);
+                }
+            }
+        }
+        BinarySnapshot.writeTrains(binaryPath("trains.json"), trains);
+        BinarySnapshot.writeUsers(binaryPath("users.json"), users);
+        BinarySnapshot.writeTickets(binaryPath("tickets.json"), tickets.values());
+        System.out.printf("Exported %d trains, %d users and %d tickets%n", trains.size(), users.size(), tickets.size());
+    }
+
+    /**
+     * Write the JSON snapshots from the binary ones, skipping any binary file that is missing
+     */
+    public void importFromBinary() throws IOException {
+        int trains = 0;
+        int users = 0;
+        int tickets = 0;
+        if (new File(binaryPath("trains.json")).exists()) {
+            List<Train> list = BinarySnapshot.readTrains(binaryPath("trains.json"));
+            Map<String, List<Train>> data = new HashMap<>();
+            data.put("trains", list);
+            AtomicFiles.write(file("trains.json").getPath(), out -> JsonCodecs.TRAINS_DOCUMENT_WRITER.writeValue(out, data));
+            trains = list.size();
+        }
+        if (new File(binaryPath("users.json")).exists()) {
+            List<User> list = BinarySnapshot.readUsers(binaryPath("users.json"));
+            Map<String, Collection<User>> data = new HashMap<>();
+            data.put("users", list);
+            AtomicFiles.write(file("users.json").getPath(), out -> JsonCodecs.USERS_DOCUMENT_WRITER.writeValue(out, data));
+            users = list.size();
+        }
+        if (new File(binaryPath("tickets.json")).exists()) {
+            List<Ticket> list = BinarySnapshot.readTickets(binaryPath("tickets.json"));
+            AtomicFiles.write(file("tickets.json").getPath(), out -> JsonCodecs.TICKET_LIST_WRITER.writeValue(out, list));
+            tickets = list.size();
+        }
+        System.out.printf("Imported %d trains, %d users and %d tickets%n", trains, users, tickets);
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private File file(String name) {
+        return directory.resolve(name).toFile();
+    }
+
+    private String binaryPath(String jsonName) {
+        return BinarySnapshot.binaryPath(file(jsonName).getPath());
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                System.err.println("Unrecognised argument: " + arg);
+                System.exit(1);
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        String direction = options.getOrDefault("direction", "export");
+        Path dir = Paths.get(options.getOrDefault("dir", System.getProperty(DataDirectory.PROPERTY, DEFAULT_DIRECTORY)));
+        SnapshotConverter converter = new SnapshotConverter(dir);
+        if ("export".equalsIgnoreCase(direction)) {
+            converter.exportToBinary();
+        } else if ("import".equalsIgnoreCase(direction)) {
+            converter.importFromBinary();
+        } else {
+            System.err.println("--direction must be export or import");
+            System.exit(1);
+        }
+    }
+}
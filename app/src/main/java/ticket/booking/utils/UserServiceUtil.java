@@ -1,7 +1,5 @@
 package ticket.booking.utils;
 
-import org.mindrot.jbcrypt.BCrypt;
-
 public class UserServiceUtil {
     // Utility methods for user service can be added here
     // For example, methods to validate user input, hash passwords, etc.
@@ -14,8 +12,11 @@ public class UserServiceUtil {
         return password != null && password.length() >= 6;
     }
 
+    /**
+     * Hash a password at the configured bcrypt cost on the shared hashing pool, see PasswordHasher
+     */
     public static String hashPassword(String plainPassword) {
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt());
+        return PasswordHasher.shared().hash(plainPassword);
     }
 
     public static boolean isUserRegistered(String email, String password) {
@@ -27,7 +28,14 @@ public class UserServiceUtil {
     public static boolean checkPassword(String inputPassword, String storedHashedPassword) {
         // Placeholder for password checking logic
         // In a real application, this would compare the hashed input password with the stored hashed password
-        return BCrypt.checkpw(inputPassword, storedHashedPassword);
+        return PasswordHasher.shared().verify(inputPassword, storedHashedPassword);
+    }
+
+    /**
+     * Whether a stored hash should be replaced because the configured bcrypt cost changed
+     */
+    public static boolean needsRehash(String storedHashedPassword) {
+        return PasswordHasher.shared().needsRehash(storedHashedPassword);
     }
 
     // Add more utility methods as needed
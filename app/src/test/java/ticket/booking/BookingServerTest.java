@@ -0,0 +1,221 @@
+package ticket.booking;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ticket.booking.entities.User;
+import ticket.booking.localDb.InMemorySeatInventory;
+import ticket.booking.localDb.JsonCodecs;
+import ticket.booking.localDb.TicketRepository;
+import ticket.booking.localDb.TrainCatalog;
+import ticket.booking.localDb.UserRepository;
+import ticket.booking.services.TicketServiceImpl;
+import ticket.booking.services.TrainServiceImpl;
+import ticket.booking.services.UserServiceImpl;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * One request/response round trip per route, against a server on a free port backed by
+ * stores in a temporary directory, plus many clients booking the same train at once
+ */
+public class BookingServerTest {
+    private static final String TRAINS = """
+        {"trains": [{"trainId": "1001", "source": "New York", "destination": "Boston",
+                     "stations": ["New York", "New Haven", "Boston"], "seats": [[1, 1, 1]]}]}
+        """;
+
+    private Path dir;
+    private TicketRepository tickets;
+    private UserRepository users;
+    private BookingServer server;
+    private HttpClient client;
+
+    @Before public void startServer() throws IOException {
+        dir = Files.createTempDirectory("booking-server-test");
+        Files.writeString(dir.resolve("trains.json"), TRAINS);
+        TrainCatalog catalog = new TrainCatalog(dir.resolve("trains.json").toString());
+        tickets = new TicketRepository(dir.resolve("tickets.json").toString(), dir.resolve("tickets.journal").toString());
+        users = new UserRepository(dir.resolve("users.json").toString(), dir.resolve("users.journal").toString(), tickets);
+        InMemorySeatInventory inventory = new InMemorySeatInventory();
+        TrainServiceImpl trainService = new TrainServiceImpl(inventory, catalog, tickets);
+        UserServiceImpl userService = new UserServiceImpl(trainService, inventory, users, tickets);
+        TicketServiceImpl ticketService = new TicketServiceImpl(inventory, catalog, users, tickets);
+        register(userService, "u1", "ada@example.com");
+        register(userService, "u2", "bob@example.com");
+
+        server = new BookingServer(userService, trainService, ticketService, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @After public void stopServer() throws IOException {
+        server.stop(0);
+        users.close();
+        tickets.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void loginReturnsATokenAndRejectsABadPassword() throws Exception {
+        Response ok = post("/login", null, "{\"email\": \"ada@example.com\", \"password\": \"secret\"}");
+        assertEquals(200, ok.status);
+        assertEquals("u1", ok.body.get("userId").asText());
+        assertFalse(ok.body.get("token").asText().isEmpty());
+
+        Response wrong = post("/login", null, "{\"email\": \"ada@example.com\", \"password\": \"guess\"}");
+        assertEquals(401, wrong.status);
+        assertTrue(wrong.body.has("error"));
+
+        assertEquals(400, post("/login", null, "{\"email\": \"ada@example.com\"}").status);
+        assertEquals(405, get("/login", null).status);
+    }
+
+    @Test public void searchFindsTrainsPassingThroughBothStations() throws Exception {
+        Response found = get("/trains/search?source=New%20Haven&destination=Boston&date=2026-03-02", null);
+        assertEquals(200, found.status);
+        assertEquals(1, found.body.size());
+        assertEquals("1001", found.body.get(0).get("trainId").asText());
+
+        Response backwards = get("/trains/search?source=Boston&destination=New%20Haven&date=2026-03-02", null);
+        assertEquals(0, backwards.body.size());
+
+        assertEquals(400, get("/trains/search?source=Boston&destination=New%20Haven&date=tomorrow", null).status);
+    }
+
+    @Test public void bookingNeedsASessionAndSellsEachSeatOnce() throws Exception {
+        assertEquals(401, post("/tickets", null, "{\"trainId\": \"1001\", \"date\": \"2026-03-02\"}").status);
+
+        String token = login("ada@example.com");
+        Response first = post("/tickets", token, "{\"trainId\": \"1001\", \"date\": \"2026-03-02\"}");
+        assertEquals(201, first.status);
+        assertEquals("u1", first.body.get("userId").asText());
+        assertEquals("New York", first.body.get("source").asText());
+
+        Response group = post("/tickets", token, """
+            {"trainId": "1001", "date": "2026-03-02", "source": "New Haven", "destination": "Boston",
+             "passengers": [{"name": "Ada"}, {"name": "Grace"}]}
+            """);
+        assertEquals(201, group.status);
+        assertEquals(2, group.body.size());
+        assertNotEquals(group.body.get(0).get("seatNumber").asText(), group.body.get(1).get("seatNumber").asText());
+
+        Response full = post("/tickets", token, "{\"trainId\": \"1001\", \"date\": \"2026-03-02\"}");
+        assertEquals(409, full.status);
+        assertEquals(404, post("/tickets", token, "{\"trainId\": \"9999\", \"date\": \"2026-03-02\"}").status);
+    }
+
+    @Test public void ticketsAreVisibleOnlyToTheirOwner() throws Exception {
+        String token = login("ada@example.com");
+        String ticketId = post("/tickets", token, "{\"trainId\": \"1001\", \"date\": \"2026-03-02\"}")
+            .body.get("ticketId").asText();
+
+        Response own = get("/tickets/" + ticketId, token);
+        assertEquals(200, own.status);
+        assertEquals(ticketId, own.body.get("ticketId").asText());
+
+        assertEquals(404, get("/tickets/" + ticketId, login("bob@example.com")).status);
+        assertEquals(404, get("/tickets/no-such-ticket", token).status);
+    }
+
+    @Test public void cancelMarksTheTicketCancelled() throws Exception {
+        String token = login("ada@example.com");
+        String ticketId = post("/tickets", token, "{\"trainId\": \"1001\", \"date\": \"2026-03-02\"}")
+            .body.get("ticketId").asText();
+
+        assertEquals("someone else's ticket", 404, post("/tickets/" + ticketId + "/cancel", login("bob@example.com"), "").status);
+        Response cancelled = post("/tickets/" + ticketId + "/cancel", token, "");
+        assertEquals(200, cancelled.status);
+        assertEquals("CANCELLED", cancelled.body.get("ticketStatus").asText());
+        assertEquals("repeating a cancel is harmless", 200, post("/tickets/" + ticketId + "/cancel", token, "").status);
+        assertEquals(405, get("/tickets/" + ticketId + "/cancel", token).status);
+    }
+
+    @Test public void concurrentClientsAreEachSoldADifferentSeat() throws Exception {
+        String[] tokens = {login("ada@example.com"), login("bob@example.com")};
+        List<CompletableFuture<HttpResponse<String>>> requests = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            HttpRequest request = request("/tickets", tokens[i % 2])
+                .POST(HttpRequest.BodyPublishers.ofString("{\"trainId\": \"1001\", \"date\": \"2026-03-02\"}"))
+                .build();
+            requests.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+
+        Set<String> seats = new HashSet<>();
+        int soldOut = 0;
+        for (CompletableFuture<HttpResponse<String>> request : requests) {
+            HttpResponse<String> response = request.get(30, TimeUnit.SECONDS);
+            if (response.statusCode() == 201) {
+                String seat = JsonCodecs.MAPPER.readTree(response.body()).get("seatNumber").asText();
+                assertTrue("seat " + seat + " sold twice", seats.add(seat));
+            } else {
+                assertEquals(response.body(), 409, response.statusCode());
+                soldOut++;
+            }
+        }
+        assertEquals("all three seats sold", 3, seats.size());
+        assertEquals(61, soldOut);
+        assertEquals(3, tickets.countByTrainId("1001"));
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private record Response(int status, JsonNode body) {
+    }
+
+    private static void register(UserServiceImpl userService, String userId, String email) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setName(userId);
+        user.setEmail(email);
+        user.setPassword("secret");
+        assertTrue(userService.registerUser(user));
+    }
+
+    private String login(String email) throws Exception {
+        Response response = post("/login", null, "{\"email\": \"" + email + "\", \"password\": \"secret\"}");
+        assertEquals(200, response.status);
+        return response.body.get("token").asText();
+    }
+
+    private Response get(String path, String token) throws Exception {
+        return send(request(path, token).GET());
+    }
+
+    private Response post(String path, String token, String json) throws Exception {
+        return send(request(path, token).POST(HttpRequest.BodyPublishers.ofString(json)));
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private Response send(HttpRequest.Builder builder) throws Exception {
+        HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        return new Response(response.statusCode(), JsonCodecs.MAPPER.readTree(response.body()));
+    }
+}
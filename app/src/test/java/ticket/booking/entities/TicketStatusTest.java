@@ -0,0 +1,63 @@
+package ticket.booking.entities;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TicketStatusTest {
+    private static final TicketStatus[] TO = {
+        TicketStatus.CONFIRMED, TicketStatus.PAID, TicketStatus.CANCELLED, TicketStatus.REFUNDED,
+        TicketStatus.COMPLETED, null
+    };
+
+    // One row per current status (null: missing or unknown), one column per TO entry
+    private static final Object[][] TRANSITIONS = {
+        //                       CONFIRMED PAID   CANCELLED REFUNDED COMPLETED null
+        {TicketStatus.CONFIRMED, true,     true,  true,     false,   true,     false},
+        {TicketStatus.PAID,      false,    true,  true,     true,    true,     false},
+        {TicketStatus.CANCELLED, true,     false, true,     true,    false,    false},
+        {TicketStatus.REFUNDED,  false,    false, false,    true,    false,    false},
+        {TicketStatus.COMPLETED, false,    false, false,    false,   true,     false},
+        {null,                   true,     true,  true,     true,    true,     false},
+    };
+
+    @Test public void transitionTable() {
+        for (Object[] row : TRANSITIONS) {
+            TicketStatus from = (TicketStatus) row[0];
+            for (int column = 0; column < TO.length; column++) {
+                assertEquals(from + " -> " + TO[column],
+                    row[column + 1], TicketStatus.isValidTransition(from, TO[column]));
+            }
+        }
+    }
+
+    @Test public void canTransitionToAgreesWithTheTable() {
+        for (Object[] row : TRANSITIONS) {
+            TicketStatus from = (TicketStatus) row[0];
+            if (from == null) {
+                continue;
+            }
+            for (int column = 0; column < TO.length; column++) {
+                assertEquals(from + " -> " + TO[column], row[column + 1], from.canTransitionTo(TO[column]));
+            }
+        }
+    }
+
+    @Test public void onlyCancelledAndRefundedGiveTheSeatBack() {
+        assertTrue(TicketStatus.CONFIRMED.holdsSeat());
+        assertTrue(TicketStatus.PAID.holdsSeat());
+        assertFalse(TicketStatus.CANCELLED.holdsSeat());
+        assertFalse(TicketStatus.REFUNDED.holdsSeat());
+        assertTrue(TicketStatus.COMPLETED.holdsSeat());
+    }
+
+    @Test public void namesAndOrdinalsRoundTrip() {
+        for (TicketStatus status : TicketStatus.values()) {
+            assertSame(status, TicketStatus.fromName(status.name()));
+            assertSame(status, TicketStatus.fromOrdinal(status.ordinal()));
+        }
+        assertEquals(TicketStatus.values().length, TicketStatus.count());
+        assertNull(TicketStatus.fromName("confirmed"));
+        assertNull(TicketStatus.fromName(null));
+    }
+}
@@ -0,0 +1,91 @@
+package ticket.booking.entities;
+
+import org.junit.Test;
+import ticket.booking.localDb.JsonCodecs;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compact in-memory fields behind the String and Double properties of the JSON form
+ */
+public class TicketTest {
+
+    @Test public void canonicalDatesAreHeldAsEpochValues() {
+        Ticket ticket = new Ticket();
+        ticket.setDateOfTravel("2026-03-02");
+        ticket.setBookingDate("2026-02-20T09:05:07");
+
+        assertEquals((int) LocalDate.of(2026, 3, 2).toEpochDay(), ticket.getTravelDay());
+        assertEquals(LocalDate.of(2026, 3, 2), ticket.getTravelDate());
+        assertEquals("2026-03-02", ticket.getDateOfTravel());
+        assertEquals("2026-02-20T09:05:07", ticket.getBookingDate());
+    }
+
+    @Test public void datesThatDoNotFitAreKeptVerbatim() {
+        Ticket ticket = new Ticket();
+        for (String text : List.of("2026-3-2", "2026-02-30", "next tuesday")) {
+            ticket.setDateOfTravel(text);
+            assertFalse(text, ticket.hasTravelDate());
+            assertNull(ticket.getTravelDate());
+            assertEquals(text, ticket.getDateOfTravel());
+        }
+        ticket.setBookingDate("2026-02-20 09:05");
+        assertEquals("2026-02-20 09:05", ticket.getBookingDate());
+
+        ticket.setTravelDate(LocalDate.of(2026, 3, 3));
+        assertEquals("the verbatim text is dropped", "2026-03-03", ticket.getDateOfTravel());
+    }
+
+    @Test public void pricesAreHeldToTheCent() {
+        Ticket ticket = new Ticket();
+        ticket.setPrice(85.5);
+        assertEquals(8550, ticket.getPriceInMinorUnits());
+        ticket.setPrice(0.1 + 0.2);
+        assertEquals(30, ticket.getPriceInMinorUnits());
+        assertEquals(0.3, ticket.getPrice(), 0.0);
+    }
+
+    @Test public void missingPriceCountsAsZeroInSums() {
+        Ticket ticket = new Ticket();
+        ticket.setPrice(null);
+        assertFalse(ticket.hasPrice());
+        assertNull(ticket.getPrice());
+        assertEquals(0, ticket.getPriceInMinorUnits());
+
+        ticket.setPriceText("on request");
+        assertEquals(0, ticket.getPriceInMinorUnits());
+        assertEquals("on request", ticket.getPriceText());
+        ticket.setPriceText("12.50");
+        assertEquals(1250, ticket.getPriceInMinorUnits());
+        assertNull(ticket.getPriceText());
+    }
+
+    @Test public void knownStatusesAreHeldAsTheEnumAndOthersVerbatim() {
+        Ticket ticket = new Ticket();
+        ticket.setTicketStatus("PAID");
+        assertEquals(TicketStatus.PAID, ticket.getStatus());
+        assertEquals("PAID", ticket.getTicketStatus());
+
+        ticket.setTicketStatus("WAITLISTED");
+        assertNull(ticket.getStatus());
+        assertEquals("WAITLISTED", ticket.getTicketStatus());
+
+        ticket.setStatus(TicketStatus.CANCELLED);
+        assertEquals("CANCELLED", ticket.getTicketStatus());
+    }
+
+    @Test public void jsonKeepsItsStringAndDecimalShape() throws Exception {
+        String json = """
+            [{"ticketId":"t1","userId":"u1","source":"New York","destination":"Boston",\
+            "dateOfTravel":"2026-03-02","seatNumber":"0-1","ticketStatus":"CONFIRMED","price":12.5,\
+            "paymentMethod":"CARD","bookingDate":"2026-02-20T10:15:00","trainId":"1001"},\
+            {"ticketId":"t2","userId":"u1","source":"New York","destination":"Boston",\
+            "dateOfTravel":"someday","seatNumber":null,"ticketStatus":"WAITLISTED","price":"on request",\
+            "paymentMethod":null,"bookingDate":"yesterday","trainId":"1001"}]""";
+        List<Ticket> tickets = JsonCodecs.TICKET_LIST_READER.readValue(json);
+        assertEquals(json, JsonCodecs.TICKET_LIST_WRITER.writeValueAsString(tickets));
+    }
+}
@@ -0,0 +1,170 @@
+package ticket.booking.localDb;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class AtomicFilesTest {
+    private static final AtomicFiles.Loader<Integer> NUMBER =
+        file -> Integer.parseInt(Files.readString(file.toPath()).trim());
+
+    private final List<IOException> fallbacks = new ArrayList<>();
+    private Path dir;
+    private Path target;
+
+    @Before public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("atomic-files-test");
+        target = dir.resolve("numbers.json");
+    }
+
+    @After public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void writeMovesTheTempFileIntoPlaceAndKeepsABackup() throws IOException {
+        write("1");
+        assertEquals("1", Files.readString(target));
+        assertFalse(Files.exists(sibling(".bak")));
+
+        write("2");
+        assertEquals("2", Files.readString(target));
+        assertEquals("1", Files.readString(sibling(".bak")));
+        assertTrue(Files.exists(sibling(".crc")));
+        assertTrue(Files.exists(sibling(".bak.crc")));
+        assertFalse("temp file was moved, not copied", Files.exists(sibling(".tmp")));
+        assertFalse(Files.exists(sibling(".tmp.crc")));
+        assertEquals(Integer.valueOf(2), read());
+    }
+
+    @Test public void failedWriteLeavesTheCurrentFile() throws IOException {
+        write("1");
+        try {
+            AtomicFiles.write(target.toString(), out -> {
+                out.write("2".getBytes(StandardCharsets.UTF_8));
+                throw new IOException("disk full");
+            });
+            fail("write should fail");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        assertEquals("1", Files.readString(target));
+        assertFalse(Files.exists(sibling(".bak")));
+        assertEquals(Integer.valueOf(1), read());
+    }
+
+    @Test public void unparsableFileFallsBackToTheBackup() throws IOException {
+        write("1");
+        write("2");
+        Files.writeString(target, "{\"torn");
+        Files.delete(sibling(".crc"));
+        assertEquals(Integer.valueOf(1), read());
+        assertEquals(1, fallbacks.size());
+        assertTrue(fallbacks.get(0).getMessage().startsWith("Could not load " + target));
+        assertTrue(fallbacks.get(0).getCause() instanceof NumberFormatException);
+    }
+
+    @Test public void checksumMismatchFallsBackToTheBackup() throws IOException {
+        write("1");
+        write("2");
+        Files.writeString(target, "3"); // Same length, parses fine, but not what was written
+        assertEquals(Integer.valueOf(1), read());
+        assertEquals(1, fallbacks.size());
+        assertEquals("Checksum mismatch in " + target, fallbacks.get(0).getMessage());
+    }
+
+    @Test public void checksumMismatchIsStillLoadedWithoutABackup() throws IOException {
+        write("2");
+        Files.writeString(target, "3");
+        assertEquals(Integer.valueOf(3), read());
+    }
+
+    @Test public void fileWithoutSidecarIsLoadedAsIs() throws IOException {
+        Files.writeString(target, "7");
+        assertEquals(Integer.valueOf(7), read());
+    }
+
+    @Test public void missingFileFallsBackToTheBackup() throws IOException {
+        write("1");
+        write("2");
+        Files.delete(target);
+        assertEquals(Integer.valueOf(1), read());
+    }
+
+    @Test public void nothingToLoadReadsAsNull() throws IOException {
+        assertNull(read());
+    }
+
+    @Test public void noLoadableCopyIsAnErrorCarryingEachReason() throws IOException {
+        write("1");
+        write("2");
+        Files.writeString(target, "x");
+        Files.writeString(sibling(".bak"), "y");
+        try {
+            read();
+            fail("loaded an unreadable file");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("could be loaded"));
+            // Both copies fail their checksums, then the first still fails to parse
+            assertEquals(3, e.getSuppressed().length);
+        }
+        assertTrue("reasons go with the error, not to the fallback callback", fallbacks.isEmpty());
+    }
+
+    @Test public void userStoreRefusesToStartEmptyOverUnreadableSnapshots() throws IOException {
+        Path users = dir.resolve("users.json");
+        Files.writeString(users, "{\"users\": [{\"userId\": ");
+        Files.writeString(dir.resolve("users.json.bak"), "not json");
+        TicketRepository tickets = new TicketRepository(dir.resolve("tickets.json").toString(),
+            dir.resolve("tickets.journal").toString());
+        try {
+            try {
+                new UserRepository(users.toString(), dir.resolve("users.journal").toString(), tickets);
+                fail("opened an empty store over unreadable snapshots");
+            } catch (UncheckedIOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("could be loaded"));
+            }
+            assertEquals("{\"users\": [{\"userId\": ", Files.readString(users));
+            assertEquals("not json", Files.readString(dir.resolve("users.json.bak")));
+
+            Files.writeString(users, "{\"users\": [{\"userId\": \"u1\", \"name\": \"b@x\"}]}");
+            UserRepository repaired = new UserRepository(users.toString(), dir.resolve("users.journal").toString(), tickets);
+            try {
+                assertEquals("the failed open released the journal", 1, repaired.size());
+            } finally {
+                repaired.close();
+            }
+        } finally {
+            tickets.close();
+        }
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private void write(String text) throws IOException {
+        AtomicFiles.write(target.toString(), out -> out.write(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Integer read() throws IOException {
+        return AtomicFiles.read(target.toString(), NUMBER, fallbacks::add);
+    }
+
+    private Path sibling(String suffix) {
+        return target.resolveSibling(target.getFileName() + suffix);
+    }
+}
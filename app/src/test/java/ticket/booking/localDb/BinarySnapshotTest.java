@@ -0,0 +1,195 @@
+package ticket.booking.localDb;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class BinarySnapshotTest {
+    private static final String TICKETS = """
+        [
+          {"ticketId": "t1", "userId": "u1", "source": "New York", "destination": "Boston",
+           "dateOfTravel": "2026-03-02", "seatNumber": "0-1", "ticketStatus": "CONFIRMED",
+           "price": 12.5, "paymentMethod": "CARD", "bookingDate": "2026-02-20T10:15:00", "trainId": "1001",
+           "passengerName": "Ada"},
+          {"ticketId": "t2", "userId": "u1", "source": "New York", "destination": "Boston",
+           "dateOfTravel": "next tuesday", "seatNumber": "0-2", "ticketStatus": "WAITLISTED",
+           "price": "on request", "bookingDate": "yesterday", "trainId": "1001"},
+          {"ticketId": "t3", "userId": "u2", "source": "New Haven", "destination": "Boston",
+           "seatNumber": null, "ticketStatus": null, "price": 0.0, "trainId": "1001"},
+          {"ticketId": "t4", "userId": "u2", "source": "New Haven", "destination": "Boston",
+           "dateOfTravel": "2026-02-30", "ticketStatus": "CANCELLED", "price": 99.99, "trainId": "1001"}
+        ]
+        """;
+
+    private Path dir;
+
+    @Before public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("snapshot-test");
+    }
+
+    @After public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void ticketsSurviveJsonToBinaryToJson() throws IOException {
+        List<Ticket> tickets = JsonCodecs.TICKET_LIST_READER.readValue(TICKETS);
+        String bin = file("tickets.bin");
+        BinarySnapshot.writeTickets(bin, tickets);
+        List<Ticket> loaded = BinarySnapshot.readTickets(bin);
+
+        assertEquals(json(tickets), json(loaded));
+        assertEquals(2026, loaded.get(0).getTravelDate().getYear());
+        assertEquals(1250, loaded.get(0).getPriceInMinorUnits());
+        assertEquals("Ada", loaded.get(0).getPassengerName());
+        assertNull(loaded.get(1).getPassengerName());
+    }
+
+    @Test public void unparseableAndMissingDatesKeepTheirRawValue() throws IOException {
+        List<Ticket> loaded = roundTripTickets();
+        assertEquals("next tuesday", loaded.get(1).getDateOfTravel());
+        assertFalse(loaded.get(1).hasTravelDate());
+        assertNull(loaded.get(2).getDateOfTravel());
+        assertEquals("2026-02-30", loaded.get(3).getDateOfTravel());
+        assertNull(loaded.get(3).getTravelDate());
+        assertEquals("yesterday", loaded.get(1).getBookingDate());
+        assertEquals("WAITLISTED", loaded.get(1).getTicketStatus());
+        assertNull(loaded.get(1).getStatus());
+    }
+
+    @Test public void pricesKeepEveryCentAndNonNumericPricesKeepTheirText() throws IOException {
+        List<Ticket> loaded = roundTripTickets();
+        assertFalse(loaded.get(1).hasPrice());
+        assertNull(loaded.get(1).getPrice());
+        assertEquals("on request", loaded.get(1).getPriceText());
+        assertTrue(loaded.get(2).hasPrice());
+        assertNull(loaded.get(2).getPriceText());
+        assertEquals(0.0, loaded.get(2).getPrice(), 0.0);
+        assertEquals(9999, loaded.get(3).getPriceInMinorUnits());
+    }
+
+    @Test public void pricesBeyondDoublePrecisionAreStoredExactly() throws IOException {
+        Ticket ticket = JsonCodecs.TICKET_LIST_READER.<List<Ticket>>readValue(TICKETS).get(0);
+        ticket.setPriceInMinorUnits(Long.MAX_VALUE - 1);
+        String bin = file("large-price.bin");
+        BinarySnapshot.writeTickets(bin, List.of(ticket));
+        assertEquals(Long.MAX_VALUE - 1, BinarySnapshot.readTickets(bin).get(0).getPriceInMinorUnits());
+    }
+
+    @Test public void seatRowsOfEveryWidthSurvive() throws IOException {
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int width : new int[] {0, 1, 63, 64, 65, 130}) {
+            List<Integer> row = new ArrayList<>();
+            for (int seat = 0; seat < width; seat++) {
+                row.add(seat % 3 == 0 || seat == width - 1 ? 1 : 0);
+            }
+            seats.add(row);
+        }
+        seats.add(null);
+        Train train = TestTrains.train("1001", TestTrains.STOPS, seats);
+        train.setBasePrice(42.5);
+        train.setTotalSeats(7);
+        train.setStationArrivalTimes(Map.of("New York", "08:00", "New Haven", "09:30", "Boston", "11:45"));
+        train.setOperatingDays(List.of("MONDAY", "FRIDAY"));
+        Train bare = TestTrains.train("1002", null, null);
+
+        String bin = file("trains.bin");
+        BinarySnapshot.writeTrains(bin, List.of(train, bare));
+        List<Train> loaded = BinarySnapshot.readTrains(bin);
+
+        assertEquals(seats, loaded.get(0).getSeats());
+        assertNull(loaded.get(1).getSeats());
+        assertNull(loaded.get(1).getStationArrivalTimes());
+        assertEquals(json(List.of(train, bare)), json(loaded));
+    }
+
+    @Test public void usersSurviveTheRoundTrip() throws IOException {
+        User user = new User();
+        user.setUserId("u1");
+        user.setName("b@x");
+        user.setHashedPassword("$2a$10$abcdefghijklmnopqrstuv");
+        user.setBookedTicketIds(List.of("t1", "t2"));
+        User empty = new User();
+
+        String bin = file("users.bin");
+        BinarySnapshot.writeUsers(bin, List.of(user, empty));
+        assertEquals(json(List.of(user, empty)), json(BinarySnapshot.readUsers(bin)));
+    }
+
+    @Test public void fileWithoutTheMagicNumberIsRejected() throws IOException {
+        String bin = file("tickets.bin");
+        Files.writeString(Path.of(bin), "[{\"ticketId\": \"t1\"}]");
+        assertRejected(bin, "Not a booking snapshot");
+    }
+
+    @Test public void truncatedHeaderIsRejected() throws IOException {
+        String bin = file("tickets.bin");
+        Files.write(Path.of(bin), new byte[] {0x54, 0x42, 0x53, 0x4E});
+        assertRejected(bin, "Not a booking snapshot");
+    }
+
+    @Test public void newerFormatVersionIsRejected() throws IOException {
+        String bin = file("tickets.bin");
+        BinarySnapshot.writeTickets(bin, roundTripTickets());
+        try (RandomAccessFile file = new RandomAccessFile(bin, "rw")) {
+            file.seek(4);
+            file.writeInt(BinarySnapshot.FORMAT_VERSION + 1);
+        }
+        assertRejected(bin, "is newer than supported");
+    }
+
+    @Test public void snapshotOfAnotherKindIsRejected() throws IOException {
+        String bin = file("tickets.bin");
+        BinarySnapshot.writeTickets(bin, roundTripTickets());
+        try {
+            BinarySnapshot.readUsers(bin);
+            fail("tickets.bin read as users");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("record kind"));
+        }
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private List<Ticket> roundTripTickets() throws IOException {
+        String bin = file("round-trip.bin");
+        BinarySnapshot.writeTickets(bin, JsonCodecs.TICKET_LIST_READER.<List<Ticket>>readValue(TICKETS));
+        return BinarySnapshot.readTickets(bin);
+    }
+
+    private static void assertRejected(String bin, String message) {
+        try {
+            BinarySnapshot.readTickets(bin);
+            fail("read " + bin);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+
+    private static JsonNode json(Object value) {
+        return JsonCodecs.MAPPER.valueToTree(value);
+    }
+
+    private String file(String name) {
+        return dir.resolve(name).toString();
+    }
+}
@@ -0,0 +1,164 @@
+package ticket.booking.localDb;
+
+import org.junit.Test;
+import ticket.booking.entities.Train;
+import ticket.booking.interfaces.SeatInventory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class InMemorySeatInventoryTest {
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 2);
+    private static final List<String> STOPS = List.of("New York", "New Haven", "Providence", "Boston");
+
+    private final SeatInventory inventory = new InMemorySeatInventory();
+
+    @Test public void onlyTemplateSeatsAreSellable() {
+        Train train = TestTrains.train(STOPS, new int[][] {{1, 0, 1, 1}, {0, 0, 1}});
+        assertEquals(3, inventory.countFreeSeats(train, DATE, 0));
+        assertEquals(1, inventory.countFreeSeats(train, DATE, 1));
+        assertEquals(4, inventory.countFreeSeats(train, DATE));
+        assertFalse(inventory.isSeatFree(train, DATE, 0, 1));
+        assertFalse(inventory.reserveSeat(train, DATE, 0, 1));
+        assertFalse("seat past the end of the coach", inventory.reserveSeat(train, DATE, 1, 3));
+        assertEquals(List.of(List.of(1, 0, 1, 1), List.of(0, 0, 1)), inventory.getSeatMap(train, DATE));
+    }
+
+    @Test public void seatSoldOnOneSegmentStaysFreeOnTheOthers() {
+        Train train = TestTrains.train(STOPS, new int[][] {{1, 1}});
+        assertTrue(inventory.reserveSeat(train, DATE, 0, 0, 0, 1));
+
+        assertFalse(inventory.isSeatFree(train, DATE, 0, 0, 0, 1));
+        assertFalse("range overlapping the sold segment", inventory.isSeatFree(train, DATE, 0, 0, 0, 2));
+        assertTrue(inventory.isSeatFree(train, DATE, 0, 0, 1, 3));
+        assertEquals(1, inventory.countFreeSeats(train, DATE, 0, 3));
+        assertEquals(2, inventory.countFreeSeats(train, DATE, 1, 3));
+        assertEquals(0, inventory.findFreeSeat(train, DATE, 0, 1, 2));
+        assertEquals(1, inventory.findFreeSeat(train, DATE, 0, 0, 1));
+    }
+
+    @Test public void overlappingRangesGetDifferentSeats() {
+        Train train = TestTrains.train(STOPS, new int[][] {{1, 1, 1}});
+        assertArrayEquals(new int[] {0, 0}, inventory.allocateSeat(train, DATE, 0, 2));
+        assertArrayEquals(new int[] {0, 1}, inventory.allocateSeat(train, DATE, 1, 3));
+        assertArrayEquals("seat 0 is free again after New Haven → Providence",
+            new int[] {0, 0}, inventory.allocateSeat(train, DATE, 2, 3));
+        assertArrayEquals(new int[] {0, 2}, inventory.allocateSeat(train, DATE, 0, 3));
+        assertNull(inventory.allocateSeat(train, DATE, 1, 2));
+        assertEquals(0, inventory.countFreeSeats(train, DATE, 1, 2));
+        assertEquals(List.of(List.of(0, 1, 0)), inventory.getSeatMap(train, DATE, 0, 1));
+    }
+
+    @Test public void releaseOnlyFreesARangeThatIsHeld() {
+        Train train = TestTrains.train(STOPS, new int[][] {{1, 1}});
+        assertTrue(inventory.reserveSeat(train, DATE, 0, 1, 0, 2));
+        assertFalse("range reaches a segment the seat is not held on",
+            inventory.releaseSeat(train, DATE, 0, 1, 0, 3));
+        assertFalse(inventory.isSeatFree(train, DATE, 0, 1, 0, 2));
+
+        assertTrue(inventory.releaseSeat(train, DATE, 0, 1, 0, 2));
+        assertEquals(2, inventory.countFreeSeats(train, DATE, 0, 3));
+        assertFalse("already released", inventory.releaseSeat(train, DATE, 0, 1, 0, 2));
+    }
+
+    @Test public void reservedSeatCannotBeReservedAgainOverAnOverlap() {
+        Train train = TestTrains.train(STOPS, new int[][] {{1}});
+        assertTrue(inventory.reserveSeat(train, DATE, 0, 0, 1, 2));
+        assertFalse(inventory.reserveSeat(train, DATE, 0, 0, 0, 3));
+        assertTrue(inventory.reserveSeat(train, DATE, 0, 0, 0, 1));
+        assertTrue(inventory.reserveSeat(train, DATE, 0, 0, 2, 3));
+        assertEquals(0, inventory.countFreeSeats(train, DATE, 0, 3));
+    }
+
+    @Test public void departuresAreIndependent() {
+        Train train = TestTrains.train(STOPS, new int[][] {{1}});
+        assertNotNull(inventory.allocateSeat(train, DATE));
+        assertNull(inventory.allocateSeat(train, DATE));
+        assertNotNull(inventory.allocateSeat(train, DATE.plusDays(1)));
+    }
+
+    @Test public void coachesWiderThanOneWord() {
+        int[] row = new int[70];
+        Arrays.fill(row, 1);
+        row[3] = 0;
+        Train train = TestTrains.train(STOPS, new int[][] {row});
+        assertEquals(69, inventory.countFreeSeats(train, DATE, 0));
+        assertTrue(inventory.reserveSeat(train, DATE, 0, 69));
+        assertFalse(inventory.isSeatFree(train, DATE, 0, 69));
+        assertTrue(inventory.isSeatFree(train, DATE, 0, 5));
+        for (int i = 0; i < 67; i++) {
+            assertNotNull(inventory.allocateSeat(train, DATE));
+        }
+        assertEquals(1, inventory.countFreeSeats(train, DATE, 0));
+        assertEquals(68, inventory.findFreeSeat(train, DATE, 0));
+        assertEquals(70, inventory.getSeatMap(train, DATE).get(0).size());
+    }
+
+    @Test public void rangesOutsideTheRunAreRejected() {
+        Train train = TestTrains.train(STOPS, new int[][] {{1}});
+        assertNull(inventory.allocateSeat(train, DATE, 2, 2));
+        assertNull(inventory.allocateSeat(train, DATE, 0, 4));
+        assertFalse(inventory.reserveSeat(train, DATE, 0, 0, -1, 1));
+        assertEquals(0, inventory.countFreeSeats(train, DATE, 2, 1));
+    }
+
+    @Test public void groupIsAllOrNothing() {
+        Train train = TestTrains.train(STOPS, new int[][] {{1, 1, 1, 0}, {1, 1}});
+        assertTrue(inventory.reserveSeat(train, DATE, 0, 1, 0, 2));
+        assertArrayEquals(new int[][] {{1, 0}, {1, 1}}, inventory.allocateSeats(train, DATE, 0, 3, 2));
+        assertNull(inventory.allocateSeats(train, DATE, 0, 3, 3));
+        assertEquals("nothing taken by the failed group", 2, inventory.countFreeSeats(train, DATE));
+        assertArrayEquals("seat 1 is free after New Haven → Providence",
+            new int[][] {{0, 0}, {0, 1}, {0, 2}}, inventory.allocateSeats(train, DATE, 2, 3, 3));
+    }
+
+    @Test public void concurrentAllocationNeverSellsASeatTwice() throws Exception {
+        int[][] rows = new int[4][20];
+        for (int[] row : rows) {
+            Arrays.fill(row, 1);
+        }
+        Train train = TestTrains.train(STOPS, rows);
+        int[][] ranges = {{0, 3}, {0, 1}, {1, 2}, {2, 3}, {0, 2}, {1, 3}};
+        int threads = 6;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<int[]>>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int[] range = ranges[t];
+            results.add(pool.submit(() -> {
+                List<int[]> sold = new ArrayList<>();
+                start.await();
+                int[] seat;
+                while ((seat = inventory.allocateSeat(train, DATE, range[0], range[1])) != null) {
+                    sold.add(new int[] {seat[0], seat[1], range[0], range[1]});
+                }
+                return sold;
+            }));
+        }
+        start.countDown();
+        Set<String> held = new HashSet<>();
+        for (Future<List<int[]>> result : results) {
+            for (int[] sale : result.get(30, TimeUnit.SECONDS)) {
+                for (int segment = sale[2]; segment < sale[3]; segment++) {
+                    assertTrue("seat " + sale[0] + "-" + sale[1] + " sold twice on segment " + segment,
+                        held.add(sale[0] + "-" + sale[1] + "@" + segment));
+                }
+            }
+        }
+        pool.shutdown();
+        assertEquals("every seat is sold on every segment", 4 * 20 * 3, held.size());
+        assertEquals(0, inventory.countFreeSeats(train, DATE, 0, 1));
+        assertEquals(0, inventory.countFreeSeats(train, DATE, 2, 3));
+    }
+}
@@ -0,0 +1,216 @@
+package ticket.booking.localDb;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class JournalTest {
+    private Path dir;
+    private Path file;
+    private Journal<String> journal;
+
+    @Before public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("journal-test");
+        file = dir.resolve("test.journal");
+    }
+
+    @After public void closeAndDelete() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void replayFeedsRecordsInAppendOrder() throws IOException {
+        journal = open();
+        journal.appendPut("a", "first");
+        journal.appendPut("b", "second");
+        journal.appendDelete("a");
+        journal.appendPut("a", "third");
+        reopen();
+        assertEquals(List.of("PUT a first", "PUT b second", "DEL a null", "PUT a third"), replay());
+        assertEquals(4, journal.size());
+    }
+
+    @Test public void replaySeesRecordsStillQueued() throws IOException {
+        journal = open();
+        journal.appendPut("a", "first");
+        journal.appendPut("b", "second");
+        assertEquals(List.of("PUT a first", "PUT b second"), replay());
+    }
+
+    @Test public void tornFinalLineIsCutOffOnOpen() throws IOException {
+        write("{\"op\":\"PUT\",\"id\":\"a\",\"value\":\"first\"}\n"
+            + "{\"op\":\"PUT\",\"id\":\"b\",\"val");
+        journal = open();
+        assertEquals(List.of("PUT a first"), replay());
+
+        journal.appendPut("c", "third");
+        reopen();
+        assertEquals(List.of("PUT a first", "PUT c third"), replay());
+    }
+
+    @Test public void corruptMiddleLineFailsReplay() throws IOException {
+        write("{\"op\":\"PUT\",\"id\":\"a\",\"value\":\"first\"}\n"
+            + "{\"op\" \"PUT\",\"id\":\"b\"}\n"
+            + "{\"op\":\"PUT\",\"id\":\"c\",\"value\":\"third\"}\n");
+        journal = open();
+        try {
+            replay();
+            fail("replay should stop at the corrupt record");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("at line 2"));
+        }
+    }
+
+    @Test public void truncateAfterCompactionDropsEarlierRecords() throws Exception {
+        journal = open();
+        journal.appendPut("a", "first");
+        journal.sync();
+        CompletableFuture<Void> queued = journal.appendPut("b", "second");
+
+        journal.truncate();
+        assertEquals(0, journal.size());
+        assertTrue("records covered by the snapshot count as durable", queued.isDone());
+        assertEquals(0, Files.size(file));
+
+        journal.appendPut("c", "third").get();
+        reopen();
+        assertEquals(List.of("PUT c third"), replay());
+        assertEquals(1, journal.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void secondJournalOnTheSameFileIsRefused() {
+        journal = open();
+        open();
+    }
+
+    @Test public void queuedRecordsFailWhenTheFlushOnCloseFails() throws IOException {
+        Files.createDirectory(file); // Every write to the log fails
+        journal = open();
+        CompletableFuture<Void> queued = journal.appendPut("a", "first");
+        journal.close();
+        journal = null;
+        assertTrue("a closed journal has no writer left to retry", queued.isCompletedExceptionally());
+    }
+
+    @Test public void unreadableLogFailsReplayInsteadOfLoadingPartOfIt() throws IOException {
+        Files.createDirectory(file);
+        journal = open();
+        try {
+            replay();
+            fail("replay carried on without the log");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(file.toString()));
+        }
+    }
+
+    @Test public void queuedRecordsReachDiskWithoutAnExplicitSync() throws Exception {
+        journal = open();
+        CompletableFuture<Void> durable = journal.appendPut("a", "first");
+        durable.get(5, TimeUnit.SECONDS);
+        assertTrue("written by the background writer", Files.size(file) > 0);
+    }
+
+    @Test public void concurrentAppendsAllBecomeDurable() throws Exception {
+        journal = open();
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> appenders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            appenders.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    journal.appendPut(thread + "-" + i, "v" + i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> appender : appenders) {
+            appender.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        journal.whenDurable().get(5, TimeUnit.SECONDS);
+
+        reopen();
+        List<String> records = replay();
+        assertEquals(threads * perThread, records.size());
+        for (int t = 0; t < threads; t++) {
+            String prefix = "PUT " + t + "-";
+            List<String> own = records.stream().filter(r -> r.startsWith(prefix)).toList();
+            for (int i = 0; i < perThread; i++) {
+                assertEquals("each thread's records keep their order", prefix + i + " v" + i, own.get(i));
+            }
+        }
+    }
+
+    @Test public void groupAppendIsWrittenTogether() throws Exception {
+        journal = open();
+        Map<String, String> group = new LinkedHashMap<>();
+        group.put("a", "first");
+        group.put("b", "second");
+        journal.appendPuts(group).get(5, TimeUnit.SECONDS);
+        assertEquals(2, journal.size());
+        reopen();
+        assertEquals(List.of("PUT a first", "PUT b second"), replay());
+    }
+
+    @Test public void failedWriteIsRetriedUntilItSucceeds() throws Exception {
+        Files.createDirectory(file); // Writes fail until it is gone
+        journal = open();
+        CompletableFuture<Void> durable = journal.appendPut("a", "first");
+        Thread.sleep(200);
+        assertFalse("kept queued, not dropped or failed", durable.isDone());
+
+        Files.delete(file);
+        durable.get(10, TimeUnit.SECONDS);
+        reopen();
+        assertEquals(List.of("PUT a first"), replay());
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private Journal<String> open() {
+        return new Journal<>(file.toString(), String.class);
+    }
+
+    private void reopen() {
+        journal.close();
+        journal = open();
+    }
+
+    private List<String> replay() {
+        List<String> records = new ArrayList<>();
+        journal.replay((op, id, value) -> records.add(op + " " + id + " " + value));
+        return records;
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
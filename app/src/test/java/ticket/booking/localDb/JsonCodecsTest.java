@@ -0,0 +1,76 @@
+package ticket.booking.localDb;
+
+import org.junit.Test;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class JsonCodecsTest {
+
+    @Test public void trainsDocumentRoundTrips() throws Exception {
+        Train train = TestTrains.sellable(2, 3);
+        train.setStationArrivalTimes(Map.of("New York", "08:00", "Boston", "11:45"));
+        String json = JsonCodecs.TRAINS_DOCUMENT_WRITER.writeValueAsString(Map.of("trains", List.of(train)));
+
+        Map<String, List<Train>> read = JsonCodecs.TRAINS_DOCUMENT_READER.readValue(json);
+        assertEquals(json, JsonCodecs.TRAINS_DOCUMENT_WRITER.writeValueAsString(read));
+        assertEquals(train.getSeats(), read.get("trains").get(0).getSeats());
+    }
+
+    @Test public void usersDocumentRoundTripsWithTicketIdsOnly() throws Exception {
+        User user = new User();
+        user.setUserId("u1");
+        user.setEmail("ada@example.com");
+        user.setBookedTicketIds(List.of("t1", "t2"));
+        String json = JsonCodecs.USERS_DOCUMENT_WRITER.writeValueAsString(Map.of("users", List.of(user)));
+
+        User read = JsonCodecs.USERS_DOCUMENT_READER.<Map<String, List<User>>>readValue(json).get("users").get(0);
+        assertEquals(List.of("t1", "t2"), read.getBookedTicketIds());
+        assertEquals("ada@example.com", read.getEmail());
+    }
+
+    @Test public void ticketListRoundTripsAndIgnoresUnknownProperties() throws Exception {
+        Ticket ticket = new Ticket("t1", "u1", "New York", "Boston", "2026-03-02", null);
+        ticket.setTrainId("1001");
+        ticket.setPrice(12.5);
+        String json = JsonCodecs.TICKET_LIST_WRITER.writeValueAsString(List.of(ticket));
+
+        List<Ticket> read = JsonCodecs.TICKET_LIST_READER.readValue(json.replace("{", "{\"addedLater\":1,"));
+        assertEquals(json, JsonCodecs.TICKET_LIST_WRITER.writeValueAsString(read));
+    }
+
+    @Test public void snapshotOutputIsCompact() throws Exception {
+        String json = JsonCodecs.TICKET_LIST_WRITER.writeValueAsString(
+            List.of(new Ticket("t1", "u1", "New York", "Boston", "2026-03-02", null)));
+        assertFalse(json, json.contains("\n"));
+        assertFalse(json, json.contains(": "));
+    }
+
+    @Test public void sharedWritersAreSafeAcrossThreads() throws Exception {
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tickets.add(new Ticket("t" + i, "u" + i, "New York", "Boston", "2026-03-02", null));
+        }
+        String expected = JsonCodecs.TICKET_LIST_WRITER.writeValueAsString(tickets);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            results.add(pool.submit(() -> JsonCodecs.TICKET_LIST_WRITER.writeValueAsString(
+                JsonCodecs.TICKET_LIST_READER.<List<Ticket>>readValue(expected))));
+        }
+        for (Future<String> result : results) {
+            assertEquals(expected, result.get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,135 @@
+package ticket.booking.localDb;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ticket.booking.entities.Train;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class MappedSeatInventoryTest {
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 2);
+
+    private Path dir;
+    private MappedSeatInventory inventory;
+    private Train train;
+
+    @Before public void openInventory() throws IOException {
+        dir = Files.createTempDirectory("mapped-inventory-test");
+        inventory = open(dir.resolve("seats.bin"));
+        train = TestTrains.sellable(8, 8);
+    }
+
+    @After public void closeInventory() throws IOException {
+        inventory.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void groupTakesTheFirstAdjacentRun() {
+        assertTrue(inventory.reserveSeat(train, DATE, 0, 2));
+        int[][] group = inventory.allocateSeats(train, DATE, 0, 2, 3);
+        assertArrayEquals(new int[][] {{0, 3}, {0, 4}, {0, 5}}, group);
+        for (int[] seat : group) {
+            assertFalse(inventory.isSeatFree(train, DATE, seat[0], seat[1]));
+        }
+        assertEquals(16 - 4, inventory.countFreeSeats(train, DATE));
+    }
+
+    @Test public void groupIsAllOrNothing() {
+        for (int seat = 0; seat < 7; seat++) {
+            assertTrue(inventory.reserveSeat(train, DATE, 0, seat));
+            assertTrue(inventory.reserveSeat(train, DATE, 1, seat));
+        }
+        assertNull(inventory.allocateSeats(train, DATE, 0, 2, 3));
+        assertEquals("nothing taken by the failed group", 2, inventory.countFreeSeats(train, DATE));
+        assertArrayEquals(new int[][] {{0, 7}, {1, 7}}, inventory.allocateSeats(train, DATE, 0, 2, 2));
+    }
+
+    @Test public void groupsRacingThroughTwoInventoriesOnOneFileNeverShareOrLeakSeats() throws Exception {
+        // Both inventories choose from the same mapped bits, so one often reserves part of a
+        // group the other has chosen and must give its seats back and choose again
+        Train wide = TestTrains.sellable(30, 30, 30, 30);
+        MappedSeatInventory second = open(dir.resolve("seats.bin"));
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<int[]>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                MappedSeatInventory booking = t % 2 == 0 ? inventory : second;
+                results.add(pool.submit(() -> {
+                    List<int[]> sold = new ArrayList<>();
+                    start.await();
+                    int[][] group;
+                    while ((group = booking.allocateSeats(wide, DATE, 0, 2, 3)) != null) {
+                        assertEquals(3, group.length);
+                        sold.addAll(List.of(group));
+                    }
+                    return sold;
+                }));
+            }
+            start.countDown();
+            Set<String> held = new HashSet<>();
+            for (Future<List<int[]>> result : results) {
+                for (int[] seat : result.get(30, TimeUnit.SECONDS)) {
+                    assertTrue("seat " + seat[0] + "-" + seat[1] + " sold twice", held.add(seat[0] + "-" + seat[1]));
+                }
+            }
+            assertEquals("every seat sold, none left reserved by a group that gave up", 4 * 30, held.size());
+            assertEquals(0, inventory.countFreeSeats(wide, DATE));
+            assertEquals(0, second.countFreeSeats(wide, DATE));
+        } finally {
+            pool.shutdown();
+            second.close();
+        }
+    }
+
+    @Test public void bookingsSurviveReopeningTheFile() throws IOException {
+        int[][] group = inventory.allocateSeats(train, DATE, 0, 1, 2);
+        inventory.close();
+        inventory = open(dir.resolve("seats.bin"));
+        for (int[] seat : group) {
+            assertFalse(inventory.isSeatFree(train, DATE, seat[0], seat[1], 0, 1));
+        }
+        assertTrue(inventory.isSeatFree(train, DATE, group[0][0], group[0][1], 1, 2));
+    }
+
+    @Test public void inventoriesOnTheSameFileInOneProcessShareBookings() throws IOException {
+        MappedSeatInventory second = open(dir.resolve("seats.bin"));
+        try {
+            assertTrue(inventory.reserveSeat(train, DATE, 0, 0));
+            assertFalse("sold through the other inventory", second.reserveSeat(train, DATE, 0, 0));
+            assertTrue(second.reserveSeat(train, DATE, 0, 1));
+            assertFalse(inventory.isSeatFree(train, DATE, 0, 1));
+        } finally {
+            second.close();
+        }
+        assertTrue("still open after the other one closed", inventory.reserveSeat(train, DATE, 0, 2));
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static MappedSeatInventory open(Path file) throws IOException {
+        return new MappedSeatInventory(file.toString(), 16, 1 << 16);
+    }
+}
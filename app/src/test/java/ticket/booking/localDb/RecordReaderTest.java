@@ -0,0 +1,120 @@
+package ticket.booking.localDb;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RecordReaderTest {
+    private static final String TICKETS = """
+        [
+          {"ticketId": "t1", "userId": "u1", "source": "New York", "destination": "Boston",
+           "dateOfTravel": "2026-03-02", "seatNumber": "0-1", "ticketStatus": "CONFIRMED", "price": 12.5,
+           "paymentMethod": "CARD", "bookingDate": "2026-02-20T10:15:00", "trainId": "1001",
+           "passengerName": "Ada", "notes": {"ignored": [1, 2, 3]}},
+          {"ticketId": "t2", "userId": "u2", "source": "New York", "destination": "Boston",
+           "dateOfTravel": "2026-03-02", "ticketStatus": "CANCELLED", "price": "on request",
+           "train": {"seats": [[1, 1], [0, 1]], "trainId": "1002", "stations": ["New York", "Boston"]}}
+        ]
+        """;
+    private static final String USERS = """
+        {"version": 2, "meta": {"users": "not this one"},
+         "users": [
+          {"userId": "u1", "name": "Ada", "email": "ada@example.com", "hashedPassword": "hash",
+           "bookedTicketIds": ["t1"]},
+          {"userId": "u2", "email": "bob@example.com", "bookedTickets": [
+            {"ticketId": "t2", "userId": "u2", "source": "New York", "destination": "Boston",
+             "train": {"trainId": "1002", "seats": [[1]]}}]}
+         ]}
+        """;
+
+    private File tickets;
+    private File users;
+
+    @Before public void writeFiles() throws IOException {
+        tickets = File.createTempFile("record-reader-tickets", ".json");
+        users = File.createTempFile("record-reader-users", ".json");
+        Files.writeString(tickets.toPath(), TICKETS);
+        Files.writeString(users.toPath(), USERS);
+    }
+
+    @After public void deleteFiles() throws IOException {
+        Files.delete(tickets.toPath());
+        Files.delete(users.toPath());
+    }
+
+    @Test public void ticketsReadTheSameAsThroughJackson() throws IOException {
+        List<Ticket> streamed = readTickets(RecordReader.ALL_TICKET_FIELDS);
+        List<Ticket> bound = JsonCodecs.TICKET_LIST_READER.readValue(tickets);
+
+        assertEquals(JsonCodecs.MAPPER.valueToTree(bound), JsonCodecs.MAPPER.valueToTree(streamed));
+        assertEquals("Ada", streamed.get(0).getPassengerName());
+        assertEquals("on request", streamed.get(1).getPriceText());
+    }
+
+    @Test public void embeddedTrainCopiesAreReducedToTheirId() throws IOException {
+        Ticket ticket = readTickets(RecordReader.ALL_TICKET_FIELDS).get(1);
+        assertEquals("1002", ticket.getTrainId());
+        assertNull("the copy itself is never built", ticket.getTrain());
+    }
+
+    @Test public void onlyRequestedFieldsAreRead() throws IOException {
+        List<Ticket> read = readTickets(Set.of("ticketId", "ticketStatus"));
+        assertEquals("t1", read.get(0).getTicketId());
+        assertEquals("CANCELLED", read.get(1).getTicketStatus());
+        assertNull(read.get(0).getSource());
+        assertNull(read.get(0).getTrainId());
+        assertFalse(read.get(0).hasPrice());
+        assertEquals(2, read.size());
+    }
+
+    @Test public void repeatedValuesShareOneString() throws IOException {
+        List<Ticket> read = readTickets(RecordReader.ALL_TICKET_FIELDS);
+        assertSame(read.get(0).getSource(), read.get(1).getSource());
+        assertSame(read.get(0).getDestination(), read.get(1).getDestination());
+    }
+
+    @Test public void usersArrayIsFoundAmongOtherProperties() throws IOException {
+        List<User> read = new ArrayList<>();
+        new RecordReader(JsonCodecs.MAPPER.getFactory(), RecordReader.ALL_USER_FIELDS).readUsers(users, read::add);
+
+        assertEquals(2, read.size());
+        assertEquals("Ada", read.get(0).getName());
+        assertEquals(List.of("t1"), read.get(0).getBookedTicketIds());
+        assertNull(read.get(0).getBookedTickets());
+        List<Ticket> embedded = read.get(1).getBookedTickets();
+        assertEquals("old-format tickets are read in full", 1, embedded.size());
+        assertEquals("1002", embedded.get(0).getTrainId());
+        assertEquals("New York", embedded.get(0).getSource());
+    }
+
+    @Test public void skippedUserFieldsKeepTheirDefaults() throws IOException {
+        List<User> read = new ArrayList<>();
+        new RecordReader(JsonCodecs.MAPPER.getFactory(), Set.of("userId", "email")).readUsers(users, read::add);
+
+        assertEquals("bob@example.com", read.get(1).getEmail());
+        assertNull(read.get(0).getName());
+        assertNull(read.get(0).getHashedPassword());
+        assertTrue(read.get(0).getBookedTicketIds().isEmpty());
+        assertNull(read.get(1).getBookedTickets());
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private List<Ticket> readTickets(Set<String> fields) throws IOException {
+        List<Ticket> read = new ArrayList<>();
+        new RecordReader(JsonCodecs.MAPPER.getFactory(), fields).readTickets(tickets, read::add);
+        return read;
+    }
+}
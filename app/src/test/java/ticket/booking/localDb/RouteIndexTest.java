@@ -0,0 +1,133 @@
+package ticket.booking.localDb;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.Before;
+import org.junit.Test;
+import ticket.booking.entities.Train;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Searches over the trains in route-index-trains.json:
+ * A1 Alpha 08:00 → Bravo 09:00 → Charlie 10:00, daily
+ * B1 Bravo 09:10 → Delta 09:55 and B2 Bravo 09:15 → Delta 10:30, daily
+ * C1 Charlie 10:20 → Delta 10:40, daily
+ * W1 Alpha 07:00 → Delta 08:00, weekdays
+ * N1 Alpha 22:00 → Echo 23:30 → Foxtrot 02:00 → Hotel 03:00, leaving on weekdays
+ * G1 Foxtrot 06:00 → Golf 08:00, weekdays
+ */
+public class RouteIndexTest {
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+    private static final LocalDate TUESDAY = MONDAY.plusDays(1);
+    private static final LocalDate FRIDAY = MONDAY.plusDays(4);
+    private static final LocalDate SATURDAY = MONDAY.plusDays(5);
+
+    private List<Train> trains;
+
+    @Before public void loadFixture() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/route-index-trains.json")) {
+            trains = JsonCodecs.MAPPER.readerFor(new TypeReference<List<Train>>() {}).readValue(in);
+        }
+    }
+
+    @Test public void directTrainsMustCallAtTheDestinationAfterTheSource() {
+        RouteIndex index = new RouteIndex(trains);
+        assertEquals(List.of("A1"), ids(index.findDirect("Alpha", "Charlie", null)));
+        assertEquals(List.of(), ids(index.findDirect("Charlie", "Alpha", null)));
+        assertEquals("station names ignore case and padding",
+            List.of("A1"), ids(index.findDirect("alpha", " BRAVO ", MONDAY)));
+        assertEquals(List.of(), ids(index.findDirect("Alpha", "Nowhere", MONDAY)));
+    }
+
+    @Test public void directTrainsAreOrderedByDepartureFromTheSource() {
+        RouteIndex index = new RouteIndex(trains);
+        assertEquals(List.of("B1", "B2"), ids(index.findDirect("Bravo", "Delta", MONDAY)));
+    }
+
+    @Test public void weekdayOnlyTrainsDoNotRunAtTheWeekend() {
+        RouteIndex index = new RouteIndex(trains);
+        assertEquals(List.of("W1"), ids(index.findDirect("Alpha", "Delta", MONDAY)));
+        assertEquals(List.of(), ids(index.findDirect("Alpha", "Delta", SATURDAY)));
+        assertEquals("no date ignores operating days",
+            List.of("W1"), ids(index.findDirect("Alpha", "Delta", null)));
+    }
+
+    @Test public void stopsAfterMidnightRunOnTheDayAfterTheTrainLeft() {
+        RouteIndex index = new RouteIndex(trains);
+        assertEquals(List.of(), ids(index.findDirect("Alpha", "Echo", SATURDAY)));
+        assertEquals("Friday night's train reaches Foxtrot on Saturday",
+            List.of("N1"), ids(index.findDirect("Foxtrot", "Hotel", SATURDAY)));
+        assertEquals("no train left on Sunday night",
+            List.of(), ids(index.findDirect("Foxtrot", "Hotel", MONDAY)));
+    }
+
+    @Test public void oneChangeConnectionsAreOrderedByArrival() {
+        RouteIndex index = new RouteIndex(trains);
+        List<RouteIndex.Connection> connections = index.findConnections("Alpha", "Delta", MONDAY);
+        assertEquals(List.of(
+            "A1>B2 at Bravo 09:00-09:15 arriving 10:30",
+            "A1>C1 at Charlie 10:00-10:20 arriving 10:40",
+            "A1>B1 at Bravo 09:00-09:10 arriving 09:55"), describe(connections));
+        assertEquals(15, connections.get(0).getConnectionMinutes());
+        assertEquals(MONDAY, connections.get(0).getFirstLegDate());
+        assertEquals(MONDAY, connections.get(0).getSecondLegDate());
+    }
+
+    @Test public void connectionShorterThanTheMinimumWaitsForTheNextDay() {
+        RouteIndex.Connection b1 = new RouteIndex(trains).findConnections("Alpha", "Delta", MONDAY).get(2);
+        assertEquals("B1", b1.getSecondTrain().getTrainId());
+        assertEquals(TUESDAY, b1.getSecondLegDate());
+        assertEquals(24 * 60 + 10, b1.getConnectionMinutes());
+
+        RouteIndex quick = new RouteIndex(trains, 5);
+        RouteIndex.Connection first = quick.findConnections("Alpha", "Delta", MONDAY).get(0);
+        assertEquals("A1>B1 at Bravo 09:00-09:10 arriving 09:55", describe(List.of(first)).get(0));
+        assertEquals(MONDAY, first.getSecondLegDate());
+        assertEquals(10, first.getConnectionMinutes());
+    }
+
+    @Test public void overnightFirstLegConnectsTheNextMorning() {
+        List<RouteIndex.Connection> connections = new RouteIndex(trains).findConnections("Alpha", "Golf", MONDAY);
+        assertEquals(List.of("N1>G1 at Foxtrot 02:00-06:00 arriving 08:00"), describe(connections));
+        RouteIndex.Connection connection = connections.get(0);
+        assertEquals(MONDAY, connection.getFirstLegDate());
+        assertEquals(TUESDAY, connection.getSecondLegDate());
+        assertEquals(4 * 60, connection.getConnectionMinutes());
+        assertEquals(LocalTime.of(8, 0), connection.getFinalArrivalTime());
+    }
+
+    @Test public void weekdayOnlySecondLegIsNotTakenAtTheWeekend() {
+        RouteIndex index = new RouteIndex(trains);
+        assertEquals("G1 does not run on Saturday morning",
+            List.of(), describe(index.findConnections("Alpha", "Golf", FRIDAY)));
+        assertEquals("N1 does not leave on Saturday",
+            List.of(), describe(index.findConnections("Alpha", "Golf", SATURDAY)));
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static List<String> ids(List<Train> trains) {
+        List<String> ids = new ArrayList<>(trains.size());
+        for (Train train : trains) {
+            ids.add(train.getTrainId());
+        }
+        return ids;
+    }
+
+    private static List<String> describe(List<RouteIndex.Connection> connections) {
+        List<String> descriptions = new ArrayList<>(connections.size());
+        for (RouteIndex.Connection c : connections) {
+            descriptions.add(c.getFirstTrain().getTrainId() + ">" + c.getSecondTrain().getTrainId()
+                + " at " + c.getTransferStation() + " " + c.getTransferArrivalTime() + "-"
+                + c.getTransferDepartureTime() + " arriving " + c.getFinalArrivalTime());
+        }
+        return descriptions;
+    }
+}
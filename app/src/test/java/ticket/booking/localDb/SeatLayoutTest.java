@@ -0,0 +1,70 @@
+package ticket.booking.localDb;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SeatLayoutTest {
+
+    @Test public void firstAdjacentRunInOneCoachComesFirst() {
+        SeatLayout layout = layout(8, 8);
+        long[][] free = {bits(0, 1, 3, 4, 5), bits(0, 1, 2, 3)};
+        assertGroup(layout.chooseGroup(free, 3), 0, 3, 0, 4, 0, 5);
+        assertGroup(layout.chooseGroup(free, 2), 0, 0, 0, 1);
+        assertGroup("a run in a later coach beats a split in an earlier one",
+            layout.chooseGroup(free, 4), 1, 0, 1, 1, 1, 2, 1, 3);
+    }
+
+    @Test public void runMayCrossAWordBoundary() {
+        SeatLayout layout = layout(70);
+        long[][] free = {bits(0, 2, 62, 63, 64, 65)};
+        assertGroup(layout.chooseGroup(free, 4), 0, 62, 0, 63, 0, 64, 0, 65);
+    }
+
+    @Test public void withoutARunTheGroupStaysInOneCoach() {
+        SeatLayout layout = layout(8, 8);
+        long[][] free = {bits(0, 2), bits(1, 3, 5, 7)};
+        assertGroup(layout.chooseGroup(free, 3), 1, 1, 1, 3, 1, 5);
+    }
+
+    @Test public void otherwiseTheLowestFreeSeatsAreTaken() {
+        SeatLayout layout = layout(8, 8, 8);
+        long[][] free = {bits(5), bits(1, 3), bits(0)};
+        assertGroup(layout.chooseGroup(free, 3), 0, 5, 1, 1, 1, 3);
+        assertGroup(layout.chooseGroup(free, 4), 0, 5, 1, 1, 1, 3, 2, 0);
+    }
+
+    @Test public void tooFewFreeSeatsChoosesNothing() {
+        SeatLayout layout = layout(8, 8);
+        assertNull(layout.chooseGroup(new long[][] {bits(5), bits(1, 3)}, 4));
+        assertNull(layout.chooseGroup(new long[][] {bits(), bits()}, 1));
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static SeatLayout layout(int... widths) {
+        return new SeatLayout(TestTrains.sellable(widths));
+    }
+
+    private static long[] bits(int... seats) {
+        long[] words = new long[2];
+        for (int seat : seats) {
+            words[seat >>> 6] |= 1L << seat;
+        }
+        return words;
+    }
+
+    private static void assertGroup(int[][] group, int... coachSeatPairs) {
+        assertGroup(null, group, coachSeatPairs);
+    }
+
+    private static void assertGroup(String message, int[][] group, int... coachSeatPairs) {
+        assertNotNull(message, group);
+        int[] flat = new int[group.length * 2];
+        for (int i = 0; i < group.length; i++) {
+            flat[2 * i] = group[i][0];
+            flat[2 * i + 1] = group[i][1];
+        }
+        assertArrayEquals(message, coachSeatPairs, flat);
+    }
+}
@@ -0,0 +1,127 @@
+package ticket.booking.localDb;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs on a hand-driven clock: sessions idle out after 10 minutes and end 60 minutes after
+ * login, on a wheel of 8 one-second slots, so most deadlines are several turns away
+ */
+public class SessionStoreTest {
+    private static final long IDLE = TimeUnit.MINUTES.toMillis(10);
+    private static final long ABSOLUTE = TimeUnit.MINUTES.toMillis(60);
+    private static final long TICK = 1000;
+
+    private long now = 1_700_000_000_000L;
+    private SessionStore store;
+
+    @Before public void createStore() {
+        store = new SessionStore(IDLE, ABSOLUTE, TICK, 8, () -> now);
+    }
+
+    @After public void shutdownStore() {
+        store.shutdown();
+    }
+
+    @Test public void sessionIdlesOutWithoutUse() {
+        SessionStore.Session session = store.create("u1");
+        String token = session.getToken();
+        assertEquals(now + IDLE, store.expiresAt(session));
+
+        now += IDLE - 1;
+        assertSame(session, store.get(token));
+        now += IDLE - 1;
+        assertSame("each use restarts the idle timeout", session, store.get(token));
+        now += IDLE;
+        assertNull(store.get(token));
+        assertNull(store.getByUserId("u1"));
+        assertEquals(0, store.size());
+    }
+
+    @Test public void sessionEndsAtTheAbsoluteLimitEvenWhileInUse() {
+        SessionStore.Session session = store.create("u1");
+        long createdAt = now;
+        while (now + TimeUnit.MINUTES.toMillis(5) < createdAt + ABSOLUTE) {
+            now += TimeUnit.MINUTES.toMillis(5);
+            assertSame(session, store.get(session.getToken()));
+        }
+        assertEquals(createdAt + ABSOLUTE, store.expiresAt(session));
+        now = createdAt + ABSOLUTE;
+        assertNull(store.get(session.getToken()));
+    }
+
+    @Test public void wheelEvictsSessionsNobodyAsksForAgain() {
+        store.create("idle");
+        SessionStore.Session busy = store.create("busy");
+        assertEquals(2, store.size());
+
+        runFor(IDLE / 2);
+        store.get(busy.getToken());
+        runFor(IDLE / 2 - TICK);
+        assertEquals("nothing is due yet", 2, store.size());
+
+        runFor(2 * TICK);
+        assertEquals("idle session evicted by the wheel alone", 1, store.size());
+        assertNotNull(store.getByUserId("busy"));
+
+        runFor(IDLE + TICK);
+        assertEquals(0, store.size());
+    }
+
+    @Test public void evictionIsAtMostOneTickLate() {
+        store.create("u1");
+        runFor(IDLE - TICK);
+        assertEquals(1, store.size());
+        runFor(TICK);
+        assertEquals(0, store.size());
+    }
+
+    @Test public void loggingInAgainReplacesTheSession() {
+        SessionStore.Session first = store.create("u1");
+        now += TICK;
+        SessionStore.Session second = store.create("u1");
+
+        assertNotEquals(first.getToken(), second.getToken());
+        assertNull(store.get(first.getToken()));
+        assertSame(second, store.getByUserId("u1"));
+        assertEquals(1, store.size());
+        assertFalse("the old token no longer ends anything", store.invalidate(first.getToken()));
+        assertSame(second, store.get(second.getToken()));
+    }
+
+    @Test public void replacedSessionInTheWheelDoesNotEvictItsSuccessor() {
+        store.create("u1");
+        runFor(IDLE / 2);
+        SessionStore.Session second = store.create("u1");
+        runFor(IDLE / 2 + TICK);
+        assertSame(second, store.getByUserId("u1"));
+        assertEquals(1, store.size());
+    }
+
+    @Test public void invalidateEndsTheSession() {
+        SessionStore.Session session = store.create("u1");
+        store.create("u2");
+        assertTrue(store.invalidate(session.getToken()));
+        assertNull(store.getByUserId("u1"));
+        assertTrue(store.invalidateUser("u2"));
+        assertFalse(store.invalidateUser("u2"));
+        assertEquals(0, store.size());
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    /**
+     * Move the clock forward tick by tick, turning the wheel as its thread would
+     */
+    private void runFor(long millis) {
+        for (long elapsed = 0; elapsed < millis; elapsed += TICK) {
+            now += TICK;
+            store.advance();
+        }
+    }
+}
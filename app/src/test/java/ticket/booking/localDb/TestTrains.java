@@ -0,0 +1,57 @@
+package ticket.booking.localDb;
+
+import ticket.booking.entities.Train;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Train fixtures shared by the localDb tests. Every train runs from New York to Boston.
+ */
+final class TestTrains {
+    static final List<String> STOPS = List.of("New York", "New Haven", "Boston");
+
+    private TestTrains() {
+    }
+
+    /**
+     * @param stations The stops in order, or null for a train without a station list
+     * @param seats One row per coach, 1 for a sellable seat; null for a train without seats
+     */
+    static Train train(String trainId, List<String> stations, List<List<Integer>> seats) {
+        Train train = new Train();
+        train.setTrainId(trainId);
+        train.setSource("New York");
+        train.setDestination("Boston");
+        train.setStations(stations);
+        train.setSeats(seats);
+        return train;
+    }
+
+    /**
+     * Train 1001 over the given stops with the given seat rows, 1 for a sellable seat
+     */
+    static Train train(List<String> stations, int[][] rows) {
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int[] row : rows) {
+            List<Integer> coach = new ArrayList<>();
+            for (int seat : row) {
+                coach.add(seat);
+            }
+            seats.add(coach);
+        }
+        return train("1001", stations, seats);
+    }
+
+    /**
+     * Train 1001 over STOPS with coaches of the given widths, every seat sellable
+     */
+    static Train sellable(int... widths) {
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int width : widths) {
+            seats.add(new ArrayList<>(Collections.nCopies(width, 1)));
+        }
+        return train("1001", STOPS, seats);
+    }
+}
@@ -0,0 +1,95 @@
+package ticket.booking.localDb;
+
+import org.junit.Test;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.TicketStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TicketAggregatesTest {
+    private static final LocalDate BASE = LocalDate.of(2026, 3, 2);
+
+    @Test public void rangeTotalsMatchAScanOfTheTickets() {
+        Random random = new Random(42);
+        TicketAggregates aggregates = new TicketAggregates();
+        List<Ticket> live = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // Mostly near BASE, with some far enough out to fall outside the tree's window
+            int offset = random.nextInt(10) == 0 ? random.nextInt(200_000) - 100_000 : random.nextInt(4000) - 2000;
+            Ticket ticket = ticket("t" + i, BASE.plusDays(offset), TicketStatus.values()[random.nextInt(TicketStatus.count())],
+                random.nextInt(50_000));
+            aggregates.add(ticket);
+            live.add(ticket);
+            if (random.nextInt(4) == 0) {
+                aggregates.remove(live.remove(random.nextInt(live.size())));
+            }
+        }
+
+        for (int query = 0; query < 500; query++) {
+            LocalDate start = BASE.plusDays(random.nextInt(240_000) - 120_000);
+            LocalDate end = random.nextBoolean() ? start.plusDays(random.nextInt(5000)) : start.plusDays(random.nextInt(240_000));
+            assertTotals(scan(live, start, end), aggregates.between(start, end));
+        }
+        LocalDate earliest = LocalDate.of(-999_999, 1, 1);
+        LocalDate latest = LocalDate.of(999_999, 1, 1);
+        assertTotals(scan(live, earliest, latest), aggregates.between(earliest, latest));
+    }
+
+    @Test public void removingEveryTicketLeavesNothing() {
+        TicketAggregates aggregates = new TicketAggregates();
+        Ticket near = ticket("t1", BASE, TicketStatus.PAID, 1250);
+        Ticket far = ticket("t2", BASE.plusYears(500), TicketStatus.CONFIRMED, 99);
+        aggregates.add(near);
+        aggregates.add(far);
+        assertEquals(1349, aggregates.between(BASE, BASE.plusYears(500)).revenue());
+        assertEquals(1250, aggregates.between(BASE, BASE).revenue(TicketStatus.PAID));
+
+        aggregates.remove(near);
+        aggregates.remove(far);
+        assertEquals(0, aggregates.between(BASE.minusYears(1000), BASE.plusYears(1000)).count());
+        assertEquals(0, aggregates.forUser("u1").count());
+        assertEquals(0, aggregates.forTrain("1001").count());
+    }
+
+    @Test public void backwardsRangeIsEmpty() {
+        TicketAggregates aggregates = new TicketAggregates();
+        aggregates.add(ticket("t1", BASE, TicketStatus.PAID, 100));
+        assertEquals(0, aggregates.between(BASE.plusDays(1), BASE.minusDays(1)).count());
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static Ticket ticket(String ticketId, LocalDate date, TicketStatus status, long priceMinor) {
+        Ticket ticket = new Ticket(ticketId, "u1", "New York", "Boston", date.toString(), null);
+        ticket.setTrainId("1001");
+        ticket.setStatus(status);
+        ticket.setPriceInMinorUnits(priceMinor);
+        return ticket;
+    }
+
+    private static TicketAggregates scan(List<Ticket> tickets, LocalDate start, LocalDate end) {
+        TicketAggregates expected = new TicketAggregates();
+        for (Ticket ticket : tickets) {
+            LocalDate date = ticket.getTravelDate();
+            if (!date.isBefore(start) && !date.isAfter(end)) {
+                expected.add(ticket);
+            }
+        }
+        return expected;
+    }
+
+    private static void assertTotals(TicketAggregates expected, TicketAggregates.Totals actual) {
+        TicketAggregates.Totals all = expected.forUser("u1");
+        assertEquals(all.count(), actual.count());
+        assertEquals(all.revenue(), actual.revenue());
+        for (TicketStatus status : TicketStatus.values()) {
+            assertEquals(status.name(), all.count(status), actual.count(status));
+            assertEquals(status.name(), all.revenue(status), actual.revenue(status));
+        }
+    }
+}
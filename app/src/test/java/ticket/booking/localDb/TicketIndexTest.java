@@ -0,0 +1,104 @@
+package ticket.booking.localDb;
+
+import org.junit.Test;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.TicketStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Secondary indexes by status, train, route and travel date
+ */
+public class TicketIndexTest {
+    private final TicketIndex index = new TicketIndex();
+
+    @Test public void queriesReturnTheMatchingTicketsInInsertionOrder() {
+        index.add(ticket("t1", "1001", "New York", "Boston", "2026-03-02", TicketStatus.CONFIRMED));
+        index.add(ticket("t2", "1002", "New York", "Boston", "2026-03-04", TicketStatus.PAID));
+        index.add(ticket("t3", "1001", "Boston", "New York", "2026-03-03", TicketStatus.CONFIRMED));
+
+        assertEquals(List.of("t1", "t3"), ids(index.getByStatus("CONFIRMED")));
+        assertEquals(List.of("t1", "t3"), ids(index.getByTrainId("1001")));
+        assertEquals("routes ignore case", List.of("t1", "t2"), ids(index.getByRoute("new york", "BOSTON")));
+        assertEquals(2, index.countByStatus("CONFIRMED"));
+        assertEquals(1, index.countByTrainId("1002"));
+        assertEquals(0, index.countByRoute("Boston", "Providence"));
+        assertTrue(index.getByTrainId("9999").isEmpty());
+    }
+
+    @Test public void dateRangesAreInclusiveAndInDateOrder() {
+        index.add(ticket("t1", "1001", "New York", "Boston", "2026-03-04", TicketStatus.CONFIRMED));
+        index.add(ticket("t2", "1001", "New York", "Boston", "2026-03-02", TicketStatus.CONFIRMED));
+        index.add(ticket("t3", "1001", "New York", "Boston", "2026-03-05", TicketStatus.CONFIRMED));
+        index.add(ticket("t4", "1001", "New York", "Boston", "2026-02-30", TicketStatus.CONFIRMED));
+
+        assertEquals(List.of("t2", "t1"), ids(index.getByDateRange(LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 4))));
+        assertTrue(index.getByDateRange(LocalDate.of(2026, 3, 4), LocalDate.of(2026, 3, 2)).isEmpty());
+        assertEquals("invalid dates are left out of ranges", 3,
+            index.getByDateRange(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31)).size());
+        assertNotNull(index.get("t4"));
+    }
+
+    @Test public void ticketMovesBucketsWhenChangedBetweenRemoveAndAdd() {
+        Ticket ticket = ticket("t1", "1001", "New York", "Boston", "2026-03-02", TicketStatus.CONFIRMED);
+        index.add(ticket);
+
+        index.remove(ticket);
+        ticket.setStatus(TicketStatus.CANCELLED);
+        ticket.setTravelDate(LocalDate.of(2026, 3, 9));
+        index.add(ticket);
+
+        assertTrue(index.getByStatus("CONFIRMED").isEmpty());
+        assertEquals(List.of("t1"), ids(index.getByStatus("CANCELLED")));
+        assertTrue(index.getByDateRange(LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 2)).isEmpty());
+        assertEquals(List.of("t1"), ids(index.getByDateRange(LocalDate.of(2026, 3, 9), LocalDate.of(2026, 3, 9))));
+    }
+
+    @Test public void addingUnderAnExistingIdReplacesTheTicketEverywhere() {
+        index.add(ticket("t1", "1001", "New York", "Boston", "2026-03-02", TicketStatus.CONFIRMED));
+        Ticket replacement = ticket("t1", "1002", "Boston", "Providence", "2026-03-03", TicketStatus.PAID);
+        index.add(replacement);
+
+        assertEquals(1, index.size());
+        assertSame(replacement, index.get("t1"));
+        assertEquals(0, index.countByTrainId("1001"));
+        assertEquals(0, index.countByStatus("CONFIRMED"));
+        assertEquals(0, index.countByRoute("New York", "Boston"));
+        assertTrue(index.getByDateRange(LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 2)).isEmpty());
+        assertEquals(1, index.aggregates().forTrain("1002").count());
+        assertEquals(0, index.aggregates().forTrain("1001").count());
+    }
+
+    @Test public void statusesOutsideTheEnumAreIndexedByTheirText() {
+        Ticket ticket = ticket("t1", "1001", "New York", "Boston", "2026-03-02", null);
+        ticket.setTicketStatus("WAITLISTED");
+        index.add(ticket);
+
+        assertEquals(List.of("t1"), ids(index.getByStatus("WAITLISTED")));
+        index.remove(ticket);
+        assertEquals(0, index.countByStatus("WAITLISTED"));
+        assertEquals(0, index.size());
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static Ticket ticket(String ticketId, String trainId, String source, String destination,
+                                 String date, TicketStatus status) {
+        Ticket ticket = new Ticket(ticketId, "u1", source, destination, date, null);
+        ticket.setTrainId(trainId);
+        ticket.setStatus(status);
+        return ticket;
+    }
+
+    private static List<String> ids(List<Ticket> tickets) {
+        List<String> ids = new ArrayList<>();
+        for (Ticket ticket : tickets) {
+            ids.add(ticket.getTicketId());
+        }
+        return ids;
+    }
+}
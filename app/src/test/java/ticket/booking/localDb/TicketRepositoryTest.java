@@ -0,0 +1,78 @@
+package ticket.booking.localDb;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ticket.booking.entities.Ticket;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TicketRepositoryTest {
+    private Path dir;
+    private TicketRepository tickets;
+
+    @Before public void openStore() throws IOException {
+        dir = Files.createTempDirectory("ticket-repository-test");
+        tickets = open();
+    }
+
+    @After public void closeStore() throws IOException {
+        tickets.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void failedSnapshotIsReportedAndKeepsTheJournal() throws IOException {
+        tickets.save(ticket("t1")).join();
+        Files.createDirectory(dir.resolve("tickets.json.tmp")); // The snapshot's temp file cannot be created
+        try {
+            tickets.saveTicketsToFile();
+            fail("snapshot write failure was swallowed");
+        } catch (UncheckedIOException e) {
+            assertNotNull(e.getCause());
+        }
+        Files.delete(dir.resolve("tickets.json.tmp"));
+
+        tickets.close();
+        tickets = open();
+        assertNotNull("still in the journal", tickets.get("t1"));
+    }
+
+    @Test public void idLookupFollowsReplaceAndDelete() {
+        Ticket first = ticket("t1");
+        tickets.save(first);
+        assertSame(first, tickets.get("t1"));
+
+        Ticket replacement = ticket("t1");
+        tickets.save(replacement);
+        assertSame(replacement, tickets.get("t1"));
+        assertEquals(1, tickets.size());
+
+        assertSame(replacement, tickets.delete("t1"));
+        assertNull(tickets.get("t1"));
+        assertNull("already gone", tickets.delete("t1"));
+        assertEquals(0, tickets.size());
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private TicketRepository open() {
+        return new TicketRepository(dir.resolve("tickets.json").toString(), dir.resolve("tickets.journal").toString());
+    }
+
+    private static Ticket ticket(String ticketId) {
+        Ticket ticket = new Ticket(ticketId, "u1", "New York", "Boston", "2026-03-02", null);
+        ticket.setTrainId("1001");
+        return ticket;
+    }
+}
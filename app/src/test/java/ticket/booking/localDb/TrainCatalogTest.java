@@ -0,0 +1,91 @@
+package ticket.booking.localDb;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ticket.booking.entities.Train;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * The catalog parses trains.json once and again only when the file changes on disk
+ */
+public class TrainCatalogTest {
+    private static final String ONE_TRAIN = """
+        {"trains": [{"trainId": "1001", "source": "New York", "destination": "Boston"}]}
+        """;
+    private static final String TWO_TRAINS = """
+        {"trains": [{"trainId": "1001", "source": "New York", "destination": "Providence"},
+                    {"trainId": "1002", "source": "Boston", "destination": "New York"}]}
+        """;
+    // Longer than TrainCatalog's throttle on file checks
+    private static final long CHECK_INTERVAL_MILLIS = 600;
+
+    private Path dir;
+    private Path file;
+    private TrainCatalog catalog;
+
+    @Before public void openCatalog() throws IOException {
+        dir = Files.createTempDirectory("train-catalog-test");
+        file = dir.resolve("trains.json");
+        Files.writeString(file, ONE_TRAIN);
+        catalog = new TrainCatalog(file.toString());
+    }
+
+    @After public void deleteFiles() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void lookupsAreServedFromMemoryWhileTheFileIsUnchanged() throws InterruptedException {
+        Train train = catalog.getTrain("1001");
+        long version = catalog.version();
+        Thread.sleep(CHECK_INTERVAL_MILLIS);
+
+        assertFalse("nothing changed on disk", catalog.refreshIfChanged());
+        assertSame(train, catalog.getTrain("1001"));
+        assertEquals(version, catalog.version());
+    }
+
+    @Test public void changedFileIsReloaded() throws Exception {
+        long version = catalog.version();
+        Files.writeString(file, TWO_TRAINS);
+        Thread.sleep(CHECK_INTERVAL_MILLIS);
+
+        assertEquals("Providence", catalog.getTrain("1001").getDestination());
+        assertNotNull(catalog.getTrain("1002"));
+        assertEquals(2, catalog.getTrains().size());
+        assertTrue(catalog.version() > version);
+    }
+
+    @Test public void ownWritesAreNotTakenForChangesOnDisk() throws Exception {
+        Train added = new Train();
+        added.setTrainId("1002");
+        assertTrue(catalog.addTrain(added));
+        assertFalse("already known", catalog.addTrain(added));
+        long version = catalog.version();
+        Thread.sleep(CHECK_INTERVAL_MILLIS);
+
+        assertFalse(catalog.refreshIfChanged());
+        assertSame(added, catalog.getTrain("1002"));
+        assertEquals(version, catalog.version());
+        assertNotNull("written through", new TrainCatalog(file.toString()).getTrain("1002"));
+    }
+
+    @Test public void fileThatNoLongerParsesLeavesTheLoadedTrainsInPlace() throws Exception {
+        Files.writeString(file, "{\"trains\": [");
+        Thread.sleep(CHECK_INTERVAL_MILLIS);
+
+        assertEquals("New York", catalog.getTrain("1001").getSource());
+        assertEquals(1, catalog.getTrains().size());
+    }
+}
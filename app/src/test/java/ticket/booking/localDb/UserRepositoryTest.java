@@ -0,0 +1,170 @@
+package ticket.booking.localDb;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.TicketStatus;
+import ticket.booking.entities.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Repairs made on open when a crash left the user and ticket journals out of step
+ */
+public class UserRepositoryTest {
+    private Path dir;
+    private TicketRepository tickets;
+    private UserRepository users;
+
+    @Before public void openStores() throws IOException {
+        dir = Files.createTempDirectory("user-repository-test");
+        open();
+        users.save(user("u1")).join();
+    }
+
+    @After public void closeStores() throws IOException {
+        users.close();
+        tickets.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void bookedTicketsTheUserRecordMissedAreGivenBackToTheUser() {
+        // The group's tickets reached disk but the user record listing them did not
+        tickets.saveAll(List.of(ticket("t1", "u1"), ticket("t2", "u1"))).join();
+        Ticket cancelled = ticket("t3", "u1");
+        cancelled.setStatus(TicketStatus.CANCELLED);
+        tickets.save(cancelled).join();
+        tickets.save(ticket("t4", "nobody")).join();
+
+        reopen();
+        assertEquals(List.of("t1", "t2"), users.get("u1").getBookedTicketIds());
+        assertSame(tickets.get("t1"), users.get("u1").getBookedTickets().get(0));
+
+        reopen();
+        assertEquals("the repair was written back", List.of("t1", "t2"), storedTicketIds("u1"));
+    }
+
+    @Test public void listedTicketsTheStoreNeverGotAreDropped() {
+        Ticket kept = ticket("t1", "u1");
+        tickets.save(kept).join();
+        users.addBookedTicket(users.get("u1"), kept).join();
+        Ticket lost = ticket("t2", "u1");
+        users.addBookedTicket(users.get("u1"), lost).join(); // Its ticket record never reached disk
+
+        reopen();
+        assertEquals(List.of("t1"), users.get("u1").getBookedTicketIds());
+        assertEquals("the repair was written back", List.of("t1"), storedTicketIds("u1"));
+    }
+
+    @Test public void idAndEmailLookupsFollowEveryChange() {
+        User user = user("u2");
+        users.save(user);
+        assertSame(user, users.get("u2"));
+        assertSame(user, users.getByEmail("u2@example.com"));
+
+        users.update(user, u -> u.setEmail("grace@example.com"));
+        assertNull(users.getByEmail("u2@example.com"));
+        assertSame(user, users.getByEmail("grace@example.com"));
+
+        User replacement = user("u2");
+        users.save(replacement);
+        assertSame(replacement, users.get("u2"));
+        assertNull("the replaced user's email is released", users.getByEmail("grace@example.com"));
+        assertSame(replacement, users.getByEmail("u2@example.com"));
+
+        assertSame(replacement, users.delete("u2"));
+        assertNull(users.get("u2"));
+        assertNull(users.getByEmail("u2@example.com"));
+        assertEquals(1, users.size());
+
+        reopen();
+        assertNull(users.get("u2"));
+        assertNotNull(users.getByEmail("u1@example.com"));
+    }
+
+    @Test public void usersAreWrittenWithTicketIdsOnly() throws IOException {
+        Ticket ticket = ticket("t1", "u1");
+        ticket.setTrain(TestTrains.sellable(3));
+        tickets.save(ticket);
+        users.addBookedTicket(users.get("u1"), ticket);
+        users.saveUsersToFile();
+        tickets.saveTicketsToFile();
+
+        String usersJson = Files.readString(dir.resolve("users.json"));
+        assertTrue(usersJson, usersJson.contains("\"bookedTicketIds\":[\"t1\"]"));
+        assertFalse("no embedded ticket copies", usersJson.contains("\"bookedTickets\""));
+        String ticketsJson = Files.readString(dir.resolve("tickets.json"));
+        assertTrue(ticketsJson, ticketsJson.contains("\"trainId\":\"1001\""));
+        assertFalse("no embedded train copies", ticketsJson.contains("\"seats\""));
+    }
+
+    @Test public void embeddedTicketsFromTheOldFormatMoveToTheTicketStore() throws IOException {
+        users.close();
+        tickets.close();
+        Files.deleteIfExists(dir.resolve("users.journal")); // Holds u1 as saved in openStores
+        Files.writeString(dir.resolve("users.json"), """
+            {"users": [{"userId": "u1", "email": "u1@example.com", "bookedTickets": [
+              {"ticketId": "t1", "userId": "u1", "source": "New York", "destination": "Boston",
+               "dateOfTravel": "2026-03-02", "ticketStatus": "CONFIRMED",
+               "train": {"trainId": "1001", "seats": [[1, 1]]}}]}]}
+            """);
+        open();
+
+        Ticket migrated = tickets.get("t1");
+        assertNotNull("added to the ticket store", migrated);
+        assertEquals("1001", migrated.getTrainId());
+        assertSame("one shared copy", migrated, users.get("u1").getBookedTickets().get(0));
+
+        User stored = users.loadUsersFromFile().get(0);
+        assertNull("rewritten without the embedded copy", stored.getBookedTickets());
+        assertEquals(List.of("t1"), stored.getBookedTicketIds());
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private void open() {
+        tickets = new TicketRepository(dir.resolve("tickets.json").toString(), dir.resolve("tickets.journal").toString());
+        users = new UserRepository(dir.resolve("users.json").toString(), dir.resolve("users.journal").toString(), tickets);
+    }
+
+    private void reopen() {
+        users.close();
+        tickets.close();
+        open();
+    }
+
+    private List<String> storedTicketIds(String userId) {
+        for (User user : users.loadUsersFromFile()) {
+            if (user.getUserId().equals(userId)) {
+                return user.getBookedTicketIds();
+            }
+        }
+        return null;
+    }
+
+    private static User user(String userId) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setEmail(userId + "@example.com");
+        return user;
+    }
+
+    private static Ticket ticket(String ticketId, String userId) {
+        Ticket ticket = new Ticket(ticketId, userId, "New York", "Boston", "2026-03-02", null);
+        ticket.setTrainId("1001");
+        ticket.setStatus(TicketStatus.CONFIRMED);
+        return ticket;
+    }
+}
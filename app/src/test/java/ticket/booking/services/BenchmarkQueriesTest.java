@@ -0,0 +1,101 @@
+package ticket.booking.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.localDb.InMemorySeatInventory;
+import ticket.booking.localDb.TicketRepository;
+import ticket.booking.localDb.TrainCatalog;
+import ticket.booking.localDb.UserRepository;
+import ticket.booking.utils.DatasetGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * The JMH benchmarks build their queries from DatasetGenerator's naming scheme. If a query
+ * stopped finding its target, a benchmark would time the miss path without failing, so the
+ * same queries are checked here against a small generated dataset.
+ */
+public class BenchmarkQueriesTest {
+    private static final int TRAINS = 20;
+    private static final int USERS = 50;
+    private static final int TICKETS = 500;
+    private static final LocalDate FIRST_DATE = DatasetGenerator.DEFAULT_START_DATE;
+
+    private Path dir;
+    private TicketRepository tickets;
+    private UserRepository users;
+    private TrainServiceImpl trainService;
+    private UserServiceImpl userService;
+    private TicketServiceImpl ticketService;
+
+    @Before public void generateDataset() throws IOException {
+        dir = Files.createTempDirectory("benchmark-queries-test");
+        new DatasetGenerator(DatasetGenerator.DEFAULT_SEED, TRAINS, USERS, TICKETS).generate(dir);
+        TrainCatalog catalog = new TrainCatalog(dir.resolve("trains.json").toString());
+        tickets = new TicketRepository(dir.resolve("tickets.json").toString(), dir.resolve("tickets.journal").toString());
+        users = new UserRepository(dir.resolve("users.json").toString(), dir.resolve("users.journal").toString(), tickets);
+        InMemorySeatInventory inventory = new InMemorySeatInventory();
+        trainService = new TrainServiceImpl(inventory, catalog, tickets);
+        userService = new UserServiceImpl(trainService, inventory, users, tickets);
+        ticketService = new TicketServiceImpl(inventory, catalog, users, tickets);
+    }
+
+    @After public void closeStores() throws IOException {
+        users.close();
+        tickets.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void userQueriesFindTheirUser() {
+        for (int i = 0; i < USERS; i += 7) {
+            User user = userService.loginUser(DatasetGenerator.email(i), DatasetGenerator.DEFAULT_PASSWORD);
+            assertNotNull("login of " + DatasetGenerator.email(i), user);
+            assertEquals(DatasetGenerator.userId(i), user.getUserId());
+            assertSame(user, userService.getUserByEmail(DatasetGenerator.email(i)));
+        }
+    }
+
+    @Test public void bookingsSpreadOverTrainsAndDatesSucceed() {
+        for (int next = 0; next < 40; next++) {
+            LocalDate date = FIRST_DATE.plusDays((next / TRAINS) % DatasetGenerator.DEFAULT_DAYS);
+            assertNotNull("booking " + next, userService.bookTicket(DatasetGenerator.userId(next % USERS),
+                DatasetGenerator.trainId(next % TRAINS), date, "WINDOW", null));
+        }
+    }
+
+    @Test public void everyTrainIsFoundByIdAndByItsEndStations() {
+        for (Train train : trainService.getAllTrains()) {
+            assertSame(train, trainService.getTrainById(train.getTrainId()));
+            String source = train.getStations().get(0);
+            String destination = train.getStations().get(train.getStations().size() - 1);
+            boolean found = false;
+            for (int day = 0; day < 7 && !found; day++) {
+                found = trainService.searchTrains(source, destination, FIRST_DATE.plusDays(day)).contains(train);
+            }
+            assertTrue(train.getTrainId() + " runs on some day of the first week", found);
+        }
+        assertEquals(TRAINS, trainService.getAllTrains().size());
+    }
+
+    @Test public void ticketQueriesOverTheDatasetWindowSeeItsTickets() {
+        LocalDate last = FIRST_DATE.plusDays(DatasetGenerator.DEFAULT_DAYS - 1);
+        assertEquals(TICKETS, ticketService.getTicketsByDateRange(FIRST_DATE, last).size());
+        Map<String, Object> statistics = ticketService.getBookingStatistics(FIRST_DATE, last);
+        assertEquals(TICKETS, statistics.get("totalBookings"));
+    }
+}
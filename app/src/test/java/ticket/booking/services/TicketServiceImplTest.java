@@ -0,0 +1,177 @@
+package ticket.booking.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.TicketStatus;
+import ticket.booking.entities.Train;
+import ticket.booking.localDb.InMemorySeatInventory;
+import ticket.booking.localDb.TicketRepository;
+import ticket.booking.localDb.TrainCatalog;
+import ticket.booking.localDb.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Seat and statistics effects of ticket status changes, against a one-coach, two-seat train
+ * running New York → New Haven → Boston
+ */
+public class TicketServiceImplTest {
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 2);
+    private static final String TRAINS = """
+        {"trains": [{"trainId": "1001", "source": "New York", "destination": "Boston",
+                     "stations": ["New York", "New Haven", "Boston"], "seats": [[1, 1]]}]}
+        """;
+
+    private Path dir;
+    private TicketRepository tickets;
+    private UserRepository users;
+    private InMemorySeatInventory inventory;
+    private TicketServiceImpl service;
+    private Train train;
+
+    @Before public void openStores() throws IOException {
+        dir = Files.createTempDirectory("ticket-service-test");
+        Files.writeString(dir.resolve("trains.json"), TRAINS);
+        TrainCatalog catalog = new TrainCatalog(dir.resolve("trains.json").toString());
+        tickets = new TicketRepository(dir.resolve("tickets.json").toString(), dir.resolve("tickets.journal").toString());
+        users = new UserRepository(dir.resolve("users.json").toString(), dir.resolve("users.journal").toString(), tickets);
+        inventory = new InMemorySeatInventory();
+        service = new TicketServiceImpl(inventory, catalog, users, tickets);
+        train = catalog.getTrain("1001");
+    }
+
+    @After public void closeStores() throws IOException {
+        users.close();
+        tickets.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void createTakesTheSeatAndRejectsASecondSale() {
+        assertNotNull(service.createTicket(ticket("t1", "S1-1", "New York", "Boston")));
+        assertFalse(inventory.isSeatFree(train, DATE, 0, 0));
+        assertNull("seat already sold", service.createTicket(ticket("t2", "S1-1", "New Haven", "Boston")));
+        assertNull(service.getTicketById("t2"));
+    }
+
+    @Test public void cancelReleasesOnlyTheTicketsSegments() {
+        service.createTicket(ticket("t1", "S1-1", "New York", "New Haven"));
+        service.createTicket(ticket("t2", "S1-1", "New Haven", "Boston"));
+
+        assertTrue(service.cancelTicket("t1"));
+        assertTrue(inventory.isSeatFree(train, DATE, 0, 0, 0, 1));
+        assertFalse("the other passenger keeps New Haven → Boston", inventory.isSeatFree(train, DATE, 0, 0, 1, 2));
+        assertEquals(TicketStatus.CANCELLED, service.getTicketById("t1").getStatus());
+    }
+
+    @Test public void statusChangesThatKeepTheSeatLeaveTheInventoryAlone() {
+        service.createTicket(ticket("t1", "S1-2", "New York", "Boston"));
+        assertTrue(service.updateTicketStatus("t1", "PAID"));
+        assertTrue(service.updateTicketStatus("t1", "COMPLETED"));
+        assertFalse(inventory.isSeatFree(train, DATE, 0, 1));
+        assertFalse("COMPLETED is final", service.cancelTicket("t1"));
+        assertFalse(inventory.isSeatFree(train, DATE, 0, 1));
+    }
+
+    @Test public void refundAfterCancelDoesNotReleaseTwice() {
+        service.createTicket(ticket("t1", "S1-1", "New York", "Boston"));
+        assertTrue(service.processPayment("t1", "CARD", 42.0));
+        assertTrue(service.cancelTicket("t1"));
+        assertNotNull("resold", service.createTicket(ticket("t2", "S1-1", "New York", "Boston")));
+
+        assertTrue(service.refundTicket("t1"));
+        assertFalse("t2 still holds the seat", inventory.isSeatFree(train, DATE, 0, 0));
+    }
+
+    @Test public void onlyPaidTicketsAreRefunded() {
+        service.createTicket(ticket("t1", "S1-1", "New York", "Boston"));
+        assertFalse("confirmed but never paid", service.refundTicket("t1"));
+        assertTrue(service.cancelTicket("t1"));
+        assertFalse("cancelled without ever being paid", service.refundTicket("t1"));
+        assertEquals(TicketStatus.CANCELLED, service.getTicketById("t1").getStatus());
+
+        service.createTicket(ticket("t2", "S1-2", "New York", "Boston"));
+        assertTrue(service.processPayment("t2", "CARD", 42.0));
+        assertTrue(service.refundTicket("t2"));
+        assertTrue(inventory.isSeatFree(train, DATE, 0, 1));
+    }
+
+    @Test public void reconfirmTakesTheSeatBackWhileItIsFree() {
+        service.createTicket(ticket("t1", "S1-1", "New York", "Boston"));
+        assertTrue(service.cancelTicket("t1"));
+        assertTrue(service.confirmTicket("t1"));
+        assertFalse(inventory.isSeatFree(train, DATE, 0, 0));
+        assertEquals(TicketStatus.CONFIRMED, service.getTicketById("t1").getStatus());
+    }
+
+    @Test public void reconfirmAfterResaleFails() {
+        service.createTicket(ticket("t1", "S1-1", "New York", "Boston"));
+        assertTrue(service.cancelTicket("t1"));
+        assertNotNull(service.createTicket(ticket("t2", "S1-1", "New Haven", "Boston")));
+
+        assertFalse(service.confirmTicket("t1"));
+        assertEquals(TicketStatus.CANCELLED, service.getTicketById("t1").getStatus());
+        assertTrue("New York → New Haven was never resold", inventory.isSeatFree(train, DATE, 0, 0, 0, 1));
+        assertTrue(service.cancelTicket("t2"));
+        assertTrue(service.confirmTicket("t1"));
+    }
+
+    @Test public void statisticsFollowPaymentsCancelsAndRefunds() {
+        Ticket first = ticket("t1", "S1-1", "New York", "Boston");
+        first.setPrice(30.0);
+        Ticket second = ticket("t2", "S1-2", "New York", "Boston");
+        second.setPrice(12.5);
+        service.createTicket(first);
+        service.createTicket(second);
+        assertStatistics(2, 2L, 0L, 42.5, 42.5);
+
+        assertTrue(service.cancelTicket("t2"));
+        assertStatistics(2, 1L, 1L, 42.5, 30.0);
+
+        assertTrue(service.processPayment("t1", "CARD", 40.0));
+        assertStatistics(2, 0L, 1L, 52.5, 0.0);
+
+        assertTrue(service.refundTicket("t1"));
+        assertStatistics(2, 0L, 1L, 52.5, 0.0);
+        assertEquals("another day", 0, service.getBookingStatistics(DATE.plusDays(1), DATE.plusDays(7)).get("totalBookings"));
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private void assertStatistics(int total, long confirmed, long cancelled, double revenue, double confirmedRevenue) {
+        Map<String, Object> bookings = service.getBookingStatistics(DATE, DATE);
+        assertEquals(total, bookings.get("totalBookings"));
+        assertEquals(confirmed, bookings.get("confirmedBookings"));
+        assertEquals(cancelled, bookings.get("cancelledBookings"));
+        assertEquals(revenue, bookings.get("totalRevenue"));
+        Map<String, Object> revenues = service.getRevenueStatistics(DATE.minusDays(1), DATE);
+        assertEquals(confirmedRevenue, revenues.get("totalRevenue"));
+        assertEquals(confirmedRevenue / total, revenues.get("averageTicketPrice"));
+    }
+
+    private static Ticket ticket(String ticketId, String seat, String source, String destination) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ticketId);
+        ticket.setUserId("u1");
+        ticket.setTrainId("1001");
+        ticket.setSource(source);
+        ticket.setDestination(destination);
+        ticket.setTravelDate(DATE);
+        ticket.setSeatNumber(seat);
+        ticket.setStatus(TicketStatus.CONFIRMED);
+        return ticket;
+    }
+}
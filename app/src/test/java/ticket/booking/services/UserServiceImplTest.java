@@ -0,0 +1,176 @@
+package ticket.booking.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mindrot.jbcrypt.BCrypt;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.User;
+import ticket.booking.localDb.InMemorySeatInventory;
+import ticket.booking.localDb.TicketRepository;
+import ticket.booking.localDb.TrainCatalog;
+import ticket.booking.localDb.UserRepository;
+import ticket.booking.utils.PasswordHasher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Bookings against a one-coach, three-seat train 1001 and a two-coach, twenty-seat train 1002,
+ * both running New York → New Haven → Boston
+ */
+public class UserServiceImplTest {
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 2);
+    private static final String TRAINS = """
+        {"trains": [{"trainId": "1001", "source": "New York", "destination": "Boston",
+                     "stations": ["New York", "New Haven", "Boston"], "seats": [[1, 1, 1]]},
+                    {"trainId": "1002", "source": "New York", "destination": "Boston",
+                     "stations": ["New York", "New Haven", "Boston"],
+                     "seats": [[1, 1, 1, 1, 1, 1, 1, 1, 1, 1], [1, 1, 1, 1, 1, 1, 1, 1, 1, 1]]}]}
+        """;
+
+    private Path dir;
+    private TicketRepository tickets;
+    private UserRepository users;
+    private UserServiceImpl service;
+    private TicketServiceImpl ticketService;
+
+    @Before public void openStores() throws IOException {
+        dir = Files.createTempDirectory("user-service-test");
+        Files.writeString(dir.resolve("trains.json"), TRAINS);
+        open();
+        User user = new User();
+        user.setUserId("u1");
+        user.setEmail("ada@example.com");
+        user.setPassword("secret");
+        assertTrue(service.registerUser(user));
+    }
+
+    @After public void closeStores() throws IOException {
+        users.close();
+        tickets.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void eachPassengersNameIsKeptOnTheirTicket() {
+        List<Ticket> group = service.bookTickets("u1", "1001", DATE,
+            List.of(Map.of("name", "Ada"), Map.of("name", "Grace")));
+        assertEquals(2, group.size());
+        String ada = group.get(0).getTicketId();
+        String grace = group.get(1).getTicketId();
+
+        users.close();
+        tickets.close();
+        open();
+        assertEquals("Ada", tickets.get(ada).getPassengerName());
+        assertEquals("Grace", tickets.get(grace).getPassengerName());
+        assertEquals(List.of(ada, grace), users.get("u1").getBookedTicketIds());
+    }
+
+    @Test public void stopsAreMatchedIgnoringCaseAsTheInventoryDoes() {
+        List<Ticket> group = service.bookTickets("u1", "1001", DATE, List.of(
+            Map.of("source", "New Haven", "destination", "Boston"),
+            Map.of("source", "new haven", "destination", "BOSTON")));
+        assertEquals(2, group.size());
+
+        assertTrue("passengers on different journeys", service.bookTickets("u1", "1001", DATE, List.of(
+            Map.of("source", "New York", "destination", "New Haven"),
+            Map.of("source", "New York", "destination", "Boston"))).isEmpty());
+    }
+
+    @Test public void concurrentBookingsNeverShareASeat() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Ticket>>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String source = t % 2 == 0 ? "New York" : "New Haven";
+            results.add(pool.submit(() -> {
+                List<Ticket> booked = new ArrayList<>();
+                start.await();
+                for (int i = 0; i < 10; i++) {
+                    Ticket ticket = service.bookTicket("u1", "1002", DATE, null,
+                        Map.of("source", source, "destination", "Boston"));
+                    if (ticket != null) {
+                        booked.add(ticket);
+                    }
+                }
+                return booked;
+            }));
+        }
+        start.countDown();
+        Set<String> seats = new HashSet<>();
+        int booked = 0;
+        for (Future<List<Ticket>> result : results) {
+            for (Ticket ticket : result.get(30, TimeUnit.SECONDS)) {
+                // Every journey rides New Haven → Boston, so no seat can be sold twice
+                assertTrue("seat " + ticket.getSeatNumber() + " sold twice", seats.add(ticket.getSeatNumber()));
+                booked++;
+            }
+        }
+        pool.shutdown();
+        assertEquals("every seat sold, and no more", 20, booked);
+        assertEquals(20, users.getBookedTickets("u1").size());
+        assertEquals(20, tickets.countByTrainId("1002"));
+    }
+
+    @Test public void bothServicesSeeEachOthersChangesAtOnce() {
+        Ticket booked = service.bookTicket("u1", "1001", DATE, null, null);
+        assertNotNull(booked);
+        assertSame(booked, ticketService.getTicketById(booked.getTicketId()));
+        assertEquals(List.of(booked), ticketService.getTicketsByUserId("u1"));
+
+        assertTrue(ticketService.cancelTicket(booked.getTicketId()));
+        assertEquals(List.of(booked), service.getCancelledTickets("u1"));
+        assertEquals(1L, service.getUserStatistics("u1").get("cancelledBookings"));
+        for (int i = 0; i < 3; i++) {
+            assertNotNull("seat released through the other service", service.bookTicket("u1", "1001", DATE, null, null));
+        }
+        assertEquals(4, ticketService.getTicketsByUserId("u1").size());
+    }
+
+    @Test public void loginUpgradesAHashMadeAtAnotherCost() throws Exception {
+        User user = users.get("u1");
+        users.update(user, u -> u.setHashedPassword(BCrypt.hashpw("secret", BCrypt.gensalt(PasswordHasher.MIN_COST))));
+        assertTrue(PasswordHasher.shared().needsRehash(user.getHashedPassword()));
+
+        assertSame(user, service.loginUser("ada@example.com", "secret"));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (PasswordHasher.shared().needsRehash(user.getHashedPassword()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(PasswordHasher.shared().cost(), PasswordHasher.costOf(user.getHashedPassword()));
+        assertNotNull("the new hash still matches", service.loginUser("ada@example.com", "secret"));
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private void open() {
+        TrainCatalog catalog = new TrainCatalog(dir.resolve("trains.json").toString());
+        tickets = new TicketRepository(dir.resolve("tickets.json").toString(), dir.resolve("tickets.journal").toString());
+        users = new UserRepository(dir.resolve("users.json").toString(), dir.resolve("users.journal").toString(), tickets);
+        InMemorySeatInventory inventory = new InMemorySeatInventory();
+        service = new UserServiceImpl(new TrainServiceImpl(inventory, catalog, tickets), inventory, users, tickets);
+        ticketService = new TicketServiceImpl(inventory, catalog, users, tickets);
+    }
+}
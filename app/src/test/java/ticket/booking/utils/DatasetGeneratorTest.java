@@ -0,0 +1,134 @@
+package ticket.booking.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ticket.booking.entities.Ticket;
+import ticket.booking.entities.Train;
+import ticket.booking.entities.User;
+import ticket.booking.interfaces.SeatInventory;
+import ticket.booking.localDb.JsonCodecs;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class DatasetGeneratorTest {
+    private static final int TRAINS = 40;
+    private static final int USERS = 200;
+    private static final int TICKETS = 3000;
+
+    private Path dir;
+
+    @Before public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("dataset-generator-test");
+    }
+
+    @After public void deleteFiles() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test public void sameSeedWritesIdenticalFiles() throws IOException {
+        generate(7, "a");
+        generate(7, "b");
+        generate(8, "c");
+        for (String file : List.of("trains.json", "users.json", "tickets.json")) {
+            assertEquals(file, -1L, Files.mismatch(dir.resolve("a").resolve(file), dir.resolve("b").resolve(file)));
+        }
+        assertNotEquals("another seed, other bookings", -1L,
+            Files.mismatch(dir.resolve("a").resolve("tickets.json"), dir.resolve("c").resolve("tickets.json")));
+    }
+
+    @Test public void ticketsAndUsersReferToEachOther() throws IOException {
+        Path out = generate(DatasetGenerator.DEFAULT_SEED, "data");
+        Map<String, Train> trains = trains(out);
+        List<Ticket> tickets = tickets(out);
+        List<User> users = JsonCodecs.USERS_DOCUMENT_READER.<Map<String, List<User>>>readValue(
+            out.resolve("users.json").toFile()).get("users");
+
+        assertEquals(TRAINS, trains.size());
+        assertEquals(USERS, users.size());
+        assertEquals(TICKETS, tickets.size());
+        Map<String, String> owners = new HashMap<>();
+        for (Ticket ticket : tickets) {
+            assertTrue(ticket.getTrainId(), trains.containsKey(ticket.getTrainId()));
+            assertNotNull("route on its train", SeatInventory.stopRange(trains.get(ticket.getTrainId()),
+                ticket.getSource(), ticket.getDestination()));
+            owners.put(ticket.getTicketId(), ticket.getUserId());
+        }
+        int listed = 0;
+        for (User user : users) {
+            for (String ticketId : user.getBookedTicketIds()) {
+                assertEquals("owner of " + ticketId, user.getUserId(), owners.get(ticketId));
+                listed++;
+            }
+        }
+        assertEquals("every ticket is on its user's list", TICKETS, listed);
+    }
+
+    @Test public void noSeatIsSoldTwiceOrBeyondTheSellableSeats() throws IOException {
+        Path out = generate(DatasetGenerator.DEFAULT_SEED, "data");
+        Map<String, Train> trains = trains(out);
+        Set<String> held = new HashSet<>();
+        for (Ticket ticket : tickets(out)) {
+            if (ticket.getStatus() != null && !ticket.getStatus().holdsSeat()) {
+                continue;
+            }
+            Train train = trains.get(ticket.getTrainId());
+            int[] seat = SeatInventory.parseSeatLabel(ticket.getSeatNumber());
+            assertNotNull(ticket.getSeatNumber(), seat);
+            assertEquals("sellable seat " + ticket.getSeatNumber(), Integer.valueOf(1),
+                train.getSeats().get(seat[0]).get(seat[1]));
+            int[] range = SeatInventory.ticketRange(train, ticket);
+            for (int segment = range[0]; segment < range[1]; segment++) {
+                assertTrue(ticket.getTicketId() + " shares a seat",
+                    held.add(ticket.getTrainId() + "/" + ticket.getDateOfTravel() + "/" + ticket.getSeatNumber() + "@" + segment));
+            }
+        }
+    }
+
+    @Test public void bookingsAreSkewedTowardsPopularTrainsAndRoutesHaveSeveralStops() throws IOException {
+        Path out = generate(DatasetGenerator.DEFAULT_SEED, "data");
+        Map<String, Integer> perTrain = new HashMap<>();
+        for (Ticket ticket : tickets(out)) {
+            perTrain.merge(ticket.getTrainId(), 1, Integer::sum);
+        }
+        int busiest = Collections.max(perTrain.values());
+        assertTrue("busiest train has " + busiest, busiest > 2 * TICKETS / TRAINS);
+
+        boolean multiStop = false;
+        for (Train train : trains(out).values()) {
+            multiStop |= train.getStations().size() > 2;
+        }
+        assertTrue(multiStop);
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private Path generate(long seed, String name) throws IOException {
+        Path out = dir.resolve(name);
+        new DatasetGenerator(seed, TRAINS, USERS, TICKETS).generate(out);
+        return out;
+    }
+
+    private static Map<String, Train> trains(Path out) throws IOException {
+        Map<String, Train> trains = new HashMap<>();
+        for (Train train : JsonCodecs.TRAINS_DOCUMENT_READER.<Map<String, List<Train>>>readValue(
+                out.resolve("trains.json").toFile()).get("trains")) {
+            trains.put(train.getTrainId(), train);
+        }
+        return trains;
+    }
+
+    private static List<Ticket> tickets(Path out) throws IOException {
+        return JsonCodecs.TICKET_LIST_READER.readValue(out.resolve("tickets.json").toFile());
+    }
+}
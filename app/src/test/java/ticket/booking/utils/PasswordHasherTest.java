@@ -0,0 +1,85 @@
+package ticket.booking.utils;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PasswordHasherTest {
+    // Slow enough that a queued request is still waiting when the next one arrives
+    private static final int SLOW_COST = 13;
+
+    private final List<PasswordHasher> hashers = new ArrayList<>();
+
+    @After public void shutdownHashers() {
+        hashers.forEach(PasswordHasher::shutdown);
+    }
+
+    @Test public void newHashesUseTheConfiguredCost() {
+        PasswordHasher hasher = hasher(5, 2, 8, 5000);
+        String hash = hasher.hash("secret");
+        assertEquals(5, PasswordHasher.costOf(hash));
+        assertTrue(hasher.verify("secret", hash));
+        assertFalse(hasher.verify("guess", hash));
+        assertFalse(hasher.needsRehash(hash));
+    }
+
+    @Test public void costIsClampedToWhatBcryptAccepts() {
+        assertEquals(PasswordHasher.MIN_COST, hasher(1, 1, 1, 5000).cost());
+        assertEquals(PasswordHasher.MAX_COST, hasher(40, 1, 1, 5000).cost());
+    }
+
+    @Test public void hashesAtAnotherCostStillVerifyButNeedRehash() {
+        PasswordHasher hasher = hasher(5, 1, 8, 5000);
+        String older = BCrypt.hashpw("secret", BCrypt.gensalt(4));
+        assertTrue(hasher.verify("secret", older));
+        assertTrue(hasher.needsRehash(older));
+        assertTrue("not a bcrypt hash", hasher.needsRehash("plain text"));
+        assertTrue(hasher.needsRehash(null));
+    }
+
+    @Test public void costIsReadFromTheHashPrefix() {
+        assertEquals(10, PasswordHasher.costOf("$2a$10$abcdefghijklmnopqrstuv"));
+        assertEquals(4, PasswordHasher.costOf("$2b$04$abcdefghijklmnopqrstuv"));
+        assertEquals(-1, PasswordHasher.costOf("$2a$1x$abcdefghijklmnopqrstuv"));
+        assertEquals(-1, PasswordHasher.costOf("$2a$"));
+        assertEquals(-1, PasswordHasher.costOf("$1$10$md5crypt"));
+    }
+
+    @Test public void requestsBeyondTheQueueFailFast() throws Exception {
+        PasswordHasher hasher = hasher(SLOW_COST, 1, 1, 5000);
+        CompletableFuture<String> running = hasher.hashAsync("first");
+        CompletableFuture<String> queued = hasher.hashAsync("second");
+        CompletableFuture<String> rejected = hasher.hashAsync("third");
+
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+            fail("the queue was full");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof PasswordHasher.OverloadedException);
+        }
+        assertTrue(hasher.verify("first", running.get(30, TimeUnit.SECONDS)));
+        assertTrue(hasher.verify("second", queued.get(30, TimeUnit.SECONDS)));
+    }
+
+    @Test(expected = PasswordHasher.OverloadedException.class)
+    public void callersStopWaitingAfterTheTimeout() {
+        hasher(SLOW_COST, 1, 4, 1).hash("secret");
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private PasswordHasher hasher(int cost, int threads, int queueCapacity, long timeoutMillis) {
+        PasswordHasher hasher = new PasswordHasher(cost, threads, queueCapacity, timeoutMillis);
+        hashers.add(hasher);
+        return hasher;
+    }
+}